@@ -0,0 +1,58 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.config.Bulkhead;
+import com.AdityaCode.StudyVault.config.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// What admission control adds to every admitted request: a token taken from a client's bucket and an
+// uncontended bulkhead permit. The rate is high enough that no bucket ever runs dry, the cost of the
+// rejected path is not the one that matters. Run with -t to see the CAS under contention.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdmissionBenchmark {
+
+    // One client hammering its own bucket, or requests spread over many client addresses
+    @Param({"1", "10000"})
+    private int clients;
+
+    private TokenBucketLimiter limiter;
+    private Bulkhead bulkhead;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new TokenBucketLimiter(1_000_000_000d, 1_000_000);
+        bulkhead = new Bulkhead(1024, 0);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long acquireToken(Cursor cursor) {
+        return limiter.tryAcquire(keys[cursor.next++ % keys.length]);
+    }
+
+    @Benchmark
+    public boolean acquireTokenAndPermit(Cursor cursor) throws InterruptedException {
+        boolean admitted = limiter.tryAcquire(keys[cursor.next++ % keys.length]) == 0
+                && bulkhead.tryAcquire(Duration.ZERO);
+        if (admitted) {
+            bulkhead.release();
+        }
+        return admitted;
+    }
+}
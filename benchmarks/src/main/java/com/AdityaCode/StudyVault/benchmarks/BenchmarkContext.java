@@ -0,0 +1,93 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.StudyVaultApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Boots the real application against a private in-memory H2 database and a throwaway storage
+// directory, so every trial starts from an empty vault and leaves nothing behind.
+final class BenchmarkContext implements AutoCloseable {
+
+    private final Path dataDir;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(Path dataDir, ConfigurableApplicationContext context) {
+        this.dataDir = dataDir;
+        this.context = context;
+    }
+
+    static BenchmarkContext start(WebApplicationType webApplicationType) throws IOException {
+        String runId = UUID.randomUUID().toString();
+        // Storage directories are resolved against user.dir, so they have to stay relative
+        String dataDir = "target/bench-data/" + runId + "/";
+        Files.createDirectories(Paths.get(System.getProperty("user.dir"), dataDir));
+
+        // Command line arguments, unlike default properties, take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(StudyVaultApplication.class)
+                .web(webApplicationType)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + runId + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        // The migrations are MySQL DDL, H2 gets a schema generated for its own dialect instead
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--server.port=0",
+                        "--admission.enabled=false",
+                        "--file.blob-dir=" + dataDir + ".blobs/",
+                        "--file.staging-dir=" + dataDir + ".staging/",
+                        "--search.index-dir=" + dataDir + ".index/",
+                        "--thumbnail.dir=" + dataDir + ".thumbnails/",
+                        "--logging.level.root=warn",
+                        "--spring.main.banner-mode=off");
+        return new BenchmarkContext(Paths.get(System.getProperty("user.dir"), dataDir), context);
+    }
+
+    // text/plain gets prose-like bytes the compression tier can shrink, everything else incompressible noise
+    static byte[] payload(String contentType, int size) {
+        Random random = new Random(size);
+        byte[] content = new byte[size];
+        if (!"text/plain".equals(contentType)) {
+            random.nextBytes(content);
+            return content;
+        }
+        String[] words = {"lecture", "notes", "exam", "chapter", "theorem", "proof", "assignment", "week", "summary", "lab"};
+        int position = 0;
+        while (position < size) {
+            byte[] word = (words[random.nextInt(words.length)] + (random.nextInt(12) == 0 ? ".\n" : " ")).getBytes();
+            int count = Math.min(word.length, size - position);
+            System.arraycopy(word, 0, content, position, count);
+            position += count;
+        }
+        return content;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> paths = Files.walk(dataDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Entry point of benchmarks.jar. Same options as the stock JMH launcher, but results are written
+// as JSON to jmh-result.json unless a result format is given explicitly.
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json", "-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
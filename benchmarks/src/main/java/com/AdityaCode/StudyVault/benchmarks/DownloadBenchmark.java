@@ -0,0 +1,69 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// GET /api/files/download/{id} over loopback against the embedded Tomcat, so the sendfile and
+// transferTo paths are exercised as in production. Variants:
+//   plain    - incompressible blob, served zero-copy
+//   gzip     - compressed blob sent as stored to a client accepting gzip
+//   inflated - compressed blob inflated on the fly for a client that does not
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DownloadBenchmark {
+
+    @Param({"16384", "1048576", "8388608"})
+    private int size;
+
+    @Param({"plain", "gzip", "inflated"})
+    private String variant;
+
+    private BenchmarkContext app;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        app = BenchmarkContext.start(WebApplicationType.SERVLET);
+        FileServiceStorage fileServiceStorage = app.bean(FileServiceStorage.class);
+
+        String contentType = "plain".equals(variant) ? "image/png" : "text/plain";
+        String fileName = "plain".equals(variant) ? "download.png" : "download.txt";
+        fileServiceStorage.saveFile(new MockMultipartFile("file", fileName, contentType,
+                BenchmarkContext.payload(contentType, size)), null);
+        Long id = fileServiceStorage.getFilesByParentFolderId(null).get(0).getId();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + "/api/files/download/" + id))
+                .header("Accept-Encoding", "gzip".equals(variant) ? "gzip" : "identity")
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Download returned " + response.statusCode());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        app.close();
+    }
+
+    @Benchmark
+    public int download() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,59 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Breadcrumb resolution for the deepest folder of a single chain. The chain is written straight
+// through the repository (no directories on disk), only the ancestry path matters to getFolderPath.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FolderPathBenchmark {
+
+    // Bounded by the 512 character ancestry path column
+    @Param({"4", "32", "96"})
+    private int depth;
+
+    private BenchmarkContext app;
+    private FileServiceStorage fileServiceStorage;
+    private Long leafId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        app = BenchmarkContext.start(WebApplicationType.NONE);
+        fileServiceStorage = app.bean(FileServiceStorage.class);
+        FolderRepo folderRepo = app.bean(FolderRepo.class);
+
+        Long parentId = null;
+        String ancestryPath = "/";
+        for (int level = 0; level < depth; level++) {
+            FolderEntity folder = folderRepo.save(new FolderEntity("level-" + level, parentId));
+            ancestryPath = ancestryPath + folder.getId() + "/";
+            folder.setAncestryPath(ancestryPath);
+            folderRepo.save(folder);
+            parentId = folder.getId();
+        }
+        leafId = parentId;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getFolderPath() {
+        return fileServiceStorage.getFolderPath(leafId);
+    }
+}
@@ -0,0 +1,77 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import com.AdityaCode.StudyVault.Services.FolderListingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cost of producing the /list response body for a large folder, using the application's own
+// ObjectMapper. The listing comes out of the metadata cache after the first call, so this is
+// dominated by entity serialization; the paged endpoint is measured alongside for comparison.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int entries;
+
+    private BenchmarkContext app;
+    private FileServiceStorage fileServiceStorage;
+    private FolderListingService folderListingService;
+    private ObjectMapper objectMapper;
+    private Long folderId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        app = BenchmarkContext.start(WebApplicationType.NONE);
+        fileServiceStorage = app.bean(FileServiceStorage.class);
+        folderListingService = app.bean(FolderListingService.class);
+        objectMapper = app.bean(ObjectMapper.class);
+
+        // Metadata only, listings never touch the blobs
+        FolderEntity folder = fileServiceStorage.createFolder("listing", null);
+        folderId = folder.getId();
+        List<FileEntity> files = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            files.add(new FileEntity("file-" + i + ".pdf", "application/pdf", 1024L * (i + 1),
+                    "listing/file-" + i + ".pdf", folderId));
+        }
+        app.bean(FileRepo.class).saveAll(files);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.close();
+    }
+
+    // Same shape as FileController.listFilesAndFolders
+    @Benchmark
+    public byte[] list() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("files", fileServiceStorage.getFilesByParentFolderId(folderId));
+        response.put("folders", fileServiceStorage.getFoldersByParentFolderId(folderId));
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] listFirstPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                folderListingService.listPage(folderId, "name", "asc", null, FolderListingService.MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,67 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Pre-deploy gate: compares two JMH JSON result files and exits with status 1 when any benchmark
+// got slower than the allowed tolerance. Throughput scores regress downwards, time scores upwards.
+//
+//   java -cp benchmarks.jar com.AdityaCode.StudyVault.benchmarks.ResultComparator baseline.json jmh-result.json [0.10]
+public final class ResultComparator {
+
+    private static final double DEFAULT_TOLERANCE = 0.10;
+
+    private ResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparator <baseline.json> <current.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            double old = before.path("primaryMetric").path("score").asDouble();
+            double now = entry.getValue().path("primaryMetric").path("score").asDouble();
+            String unit = entry.getValue().path("primaryMetric").path("scoreUnit").asText();
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double change = old == 0 ? 0 : (now - old) / old;
+            boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s  %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "REGRESSED" : "ok",
+                    entry.getKey(), old, now, unit, change * 100);
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+
+    // Keyed by benchmark name plus its parameters, e.g. "...SaveFileBenchmark.saveFile{contentType=text/plain, size=4096}"
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(result.path("benchmark").asText() + (params.isEmpty() ? "" : params.toString()), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,73 @@
+package com.AdityaCode.StudyVault.benchmarks;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Multipart upload path end to end below the controller: validation, hashing (and gzip for text),
+// the blob write and the metadata insert. Multiply ops/s by size for bytes per second.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaveFileBenchmark {
+
+    @Param({"4096", "262144", "4194304"})
+    private int size;
+
+    @Param({"image/png", "text/plain"})
+    private String contentType;
+
+    private BenchmarkContext app;
+    private FileServiceStorage fileServiceStorage;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Upload {
+        private byte[] content;
+
+        @Setup(Level.Trial)
+        public void setUp(SaveFileBenchmark benchmark) {
+            content = BenchmarkContext.payload(benchmark.contentType, benchmark.size);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        app = BenchmarkContext.start(WebApplicationType.NONE);
+        fileServiceStorage = app.bean(FileServiceStorage.class);
+    }
+
+    // Keeps the blob directory from growing across iterations, outside of the measured window
+    @TearDown(Level.Iteration)
+    public void purge() {
+        List<Long> ids = fileServiceStorage.getFilesByParentFolderId(null).stream().map(FileEntity::getId).toList();
+        for (int i = 0; i < ids.size(); i += 500) {
+            fileServiceStorage.deleteFiles(ids.subList(i, Math.min(ids.size(), i + 500)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.close();
+    }
+
+    @Benchmark
+    public String saveFile(Upload upload) {
+        long n = sequence.incrementAndGet();
+        // Every upload must be new content, otherwise the blob store deduplicates all but the first
+        ByteBuffer.wrap(upload.content).putLong(n);
+        String extension = "text/plain".equals(contentType) ? ".txt" : ".png";
+        return fileServiceStorage.saveFile(new MockMultipartFile("file", "upload-" + n + extension, contentType, upload.content), null);
+    }
+}
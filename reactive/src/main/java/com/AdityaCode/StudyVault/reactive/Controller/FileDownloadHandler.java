@@ -0,0 +1,148 @@
+package com.AdityaCode.StudyVault.reactive.Controller;
+
+import com.AdityaCode.StudyVault.reactive.Entity.FileEntity;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+// Same validators, headers and encoding negotiation as the blocking handler. Bodies stored as sent are
+// returned as a FileSystemResource: WebFlux answers Range requests from it and Reactor Netty writes it
+// zero-copy, so a slow reader holds neither a thread nor a buffer. Only compressed blobs for clients
+// without gzip are inflated, on the bounded elastic scheduler, with single ranges cut from the stream.
+@Component
+public class FileDownloadHandler {
+
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private record Stored(Path path, long lastModified) {
+    }
+
+    // Empty once the body has been written to the exchange directly
+    public Mono<ResponseEntity<?>> serve(FileEntity fileEntity, ServerWebExchange exchange) {
+        Path path = Paths.get(fileEntity.getFilePath());
+        return Mono.fromCallable(() -> Files.isReadable(path)
+                        // HTTP dates only carry second precision
+                        ? Optional.of(new Stored(path, Files.getLastModifiedTime(path).toMillis() / 1000 * 1000))
+                        : Optional.<Stored>empty())
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> stored.isPresent()
+                        ? respond(fileEntity, stored.get(), exchange)
+                        : Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    private Mono<ResponseEntity<?>> respond(FileEntity fileEntity, Stored stored, ServerWebExchange exchange) {
+        // Compressed blobs go out untouched to clients that accept the coding, everyone else gets them inflated
+        boolean encoded = GZIP.equals(fileEntity.getContentEncoding());
+        boolean sendEncoded = encoded && acceptsGzip(exchange.getRequest().getHeaders());
+        boolean decode = encoded && !sendEncoded;
+        long length = sendEncoded ? fileEntity.getStoredSize() : fileEntity.getSize();
+        // Blob-backed files are content addressed, so the hash is a natural strong validator.
+        // The encoded representation is a different byte sequence and needs its own.
+        String validator = fileEntity.getContentHash() != null
+                ? fileEntity.getContentHash()
+                : fileEntity.getId() + "-" + Long.toHexString(length) + "-" + Long.toHexString(stored.lastModified());
+        String etag = "\"" + validator + (sendEncoded ? "-" + GZIP : "") + "\"";
+
+        if (encoded) {
+            exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (exchange.checkNotModified(etag, Instant.ofEpochMilli(stored.lastModified()))) {
+            // 304 or 412, validators are already on the response
+            return Mono.just(ResponseEntity.status(exchange.getResponse().getStatusCode()).build());
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setCacheControl("private, no-cache");
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileEntity.getFileName(), StandardCharsets.UTF_8).build());
+        headers.setContentType(fileEntity.getFileType() != null
+                ? MediaType.parseMediaType(fileEntity.getFileType())
+                : MediaType.APPLICATION_OCTET_STREAM);
+        if (sendEncoded) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = exchange.getRequest().getHeaders().getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        // Checked here because the resource writer answers an unsatisfiable range with a 500
+        for (HttpRange range : ranges) {
+            if (range.getRangeStart(length) >= length) {
+                return Mono.just(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build());
+            }
+        }
+        if (!decode) {
+            return Mono.just(ResponseEntity.ok().headers(headers).body(new FileSystemResource(stored.path())));
+        }
+        return inflated(stored.path(), length, ranges, headers, exchange);
+    }
+
+    // Written straight to the response, a Flux body inside ResponseEntity<?> has no element type to pick an encoder by
+    private Mono<ResponseEntity<?>> inflated(Path path, long length, List<HttpRange> ranges, HttpHeaders headers,
+                                             ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        Flux<DataBuffer> body = DataBufferUtils.readInputStream(() -> new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE),
+                        response.bufferFactory(), BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+        // Several ranges of an inflated stream are answered with the whole body, which HTTP allows
+        if (ranges.size() != 1) {
+            response.getHeaders().putAll(headers);
+            response.getHeaders().setContentLength(length);
+            return response.writeWith(body).then(Mono.empty());
+        }
+        long start = ranges.get(0).getRangeStart(length);
+        long count = Math.min(ranges.get(0).getRangeEnd(length), length - 1) - start + 1;
+        response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + length);
+        response.getHeaders().setContentLength(count);
+        return response.writeWith(DataBufferUtils.takeUntilByteCount(DataBufferUtils.skipUntilByteCount(body, start), count))
+                .then(Mono.empty());
+    }
+
+    // Any listed gzip coding with a non-zero quality, or a wildcard that does not exclude it
+    private boolean acceptsGzip(HttpHeaders requestHeaders) {
+        boolean wildcard = false;
+        for (String header : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                boolean rejected = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    return !rejected;
+                }
+                if (name.equals("*")) {
+                    wildcard = !rejected;
+                }
+            }
+        }
+        return wildcard;
+    }
+}
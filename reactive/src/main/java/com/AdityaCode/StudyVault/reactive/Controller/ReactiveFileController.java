@@ -0,0 +1,115 @@
+package com.AdityaCode.StudyVault.reactive.Controller;
+
+import com.AdityaCode.StudyVault.reactive.Services.QuotaExceededException;
+import com.AdityaCode.StudyVault.reactive.Services.ReactiveBlobStore;
+import com.AdityaCode.StudyVault.reactive.Services.ReactiveFileService;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.FormPartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RestController
+@RequestMapping("/api/files")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReactiveFileController {
+
+    private final ReactiveFileService fileService;
+    private final FileDownloadHandler fileDownloadHandler;
+
+    public ReactiveFileController(ReactiveFileService fileService, FileDownloadHandler fileDownloadHandler) {
+        this.fileService = fileService;
+        this.fileDownloadHandler = fileDownloadHandler;
+    }
+
+    private record Upload(ReactiveBlobStore.StagedBlob staged, String fileName) {
+    }
+
+    // The multipart body is read as part events, so the file part streams straight into its staging file
+    // instead of being buffered to a temporary part file first. The part's Content-Type is ignored, the type
+    // is sniffed from its first bytes. parentFolderId may come as a query parameter or as a form field on
+    // either side of the file.
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<String>> uploadFile(@RequestBody Flux<PartEvent> parts,
+                                                   @RequestParam(value = "parentFolderId", required = false) Long parentFolderId) {
+        AtomicReference<Long> parent = new AtomicReference<>(parentFolderId);
+        List<Upload> uploads = new CopyOnWriteArrayList<>();
+        return parts.windowUntil(PartEvent::isLast)
+                .concatMap(part -> part.switchOnFirst((signal, events) -> {
+                    PartEvent first = signal.get();
+                    if (first instanceof FilePartEvent filePart && "file".equals(first.name()) && uploads.isEmpty()) {
+                        String fileName = fileService.validateUpload(filePart.filename());
+                        return fileService.stage(events.map(PartEvent::content))
+                                .doOnNext(staged -> uploads.add(new Upload(staged, fileName)))
+                                .then();
+                    }
+                    if (first instanceof FormPartEvent form && "parentFolderId".equals(first.name()) && parentFolderId == null) {
+                        parent.set(form.value().isBlank() ? null : Long.valueOf(form.value()));
+                    }
+                    return events.doOnNext(event -> DataBufferUtils.release(event.content())).then();
+                }))
+                .then(Mono.defer(() -> {
+                    if (uploads.isEmpty()) {
+                        return Mono.just(ResponseEntity.badRequest().body("File upload failed: Required part 'file' is not present"));
+                    }
+                    Upload upload = uploads.get(0);
+                    return fileService.storeStaged(upload.staged(), upload.fileName(), parent.get(), true)
+                            .map(ResponseEntity::ok);
+                }))
+                .onErrorResume(e -> Flux.fromIterable(uploads)
+                        .concatMap(upload -> fileService.discardStaged(upload.staged()))
+                        .then(Mono.just(e instanceof QuotaExceededException
+                                ? ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File upload failed: " + e.getMessage())
+                                : e instanceof IllegalArgumentException
+                                ? ResponseEntity.badRequest().body("File upload failed: " + e.getMessage())
+                                : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File upload failed: " + e.getMessage()))));
+    }
+
+    @GetMapping("/download/{id}")
+    public Mono<ResponseEntity<?>> downloadFile(@PathVariable Long id, ServerWebExchange exchange) {
+        return fileService.getFileById(id)
+                .flatMap(fileEntity -> fileDownloadHandler.serve(fileEntity, exchange))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/list")
+    public Mono<ResponseEntity<Map<String, Object>>> listFilesAndFolders(@RequestParam(value = "parentFolderId", required = false) Long parentFolderId) {
+        return Mono.zip(fileService.getFilesByParentFolderId(parentFolderId).collectList(),
+                        fileService.getFoldersByParentFolderId(parentFolderId).collectList())
+                .map(listing -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("files", listing.getT1());
+                    response.put("folders", listing.getT2());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    @GetMapping("/share/{linkId}")
+    public Mono<ResponseEntity<?>> accessSharedFile(@PathVariable String linkId, @RequestParam String password,
+                                                    ServerWebExchange exchange) {
+        return fileService.resolveShare(linkId)
+                .flatMap(share -> {
+                    if (!share.link().getPassword().equals(password)) {
+                        return Mono.<ResponseEntity<?>>just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+                    }
+                    if (share.link().getExpiryDate().isBefore(LocalDateTime.now())) {
+                        return Mono.<ResponseEntity<?>>just(ResponseEntity.status(HttpStatus.GONE).build());
+                    }
+                    return fileDownloadHandler.serve(share.file(), exchange);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,113 @@
+package com.AdityaCode.StudyVault.reactive.Controller;
+
+import com.AdityaCode.StudyVault.reactive.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.reactive.Services.ChunkedUploadService;
+import com.AdityaCode.StudyVault.reactive.Services.QuotaExceededException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UploadSessionController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public UploadSessionController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> initUpload(@RequestBody UploadSessionRequest request) {
+        return chunkedUploadService.initSession(request.getFileName(), request.getFileType(),
+                        request.getTotalSize(), request.getParentFolderId())
+                .<ResponseEntity<?>>map(session -> ResponseEntity.status(HttpStatus.CREATED)
+                        .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                        .body(toResponse(session)))
+                .onErrorResume(QuotaExceededException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(Map.of("error", "Upload init failed: " + e.getMessage()))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest()
+                        .body(Map.of("error", "Upload init failed: " + e.getMessage()))));
+    }
+
+    @RequestMapping(value = "/{sessionId}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public Mono<ResponseEntity<?>> getUploadStatus(@PathVariable String sessionId) {
+        return chunkedUploadService.getSession(sessionId)
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok()
+                        .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                        .body(toResponse(session)))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", e.getMessage()))));
+    }
+
+    // The body is consumed buffer by buffer as the disk accepts it, no thread waits on a slow sender
+    @PutMapping("/{sessionId}")
+    public Mono<ResponseEntity<?>> uploadChunk(@PathVariable String sessionId,
+                                               @RequestParam("offset") long offset,
+                                               ServerHttpRequest request) {
+        return chunkedUploadService.appendChunk(sessionId, offset, request.getBody())
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok()
+                        .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                        .body(toResponse(session)))
+                // Client is out of sync, tell it where to resume from
+                .onErrorResume(IllegalStateException.class, e -> chunkedUploadService.getSession(sessionId)
+                        .map(session -> ResponseEntity.status(HttpStatus.CONFLICT)
+                                .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                                .body(Map.of("error", e.getMessage(), "offset", session.getReceivedBytes()))))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(Map.of("error", e.getMessage()))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Chunk upload failed: " + e.getMessage()))));
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public Mono<ResponseEntity<String>> completeUpload(@PathVariable String sessionId) {
+        return chunkedUploadService.completeSession(sessionId)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(e instanceof IllegalStateException || e instanceof IllegalArgumentException
+                        ? ResponseEntity.badRequest().body("File upload failed: " + e.getMessage())
+                        : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File upload failed: " + e.getMessage())));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public Mono<ResponseEntity<?>> abortUpload(@PathVariable String sessionId) {
+        return chunkedUploadService.abortSession(sessionId)
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.ok().body(Map.of("message", "Upload aborted"))))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", e.getMessage()))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Failed to abort upload: " + e.getMessage()))));
+    }
+
+    private Map<String, Object> toResponse(UploadSessionEntity session) {
+        return Map.of(
+                "id", session.getId(),
+                "fileName", session.getFileName(),
+                "offset", session.getReceivedBytes(),
+                "totalSize", session.getTotalSize()
+        );
+    }
+}
+
+class UploadSessionRequest {
+    private String fileName;
+    private String fileType;
+    private Long totalSize;
+    private Long parentFolderId;
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getFileType() { return fileType; }
+    public void setFileType(String fileType) { this.fileType = fileType; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+}
@@ -0,0 +1,50 @@
+package com.AdityaCode.StudyVault.reactive.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// Same row and JSON shape as the blocking application's FileEntity. Ids come from files_seq through
+// FileIdAllocator, so rows are always inserted with their id set.
+@Table("files")
+public class FileEntity {
+
+    @Id
+    private Long id;
+
+    private String fileName;
+    private String fileType;
+    private Long size; // Logical size, what the client uploaded and downloads
+    private String filePath;
+    private String contentEncoding; // null when stored as uploaded, otherwise e.g. "gzip"
+    private Long storedSize; // Bytes on disk, differs from size for encoded content
+    private String contentHash; // SHA-256 of the content, key into the blob store
+    private Long parentFolderId; // null for root-level files
+    private LocalDateTime createdAt;
+
+    public FileEntity() {
+        // Default constructor
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getFileType() { return fileType; }
+    public void setFileType(String fileType) { this.fileType = fileType; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+    public String getContentEncoding() { return contentEncoding; }
+    public void setContentEncoding(String contentEncoding) { this.contentEncoding = contentEncoding; }
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,43 @@
+package com.AdityaCode.StudyVault.reactive.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// Read only here, folders are created and moved through the blocking application
+@Table("folders")
+public class FolderEntity {
+
+    @Id
+    private Long id;
+
+    private String folderName;
+    private Long parentFolderId; // null for root folders
+    private String ancestryPath; // Ids from the root down to this folder, e.g. "/1/5/9/"
+    private LocalDateTime createdAt;
+    private Long subtreeBytes;
+    private Long subtreeFileCount;
+    private Long quotaBytes; // null means no limit on this subtree
+
+    public FolderEntity() {
+        // Default constructor
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getFolderName() { return folderName; }
+    public void setFolderName(String folderName) { this.folderName = folderName; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+    public String getAncestryPath() { return ancestryPath; }
+    public void setAncestryPath(String ancestryPath) { this.ancestryPath = ancestryPath; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public Long getSubtreeBytes() { return subtreeBytes; }
+    public void setSubtreeBytes(Long subtreeBytes) { this.subtreeBytes = subtreeBytes; }
+    public Long getSubtreeFileCount() { return subtreeFileCount; }
+    public void setSubtreeFileCount(Long subtreeFileCount) { this.subtreeFileCount = subtreeFileCount; }
+    public Long getQuotaBytes() { return quotaBytes; }
+    public void setQuotaBytes(Long quotaBytes) { this.quotaBytes = quotaBytes; }
+}
@@ -0,0 +1,37 @@
+package com.AdityaCode.StudyVault.reactive.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// Read only here, links are created through the blocking application
+@Table("share_links")
+public class ShareLinkEntity {
+
+    @Id
+    private Long id;
+
+    private Long fileId;
+    private String token; // Bare link token, the exact-match lookup key
+    private String shareLink;
+    private String password;
+    private LocalDateTime expiryDate;
+
+    public ShareLinkEntity() {
+        // Default constructor
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public String getShareLink() { return shareLink; }
+    public void setShareLink(String shareLink) { this.shareLink = shareLink; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public LocalDateTime getExpiryDate() { return expiryDate; }
+    public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
+}
@@ -0,0 +1,13 @@
+package com.AdityaCode.StudyVault.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveStudyVaultApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveStudyVaultApplication.class, args);
+	}
+
+}
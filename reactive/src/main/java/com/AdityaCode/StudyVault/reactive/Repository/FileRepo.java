@@ -0,0 +1,12 @@
+package com.AdityaCode.StudyVault.reactive.Repository;
+
+import com.AdityaCode.StudyVault.reactive.Entity.FileEntity;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface FileRepo extends R2dbcRepository<FileEntity, Long> {
+    Flux<FileEntity> findByParentFolderId(Long parentFolderId);
+    Flux<FileEntity> findByParentFolderIdIsNull();
+}
@@ -0,0 +1,23 @@
+package com.AdityaCode.StudyVault.reactive.Repository;
+
+import com.AdityaCode.StudyVault.reactive.Entity.FolderEntity;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface FolderRepo extends R2dbcRepository<FolderEntity, Long> {
+    Flux<FolderEntity> findByParentFolderId(Long parentFolderId);
+    Flux<FolderEntity> findByParentFolderIdIsNull();
+
+    // One statement adjusts the aggregates of every folder on the path from the root
+    @Modifying
+    @Query("update folders set subtree_bytes = subtree_bytes + :bytes, subtree_file_count = subtree_file_count + :files " +
+            "where id in (:ids)")
+    Mono<Integer> addUsage(Collection<Long> ids, long bytes, long files);
+}
@@ -0,0 +1,11 @@
+package com.AdityaCode.StudyVault.reactive.Repository;
+
+import com.AdityaCode.StudyVault.reactive.Entity.ShareLinkEntity;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ShareLinkRepo extends R2dbcRepository<ShareLinkEntity, Long> {
+    Mono<ShareLinkEntity> findByToken(String token);
+}
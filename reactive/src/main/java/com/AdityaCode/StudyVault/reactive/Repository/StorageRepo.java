@@ -0,0 +1,41 @@
+package com.AdityaCode.StudyVault.reactive.Repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+// Statements on the blob and usage tables, which have no entities on this side. The upserts are the same
+// single statements the blocking application uses, so both stacks can count references concurrently.
+@Repository
+public class StorageRepo {
+
+    private final DatabaseClient databaseClient;
+
+    public StorageRepo(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Long> addReference(String hash, long size) {
+        return databaseClient.sql("insert into blobs (hash, size, ref_count, created_at) values (:hash, :size, 1, now()) " +
+                        "on duplicate key update ref_count = ref_count + 1")
+                .bind("hash", hash)
+                .bind("size", size)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<Long> addUsage(String scope, long bytes, long files) {
+        return databaseClient.sql("insert into storage_usage (scope, bytes, file_count) values (:scope, :bytes, :files) " +
+                        "on duplicate key update bytes = bytes + :bytes, file_count = file_count + :files")
+                .bind("scope", scope)
+                .bind("bytes", bytes)
+                .bind("files", files)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<Long> getUsedBytes(String scope) {
+        return databaseClient.sql("select bytes from storage_usage where scope = :scope")
+                .bind("scope", scope)
+                .map(row -> row.get("bytes", Long.class))
+                .one();
+    }
+}
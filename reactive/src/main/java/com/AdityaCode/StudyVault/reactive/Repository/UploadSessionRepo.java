@@ -0,0 +1,9 @@
+package com.AdityaCode.StudyVault.reactive.Repository;
+
+import com.AdityaCode.StudyVault.reactive.Entity.UploadSessionEntity;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UploadSessionRepo extends R2dbcRepository<UploadSessionEntity, String> {
+}
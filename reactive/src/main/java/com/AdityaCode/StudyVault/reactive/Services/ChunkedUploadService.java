@@ -0,0 +1,140 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import com.AdityaCode.StudyVault.reactive.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.reactive.Repository.UploadSessionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Resumable uploads on the same upload_sessions rows and "<id>.part" staging files as the blocking
+// application, which also purges stale sessions for both. A slow client costs a registered channel and a
+// staging file here, no thread.
+@Service
+public class ChunkedUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    @Value("${file.chunked.max-file-size}")
+    private DataSize maxFileSize;
+
+    private final UploadSessionRepo uploadSessionRepo;
+    private final ReactiveFileService fileService;
+    private final ReactiveBlobStore blobStore;
+
+    public ChunkedUploadService(UploadSessionRepo uploadSessionRepo, ReactiveFileService fileService, ReactiveBlobStore blobStore) {
+        this.uploadSessionRepo = uploadSessionRepo;
+        this.fileService = fileService;
+        this.blobStore = blobStore;
+    }
+
+    public Mono<UploadSessionEntity> initSession(String originalFilename, String contentType, Long totalSize, Long parentFolderId) {
+        return Mono.fromCallable(() -> {
+                    String fileName = fileService.validateUpload(originalFilename);
+                    if (totalSize == null || totalSize <= 0) {
+                        throw new IllegalArgumentException("File is empty");
+                    }
+                    if (totalSize > maxFileSize.toBytes()) {
+                        throw new IllegalArgumentException("File size exceeds " + maxFileSize.toMegabytes() + "MB limit");
+                    }
+                    return fileName;
+                })
+                // Fail fast on an unknown parent or a full quota instead of after the last chunk
+                .flatMap(fileName -> fileService.ancestorIds(parentFolderId)
+                        .flatMap(ancestors -> fileService.checkQuota(ancestors, totalSize))
+                        .then(Mono.fromCallable(() -> {
+                            Files.createDirectories(blobStore.stagingRoot());
+                            String sessionId = UUID.randomUUID().toString();
+                            Path stagedFile = Files.createFile(blobStore.stagingRoot().resolve(sessionId + ".part"));
+                            return new UploadSessionEntity(sessionId, fileName, contentType, totalSize, stagedFile.toString(), parentFolderId);
+                        }).subscribeOn(Schedulers.boundedElastic())))
+                .flatMap(uploadSessionRepo::save)
+                .doOnNext(session -> logger.info("Upload session {} started for {} ({} bytes)",
+                        session.getId(), session.getFileName(), session.getTotalSize()));
+    }
+
+    public Mono<UploadSessionEntity> getSession(String sessionId) {
+        return uploadSessionRepo.findById(sessionId)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Upload session not found: " + sessionId)));
+    }
+
+    // Whatever reached the disk is acknowledged even if the client drops mid-chunk, so the next PUT
+    // resumes from there. A dropped connection cancels rather than fails the chain, hence doFinally.
+    public Mono<UploadSessionEntity> appendChunk(String sessionId, long offset, Flux<DataBuffer> body) {
+        return getSession(sessionId).flatMap(session -> {
+            if (offset != session.getReceivedBytes()) {
+                return Mono.error(new IllegalStateException("Offset mismatch, expected " + session.getReceivedBytes()));
+            }
+            AtomicLong written = new AtomicLong();
+            return blobStore.append(Paths.get(session.getStagingPath()), offset, session.getTotalSize() - offset, body, written)
+                    .onErrorResume(e -> recordProgress(session, offset, written).then(Mono.error(e)))
+                    .then(recordProgress(session, offset, written))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            recordProgress(session, offset, written).subscribe();
+                        }
+                    })
+                    .flatMap(saved -> inspectHead(saved, offset));
+        });
+    }
+
+    // The type is known as soon as the head is in, an unsupported file ends the session there instead of
+    // after the client sent the rest of it
+    private Mono<UploadSessionEntity> inspectHead(UploadSessionEntity session, long offset) {
+        long sniffLength = Math.min(UploadInspector.SNIFF_LENGTH, session.getTotalSize());
+        if (offset >= sniffLength || session.getReceivedBytes() < sniffLength) {
+            return Mono.just(session);
+        }
+        return Mono.fromCallable(() -> UploadInspector.inspect(Paths.get(session.getStagingPath())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(contentType -> {
+                    session.setFileType(contentType);
+                    return uploadSessionRepo.save(session);
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> abortSession(session.getId()).then(Mono.error(e)));
+    }
+
+    public Mono<String> completeSession(String sessionId) {
+        return getSession(sessionId).flatMap(session -> {
+            if (!session.getReceivedBytes().equals(session.getTotalSize())) {
+                return Mono.error(new IllegalStateException("Upload incomplete, received " + session.getReceivedBytes()
+                        + " of " + session.getTotalSize() + " bytes"));
+            }
+            Path stagedFile = Paths.get(session.getStagingPath());
+            return blobStore.hash(stagedFile)
+                    .flatMap(staged -> fileService.storeStaged(staged, session.getFileName(), session.getParentFolderId(), false))
+                    .flatMap(response -> uploadSessionRepo.delete(session)
+                            .then(blobStore.discard(stagedFile))
+                            .thenReturn(response))
+                    .doOnNext(response -> logger.info("Upload session {} completed", sessionId));
+        });
+    }
+
+    public Mono<Void> abortSession(String sessionId) {
+        return getSession(sessionId)
+                .flatMap(session -> blobStore.discard(Paths.get(session.getStagingPath()))
+                        .then(uploadSessionRepo.delete(session)))
+                .doOnSuccess(ignored -> logger.info("Upload session {} aborted", sessionId));
+    }
+
+    // Deferred, written is only final once the write has ended
+    private Mono<UploadSessionEntity> recordProgress(UploadSessionEntity session, long offset, AtomicLong written) {
+        return Mono.defer(() -> {
+            session.setReceivedBytes(offset + written.get());
+            session.setUpdatedAt(LocalDateTime.now());
+            return uploadSessionRepo.save(session);
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// File ids come from the files_seq the blocking application's pooled generator uses, following the same
+// protocol: a fetched value V reserves (V - 50, V]. On MySQL files_seq is a single-row table bumped under
+// a row lock, on databases with real sequences it is a sequence. Either way both stacks can insert files.
+@Component
+public class FileIdAllocator {
+
+    private static final int ALLOCATION_SIZE = 50; // FileEntity.ID_ALLOCATION_SIZE of the blocking application
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(1, 0));
+    private final Mono<Boolean> tableSequence;
+
+    public FileIdAllocator(DatabaseClient databaseClient, TransactionalOperator transactionalOperator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        // schema() is database() on MySQL and the current schema on H2
+        this.tableSequence = databaseClient.sql("select count(*) as found from information_schema.tables " +
+                        "where lower(table_name) = 'files_seq' and table_schema = schema()")
+                .map(row -> row.get("found", Long.class) > 0)
+                .one()
+                .cache();
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Block block;
+            while ((block = current.get()).next() <= block.last()) {
+                if (current.compareAndSet(block, new Block(block.next() + 1, block.last()))) {
+                    return Mono.just(block.next());
+                }
+            }
+            // Concurrent callers may each fetch a block, the ids of the one that loses are simply skipped
+            return fetchBlockEnd().map(last -> {
+                long first = Math.max(1, last - ALLOCATION_SIZE + 1);
+                current.set(new Block(first + 1, last));
+                return first;
+            });
+        });
+    }
+
+    private Mono<Long> fetchBlockEnd() {
+        return tableSequence.flatMap(table -> table ? bumpTable() : databaseClient.sql("select next value for files_seq as next_val")
+                .map(row -> row.get("next_val", Long.class))
+                .one());
+    }
+
+    private Mono<Long> bumpTable() {
+        return databaseClient.sql("select next_val from files_seq for update")
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .flatMap(value -> databaseClient.sql("update files_seq set next_val = :next where next_val = :value")
+                        .bind("next", value + ALLOCATION_SIZE)
+                        .bind("value", value)
+                        .fetch().rowsUpdated()
+                        .filter(updated -> updated > 0)
+                        .map(updated -> value))
+                .as(transactionalOperator::transactional)
+                .repeatWhenEmpty(Integer.MAX_VALUE, attempts -> attempts);
+    }
+
+    private record Block(long next, long last) {
+    }
+}
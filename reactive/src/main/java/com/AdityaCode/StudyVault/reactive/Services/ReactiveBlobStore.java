@@ -0,0 +1,226 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The blocking application's content-addressed layout (blob-dir/ab/cd/<sha256>, ".gz" for compressed
+// copies), written without blocking an event loop thread. Bodies go to disk through AsynchronousFileChannel
+// one buffer at a time, and the next buffer is only requested from the connection once the previous one
+// was written, so a slow disk slows the client down instead of filling the heap. The remaining file
+// system calls (create, fsync, rename) run on the bounded elastic scheduler.
+// Content is stored as uploaded, compression stays with the blocking application's store.
+@Component
+public class ReactiveBlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveBlobStore.class);
+    private static final String GZIP = "gzip";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${file.blob-dir}")
+    private String blobDir;
+
+    @Value("${file.staging-dir}")
+    private String stagingDir;
+
+    // Content received, hashed and sniffed, not yet part of the store
+    public record StagedBlob(Path path, String hash, long size, String contentType) {
+    }
+
+    public record StoredBlob(String hash, long size, Path path, String contentEncoding, long storedSize) {
+    }
+
+    // Streams the content into a new staging file, hashing every buffer before it is written. The type is
+    // checked before the buffer completing the head is written, so a bad file fails within its first 4KB.
+    public Mono<StagedBlob> stage(Flux<DataBuffer> content, long maxSize) {
+        return blocking(this::createStagingFile).flatMap(stagedFile -> {
+            MessageDigest digest = sha256();
+            AtomicLong size = new AtomicLong();
+            UploadInspector.Head head = new UploadInspector.Head();
+            Flux<DataBuffer> hashed = content.doOnNext(buffer -> {
+                try {
+                    if (size.addAndGet(buffer.readableByteCount()) > maxSize) {
+                        throw new IllegalArgumentException("File size exceeds " + maxSize / (1024 * 1024) + "MB limit");
+                    }
+                    if (head.add(buffer)) {
+                        head.requireAllowed();
+                    }
+                } catch (IllegalArgumentException e) {
+                    DataBufferUtils.release(buffer);
+                    throw e;
+                }
+                update(digest, buffer);
+            });
+            return DataBufferUtils.write(hashed, stagedFile, StandardOpenOption.WRITE)
+                    .then(blocking(() -> {
+                        String contentType = head.requireAllowed();
+                        force(stagedFile);
+                        return new StagedBlob(stagedFile, HexFormat.of().formatHex(digest.digest()), size.get(), contentType);
+                    }))
+                    .onErrorResume(e -> discard(stagedFile).then(Mono.error(e)));
+        });
+    }
+
+    // Hashes a file that was received in chunks, read back through the same asynchronous channel. The type
+    // is detected again from the assembled head, it is what gets stored whatever the session declared.
+    public Mono<StagedBlob> hash(Path stagedFile) {
+        MessageDigest digest = sha256();
+        AtomicLong size = new AtomicLong();
+        UploadInspector.Head head = new UploadInspector.Head();
+        return DataBufferUtils.read(stagedFile, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE)
+                .doOnNext(buffer -> {
+                    size.addAndGet(buffer.readableByteCount());
+                    head.add(buffer);
+                    update(digest, buffer);
+                    DataBufferUtils.release(buffer);
+                })
+                .then(Mono.fromSupplier(() -> new StagedBlob(stagedFile, HexFormat.of().formatHex(digest.digest()), size.get(),
+                        head.requireAllowed())));
+    }
+
+    // Writes one chunk at the given offset. written is updated buffer by buffer, so a caller whose client
+    // went away still knows how much reached the disk.
+    public Mono<Void> append(Path stagedFile, long offset, long remaining, Flux<DataBuffer> content, AtomicLong written) {
+        AtomicLong received = new AtomicLong();
+        Flux<DataBuffer> bounded = content.doOnNext(buffer -> {
+            if (received.addAndGet(buffer.readableByteCount()) > remaining) {
+                DataBufferUtils.release(buffer);
+                throw new IllegalArgumentException("Chunk exceeds declared file size");
+            }
+        });
+        return Mono.using(
+                () -> AsynchronousFileChannel.open(stagedFile, StandardOpenOption.WRITE),
+                channel -> DataBufferUtils.write(bounded, channel, offset)
+                        .doOnNext(buffer -> {
+                            written.addAndGet(buffer.readableByteCount());
+                            DataBufferUtils.release(buffer);
+                        })
+                        .then(blocking(() -> {
+                            channel.force(false);
+                            return true;
+                        }))
+                        .then(),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.warn("Failed to close {}: {}", stagedFile, e.getMessage());
+                    }
+                });
+    }
+
+    // Puts staged content in place unless identical content is stored already, in either encoding. Until
+    // the caller references it the blob may be reaped, see requirePresent. Staged files the caller does not
+    // own (chunked sessions) are linked rather than moved, so a failed completion can be retried.
+    public Mono<StoredBlob> place(StagedBlob staged, boolean ownsSource) {
+        return blocking(() -> {
+            Path plain = resolve(staged.hash());
+            Path encoded = plain.resolveSibling(plain.getFileName() + GZIP_SUFFIX);
+            Path existing = Files.exists(plain) ? plain : Files.exists(encoded) ? encoded : null;
+            if (existing != null) {
+                logger.info("Duplicate content, reusing blob {}", staged.hash());
+                if (ownsSource) {
+                    Files.deleteIfExists(staged.path());
+                }
+                return new StoredBlob(staged.hash(), staged.size(), existing, existing == plain ? null : GZIP, Files.size(existing));
+            }
+            Files.createDirectories(plain.getParent());
+            if (ownsSource) {
+                Files.move(staged.path(), plain, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                try {
+                    Files.createLink(plain, staged.path());
+                } catch (FileAlreadyExistsException e) {
+                    // Placed by a concurrent upload of the same content
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(staged.path(), plain, StandardCopyOption.REPLACE_EXISTING);
+                    force(plain);
+                }
+            }
+            syncDirectory(plain.getParent());
+            return new StoredBlob(staged.hash(), staged.size(), plain, null, staged.size());
+        });
+    }
+
+    // Called after the reference was added in the recording transaction. The row lock keeps the blocking
+    // application's reaper out from there to commit, but it may have removed the blob since it was placed.
+    public Mono<Void> requirePresent(StoredBlob blob) {
+        return blocking(() -> Files.exists(blob.path()))
+                .flatMap(present -> present ? Mono.<Void>empty() : Mono.error(new IllegalStateException(
+                        "Blob " + blob.hash() + " was reclaimed concurrently, retry the upload")));
+    }
+
+    public Mono<Void> discard(Path path) {
+        return blocking(() -> Files.deleteIfExists(path)).then();
+    }
+
+    public Path resolve(String hash) {
+        return Paths.get(System.getProperty("user.dir"), blobDir, hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+
+    public Path stagingRoot() {
+        return Paths.get(System.getProperty("user.dir"), stagingDir);
+    }
+
+    // The blocking application's reconciler reclaims "blob-" staging files an interrupted upload left behind
+    private Path createStagingFile() throws IOException {
+        Files.createDirectories(stagingRoot());
+        return Files.createTempFile(stagingRoot(), "blob-", ".tmp");
+    }
+
+    private static void update(MessageDigest digest, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                digest.update(iterator.next());
+            }
+        }
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory sync not supported for {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,163 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import com.AdityaCode.StudyVault.reactive.Entity.FileEntity;
+import com.AdityaCode.StudyVault.reactive.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.reactive.Repository.FileRepo;
+import com.AdityaCode.StudyVault.reactive.Repository.FolderRepo;
+import com.AdityaCode.StudyVault.reactive.Repository.ShareLinkRepo;
+import com.AdityaCode.StudyVault.reactive.Repository.StorageRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+// The file side of the API on R2DBC. Uploads are recorded in the blocking application's order of effects:
+// the content is put in place first, then the blob reference, the file row and the usage counters are
+// written in one transaction. Should it roll back, the placed content has no reference and the blocking
+// application's reconciler removes it after its grace period.
+@Service
+public class ReactiveFileService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFileService.class);
+    private static final String GLOBAL_USAGE = "global";
+    public static final long MAX_UPLOAD_SIZE = 10 * 1024 * 1024;
+
+    @Value("${storage.quota.total}")
+    private DataSize totalQuota;
+
+    private final FileRepo fileRepo;
+    private final FolderRepo folderRepo;
+    private final ShareLinkRepo shareLinkRepo;
+    private final StorageRepo storageRepo;
+    private final ReactiveBlobStore blobStore;
+    private final FileIdAllocator fileIdAllocator;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveFileService(FileRepo fileRepo, FolderRepo folderRepo, ShareLinkRepo shareLinkRepo, StorageRepo storageRepo,
+                               ReactiveBlobStore blobStore, FileIdAllocator fileIdAllocator, R2dbcEntityTemplate entityTemplate,
+                               TransactionalOperator transactionalOperator) {
+        this.fileRepo = fileRepo;
+        this.folderRepo = folderRepo;
+        this.shareLinkRepo = shareLinkRepo;
+        this.storageRepo = storageRepo;
+        this.blobStore = blobStore;
+        this.fileIdAllocator = fileIdAllocator;
+        this.entityTemplate = entityTemplate;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Flux<FileEntity> getFilesByParentFolderId(Long parentFolderId) {
+        return parentFolderId == null ? fileRepo.findByParentFolderIdIsNull() : fileRepo.findByParentFolderId(parentFolderId);
+    }
+
+    public Flux<FolderEntity> getFoldersByParentFolderId(Long parentFolderId) {
+        return parentFolderId == null ? folderRepo.findByParentFolderIdIsNull() : folderRepo.findByParentFolderId(parentFolderId);
+    }
+
+    public Mono<FileEntity> getFileById(Long id) {
+        return fileRepo.findById(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("File not found with id: " + id)));
+    }
+
+    public Mono<ResolvedShare> resolveShare(String token) {
+        return shareLinkRepo.findByToken(token)
+                .flatMap(link -> fileRepo.findById(link.getFileId()).map(file -> new ResolvedShare(link, file)));
+    }
+
+    // Only the name, the type is sniffed from the content as it is staged
+    public String validateUpload(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new IllegalArgumentException("File name is invalid");
+        }
+        String fileName = Paths.get(originalFilename).getFileName().toString();
+        if (fileName.isEmpty()) {
+            throw new IllegalArgumentException("File name is invalid");
+        }
+        return fileName;
+    }
+
+    public Mono<ReactiveBlobStore.StagedBlob> stage(Flux<DataBuffer> content) {
+        return blobStore.stage(content, MAX_UPLOAD_SIZE);
+    }
+
+    public Mono<Void> discardStaged(ReactiveBlobStore.StagedBlob staged) {
+        return blobStore.discard(staged.path());
+    }
+
+    // ownsSource is false for chunked session files, which stay put until the session is deleted
+    public Mono<String> storeStaged(ReactiveBlobStore.StagedBlob staged, String fileName, Long parentFolderId,
+                                    boolean ownsSource) {
+        Mono<String> stored = ancestorIds(parentFolderId)
+                .flatMap(ancestors -> checkQuota(ancestors, staged.size())
+                        .then(blobStore.place(staged, ownsSource))
+                        .flatMap(blob -> recordFile(fileName, staged.contentType(), parentFolderId, ancestors, blob)))
+                .map(file -> {
+                    logger.info("File uploaded: {}", fileName);
+                    return "File uploaded successfully: " + fileName;
+                });
+        return ownsSource ? stored.onErrorResume(e -> blobStore.discard(staged.path()).then(Mono.error(e))) : stored;
+    }
+
+    // Ids of the parent and every folder above it, empty for root-level uploads
+    public Mono<List<Long>> ancestorIds(Long parentFolderId) {
+        if (parentFolderId == null) {
+            return Mono.just(List.of());
+        }
+        return folderRepo.findById(parentFolderId)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Parent folder not found")))
+                .map(folder -> Arrays.stream(folder.getAncestryPath().split("/"))
+                        .filter(id -> !id.isEmpty())
+                        .map(Long::valueOf)
+                        .toList());
+    }
+
+    public Mono<Void> checkQuota(List<Long> ancestors, long incomingBytes) {
+        Mono<Void> total = totalQuota.toBytes() <= 0 ? Mono.empty() : storageRepo.getUsedBytes(GLOBAL_USAGE)
+                .defaultIfEmpty(0L)
+                .flatMap(used -> used + incomingBytes > totalQuota.toBytes()
+                        ? Mono.error(new QuotaExceededException("Storage quota of " + totalQuota.toMegabytes() + "MB exceeded"))
+                        : Mono.empty());
+        Mono<Void> folders = folderRepo.findAllById(ancestors)
+                .filter(folder -> folder.getQuotaBytes() != null && folder.getSubtreeBytes() + incomingBytes > folder.getQuotaBytes())
+                .next()
+                .flatMap(folder -> Mono.error(new QuotaExceededException("Quota of folder " + folder.getFolderName() + " exceeded ("
+                        + folder.getSubtreeBytes() + " of " + folder.getQuotaBytes() + " bytes used)")));
+        return total.then(folders);
+    }
+
+    private Mono<FileEntity> recordFile(String fileName, String contentType, Long parentFolderId, List<Long> ancestors,
+                                        ReactiveBlobStore.StoredBlob blob) {
+        return fileIdAllocator.nextId().flatMap(id -> {
+            FileEntity fileEntity = new FileEntity();
+            fileEntity.setId(id);
+            fileEntity.setFileName(fileName);
+            fileEntity.setFilePath(blob.path().toString());
+            fileEntity.setContentHash(blob.hash());
+            fileEntity.setContentEncoding(blob.contentEncoding());
+            fileEntity.setStoredSize(blob.storedSize());
+            fileEntity.setFileType(contentType);
+            fileEntity.setSize(blob.size());
+            fileEntity.setParentFolderId(parentFolderId);
+            fileEntity.setCreatedAt(LocalDateTime.now());
+            Mono<Integer> folderUsage = ancestors.isEmpty() ? Mono.just(0) : folderRepo.addUsage(ancestors, blob.size(), 1);
+            return storageRepo.addReference(blob.hash(), blob.size())
+                    .then(blobStore.requirePresent(blob))
+                    .then(entityTemplate.insert(fileEntity))
+                    .flatMap(saved -> folderUsage
+                            .then(storageRepo.addUsage(GLOBAL_USAGE, blob.size(), 1))
+                            .thenReturn(saved))
+                    .as(transactionalOperator::transactional);
+        });
+    }
+}
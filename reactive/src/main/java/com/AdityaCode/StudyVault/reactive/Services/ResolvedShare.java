@@ -0,0 +1,8 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import com.AdityaCode.StudyVault.reactive.Entity.FileEntity;
+import com.AdityaCode.StudyVault.reactive.Entity.ShareLinkEntity;
+
+// A share token that has been looked up together with the file it points at
+public record ResolvedShare(ShareLinkEntity link, FileEntity file) {
+}
@@ -0,0 +1,107 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The blocking application's content sniffing, the two modules share no code so the table is kept in step
+// by hand. The type comes from the leading bytes instead of the client's header: PDF, JPEG, PNG or text.
+public final class UploadInspector {
+
+    public static final int SNIFF_LENGTH = 4096;
+    private static final int PDF_HEADER_WINDOW = 1024; // readers accept the header anywhere in the first 1KB
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private UploadInspector() {
+    }
+
+    // For content that is already on disk, e.g. the head of a chunked upload. Blocking.
+    public static String inspect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(SNIFF_LENGTH);
+            return requireAllowed(head, head.length);
+        }
+    }
+
+    public static String requireAllowed(byte[] head, int length) {
+        String contentType = detect(head, length);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Unsupported file type, content is not a PDF, JPEG, PNG or text file");
+        }
+        return contentType;
+    }
+
+    // null when the bytes match none of the allowed types
+    public static String detect(byte[] head, int length) {
+        if (startsWith(head, length, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, PNG)) {
+            return "image/png";
+        }
+        if (indexOf(head, Math.min(length, PDF_HEADER_WINDOW), PDF) >= 0) {
+            return "application/pdf";
+        }
+        if (length > 0 && isText(head, length)) {
+            return "text/plain";
+        }
+        return null;
+    }
+
+    // UTF-16 needs its byte order mark. Anything else counts as text without NULs or C0 controls other
+    // than tab, line breaks, form feed and escape, which keeps legacy 8-bit encodings acceptable.
+    private static boolean isText(byte[] head, int length) {
+        if (length >= 2 && ((head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) || (head[0] == (byte) 0xFF && head[1] == (byte) 0xFE))) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        return length >= magic.length && indexOf(head, magic.length, magic) == 0;
+    }
+
+    private static int indexOf(byte[] head, int length, byte[] magic) {
+        outer:
+        for (int i = 0; i + magic.length <= length; i++) {
+            for (int j = 0; j < magic.length; j++) {
+                if (head[i + j] != magic[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // Collects the head of a body as its buffers stream past, without consuming them
+    public static final class Head {
+        private final byte[] bytes = new byte[SNIFF_LENGTH];
+        private int length;
+
+        // true once the head is complete, the buffer that completes it included
+        public boolean add(DataBuffer buffer) {
+            int take = Math.min(bytes.length - length, buffer.readableByteCount());
+            for (int i = 0; i < take; i++) {
+                bytes[length++] = buffer.getByte(buffer.readPosition() + i);
+            }
+            return take > 0 && length == bytes.length;
+        }
+
+        public String requireAllowed() {
+            return UploadInspector.requireAllowed(bytes, length);
+        }
+    }
+}
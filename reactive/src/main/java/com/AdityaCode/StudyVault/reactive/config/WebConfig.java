@@ -0,0 +1,21 @@
+package com.AdityaCode.StudyVault.reactive.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class WebConfig implements WebFluxConfigurer {
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOrigins("http://localhost:3000") // Your Next.js frontend URL
+                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedHeaders("Origin", "Content-Type", "Accept", "Authorization",
+                        "Range", "If-Range", "If-None-Match", "If-Modified-Since")
+                .exposedHeaders("Accept-Ranges", "Content-Range", "Content-Disposition", "ETag", "Retry-After")
+                .allowCredentials(true)
+                .maxAge(3600); // 1 hour
+    }
+}
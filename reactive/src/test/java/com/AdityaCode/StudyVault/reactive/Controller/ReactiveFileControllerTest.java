@@ -0,0 +1,314 @@
+package com.AdityaCode.StudyVault.reactive.Controller;
+
+import com.AdityaCode.StudyVault.reactive.Services.UploadInspector;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The API end to end against the blocking application's schema, applied by Flyway to an in-memory H2 database
+// in MySQL mode. The folders are course(1) > topic(2) > week(3), with other(4) beside them.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive-api?options=MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"file.blob-dir=target/reactive-api-test/blobs/",
+		"file.staging-dir=target/reactive-api-test/staging/",
+		"storage.quota.total=1MB"
+})
+class ReactiveFileControllerTest {
+
+	private static final Path TEST_DIR = Path.of("target/reactive-api-test");
+	private static final byte[] NOTES = "lecture notes, week 3\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+	@Autowired
+	private WebTestClient webTestClient;
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@BeforeAll
+	static void migrate() {
+		Flyway.configure()
+				.dataSource("jdbc:h2:mem:reactive-api;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "")
+				.locations("filesystem:../src/main/resources/db/migration")
+				.load()
+				.migrate();
+	}
+
+	@BeforeEach
+	void createFolders() {
+		folder(1L, null, "/1/", "course");
+		folder(2L, 1L, "/1/2/", "topic");
+		folder(3L, 2L, "/1/2/3/", "week");
+		folder(4L, null, "/4/", "other");
+	}
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		for (String table : List.of("files", "blobs", "storage_usage", "upload_sessions", "folders")) {
+			execute("delete from " + table);
+		}
+		FileSystemUtils.deleteRecursively(TEST_DIR);
+	}
+
+	@Test
+	void anUploadIsListedAndServedInRanges() {
+		upload("notes.txt", MediaType.TEXT_PLAIN, NOTES, 3L)
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("File uploaded successfully: notes.txt");
+
+		webTestClient.get().uri("/api/files/list?parentFolderId=3").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.files.length()").isEqualTo(1)
+				.jsonPath("$.files[0].fileName").isEqualTo("notes.txt")
+				.jsonPath("$.files[0].fileType").isEqualTo("text/plain")
+				.jsonPath("$.files[0].size").isEqualTo(NOTES.length)
+				.jsonPath("$.files[0].contentHash").isEqualTo(sha256(NOTES))
+				.jsonPath("$.folders.length()").isEqualTo(0);
+		webTestClient.get().uri("/api/files/list?parentFolderId=2").exchange()
+				.expectBody()
+				.jsonPath("$.files.length()").isEqualTo(0)
+				.jsonPath("$.folders[0].folderName").isEqualTo("week");
+
+		Long id = fileId("notes.txt");
+		webTestClient.get().uri("/api/files/download/{id}", id)
+				.header(HttpHeaders.RANGE, "bytes=100-199")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 100-199/" + NOTES.length)
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + sha256(NOTES) + "\"")
+				.expectBody(byte[].class).isEqualTo(Arrays.copyOfRange(NOTES, 100, 200));
+		webTestClient.get().uri("/api/files/download/{id}", id)
+				.header(HttpHeaders.RANGE, "bytes=" + NOTES.length + "-")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+		webTestClient.get().uri("/api/files/download/{id}", id).exchange()
+				.expectStatus().isOk()
+				.expectBody(byte[].class).isEqualTo(NOTES);
+	}
+
+	@Test
+	void referencesAndUsageMatchWhatTheBlockingApplicationComputes() throws IOException {
+		byte[] slides = "%PDF-1.7\nslides\n".repeat(50).getBytes(StandardCharsets.US_ASCII);
+		upload("notes.txt", MediaType.TEXT_PLAIN, NOTES, 3L).expectStatus().isOk();
+		upload("copy.txt", MediaType.TEXT_PLAIN, NOTES, 2L).expectStatus().isOk();
+		upload("slides.pdf", MediaType.APPLICATION_PDF, slides, 4L).expectStatus().isOk();
+		upload("root.txt", MediaType.TEXT_PLAIN, NOTES, null).expectStatus().isOk();
+
+		// One blob per content, referenced once per file, as ContentAddressedBlobStore counts them
+		assertEquals(Map.of(sha256(NOTES), 3L, sha256(slides), 1L), refCounts());
+		assertEquals(Map.of(sha256(NOTES), 3L, sha256(slides), 1L), query(
+				"select content_hash as hash, count(*) as files from files group by content_hash", "hash", "files"));
+		try (Stream<Path> blobs = Files.list(blobsOf(sha256(NOTES)))) {
+			assertEquals(1, blobs.count());
+		}
+
+		assertUsage(1L, 2L * NOTES.length, 2);
+		assertUsage(2L, 2L * NOTES.length, 2);
+		assertUsage(3L, NOTES.length, 1);
+		assertUsage(4L, slides.length, 1);
+		Map<String, Object> global = databaseClient.sql("select bytes, file_count from storage_usage where scope = 'global'")
+				.fetch().one().block();
+		assertEquals(3L * NOTES.length + slides.length, global.get("bytes"));
+		assertEquals(4L, global.get("file_count"));
+		assertUsageRecomputes();
+	}
+
+	@Test
+	void theStoredTypeComesFromTheContent() {
+		// Text declared as a PDF is stored as text
+		upload("notes.pdf", MediaType.APPLICATION_PDF, NOTES, 3L).expectStatus().isOk();
+		assertEquals("text/plain", databaseClient.sql("select file_type from files where file_name = 'notes.pdf'")
+				.map(row -> row.get("file_type", String.class)).one().block());
+
+		// Binary content declared as text is refused before anything is recorded
+		byte[] executable = new byte[8192];
+		System.arraycopy(new byte[]{0x7F, 'E', 'L', 'F'}, 0, executable, 0, 4);
+		upload("notes.txt", MediaType.TEXT_PLAIN, executable, 3L)
+				.expectStatus().isBadRequest()
+				.expectBody(String.class).value(body -> assertTrue(body.contains("Unsupported file type"), body));
+		assertEquals(1L, count("files"));
+		assertEquals(1L, count("blobs"));
+		assertUsage(3L, NOTES.length, 1);
+		assertNoStagingLeftovers();
+	}
+
+	@Test
+	void aChunkedUploadIsStoredUnderTheSniffedType() {
+		String sessionId = startSession("scan.png", "image/png", NOTES.length, 4L);
+		webTestClient.put().uri("/api/files/uploads/{id}?offset=0", sessionId)
+				.bodyValue(Arrays.copyOfRange(NOTES, 0, 1000))
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("Upload-Offset", "1000");
+		webTestClient.put().uri("/api/files/uploads/{id}?offset=1000", sessionId)
+				.bodyValue(Arrays.copyOfRange(NOTES, 1000, NOTES.length))
+				.exchange()
+				.expectStatus().isOk();
+		assertEquals("text/plain", databaseClient.sql("select file_type from upload_sessions where id = :id")
+				.bind("id", sessionId).map(row -> row.get("file_type", String.class)).one().block());
+
+		webTestClient.post().uri("/api/files/uploads/{id}/complete", sessionId).exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("File uploaded successfully: scan.png");
+		assertEquals("text/plain", databaseClient.sql("select file_type from files where file_name = 'scan.png'")
+				.map(row -> row.get("file_type", String.class)).one().block());
+		assertEquals(Map.of(sha256(NOTES), 1L), refCounts());
+		assertUsage(4L, NOTES.length, 1);
+		assertEquals(0L, count("upload_sessions"));
+	}
+
+	@Test
+	void aChunkedUploadWithAnUnsupportedHeadEndsTheSession() {
+		byte[] binary = new byte[UploadInspector.SNIFF_LENGTH];
+		binary[0] = 0x7F;
+		String sessionId = startSession("notes.txt", "text/plain", binary.length * 2L, null);
+		webTestClient.put().uri("/api/files/uploads/{id}?offset=0", sessionId)
+				.bodyValue(binary)
+				.exchange()
+				.expectStatus().isBadRequest();
+		webTestClient.get().uri("/api/files/uploads/{id}", sessionId).exchange()
+				.expectStatus().isNotFound();
+		assertNoStagingLeftovers();
+	}
+
+	private WebTestClient.ResponseSpec upload(String fileName, MediaType declaredType, byte[] content, Long parentFolderId) {
+		MultipartBodyBuilder body = new MultipartBodyBuilder();
+		body.part("file", content).filename(fileName).contentType(declaredType);
+		if (parentFolderId != null) {
+			body.part("parentFolderId", parentFolderId.toString());
+		}
+		return webTestClient.post().uri("/api/files/upload")
+				.body(BodyInserters.fromMultipartData(body.build()))
+				.exchange();
+	}
+
+	private String startSession(String fileName, String fileType, long totalSize, Long parentFolderId) {
+		Map<String, Object> request = new HashMap<>();
+		request.put("fileName", fileName);
+		request.put("fileType", fileType);
+		request.put("totalSize", totalSize);
+		request.put("parentFolderId", parentFolderId);
+		Map<?, ?> session = webTestClient.post().uri("/api/files/uploads")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(request)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Map.class).returnResult().getResponseBody();
+		return (String) session.get("id");
+	}
+
+	// What StorageQuotaService.initializeUsage would write for the files as they are: bytes and counts per
+	// parent folder, added to every folder above it
+	private void assertUsageRecomputes() {
+		Map<Long, Long> parents = query("select id, parent_folder_id from folders", "id", "parent_folder_id");
+		Map<Long, long[]> expected = new HashMap<>();
+		parents.keySet().forEach(id -> expected.put(id, new long[2]));
+		databaseClient.sql("select parent_folder_id, count(*) as files, sum(size) as bytes from files group by parent_folder_id")
+				.fetch().all()
+				.doOnNext(row -> {
+					Long folder = (Long) row.get("parent_folder_id");
+					while (folder != null) {
+						expected.get(folder)[0] += ((Number) row.get("bytes")).longValue();
+						expected.get(folder)[1] += ((Number) row.get("files")).longValue();
+						folder = parents.get(folder);
+					}
+				})
+				.blockLast();
+		expected.forEach((id, usage) -> assertUsage(id, usage[0], usage[1]));
+	}
+
+	private void assertUsage(Long folderId, long bytes, long files) {
+		Map<String, Object> row = databaseClient.sql("select subtree_bytes, subtree_file_count from folders where id = :id")
+				.bind("id", folderId).fetch().one().block();
+		assertEquals(bytes, row.get("subtree_bytes"), "bytes of folder " + folderId);
+		assertEquals(files, row.get("subtree_file_count"), "files of folder " + folderId);
+	}
+
+	private Map<String, Long> refCounts() {
+		return query("select hash, ref_count from blobs", "hash", "ref_count");
+	}
+
+	@SuppressWarnings("unchecked")
+	private <K, V> Map<K, V> query(String sql, String key, String value) {
+		Map<K, V> result = new HashMap<>();
+		databaseClient.sql(sql).fetch().all()
+				.doOnNext(row -> result.put((K) row.get(key), (V) row.get(value)))
+				.blockLast();
+		return result;
+	}
+
+	private long count(String table) {
+		return databaseClient.sql("select count(*) as found from " + table)
+				.map(row -> row.get("found", Long.class)).one().block();
+	}
+
+	private Long fileId(String fileName) {
+		return databaseClient.sql("select id from files where file_name = :name")
+				.bind("name", fileName).map(row -> row.get("id", Long.class)).one().block();
+	}
+
+	private void folder(Long id, Long parentId, String ancestryPath, String name) {
+		DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into folders (id, folder_name, parent_folder_id, " +
+						"ancestry_path, created_at, subtree_bytes, subtree_file_count) values (:id, :name, :parent, :path, now(), 0, 0)")
+				.bind("id", id)
+				.bind("name", name)
+				.bind("path", ancestryPath);
+		insert = parentId != null ? insert.bind("parent", parentId) : insert.bindNull("parent", Long.class);
+		insert.then().block();
+	}
+
+	private void execute(String sql) {
+		databaseClient.sql(sql).then().block();
+	}
+
+	private Path blobsOf(String hash) {
+		return TEST_DIR.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+	}
+
+	private void assertNoStagingLeftovers() {
+		Path staging = TEST_DIR.resolve("staging");
+		if (Files.exists(staging)) {
+			try (Stream<Path> files = Files.list(staging)) {
+				assertEquals(List.of(), files.toList());
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.AdityaCode.StudyVault.reactive.Services;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ids handed out here and by the blocking application's pooled generator on the same files_seq table. Each
+// fetched value V reserves (V - 50, V] for whoever fetched it, so the two sides must never overlap.
+class FileIdAllocatorTest {
+
+	private static final String JDBC_URL = "jdbc:h2:mem:file-ids;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	private static final int ALLOCATION_SIZE = 50;
+
+	private static ConnectionFactory connectionFactory;
+	private FileIdAllocator allocator;
+
+	@BeforeAll
+	static void migrate() {
+		Flyway.configure().dataSource(JDBC_URL, "sa", "").locations("filesystem:../src/main/resources/db/migration").load().migrate();
+		connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions
+				.parse("r2dbc:h2:mem:///file-ids?options=MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+				.mutate()
+				.option(ConnectionFactoryOptions.USER, "sa")
+				.option(ConnectionFactoryOptions.PASSWORD, "")
+				.build());
+	}
+
+	// A fresh allocator holds no block yet, like one after a restart
+	@BeforeEach
+	void createAllocator() {
+		allocator = new FileIdAllocator(DatabaseClient.create(connectionFactory),
+				TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory)));
+	}
+
+	@Test
+	void blocksAlternateWithThePooledGenerator() throws SQLException {
+		long first = allocator.nextId().block();
+		List<Long> blocking = hibernateBlock();
+		assertEquals(first + ALLOCATION_SIZE, blocking.get(0), "the next block goes to the blocking side");
+
+		List<Long> reactive = new ArrayList<>(List.of(first));
+		for (int i = 1; i <= ALLOCATION_SIZE; i++) {
+			reactive.add(allocator.nextId().block());
+		}
+		// The rest of the first block, then past the block the blocking side took
+		assertEquals(first + ALLOCATION_SIZE - 1, reactive.get(ALLOCATION_SIZE - 1));
+		assertEquals(blocking.get(ALLOCATION_SIZE - 1) + 1, reactive.get(ALLOCATION_SIZE));
+		assertDisjoint(reactive, blocking);
+	}
+
+	@Test
+	void concurrentCallersOnBothSidesNeverShareAnId() throws Exception {
+		CompletableFuture<List<Long>> blocking = CompletableFuture.supplyAsync(() -> {
+			List<Long> ids = new ArrayList<>();
+			try {
+				for (int i = 0; i < 10; i++) {
+					ids.addAll(hibernateBlock());
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return ids;
+		});
+		List<Long> reactive = Flux.range(0, 1000)
+				.flatMap(i -> allocator.nextId(), 16)
+				.collectList()
+				.block();
+
+		assertEquals(1000, new HashSet<>(reactive).size(), "an id was handed out twice");
+		assertDisjoint(reactive, blocking.get());
+	}
+
+	// What Hibernate's table structure does for the pooled optimizer on MySQL
+	private static List<Long> hibernateBlock() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "")) {
+			connection.setAutoCommit(false);
+			long value;
+			try (PreparedStatement select = connection.prepareStatement("select next_val from files_seq for update");
+				 ResultSet result = select.executeQuery()) {
+				assertTrue(result.next());
+				value = result.getLong(1);
+			}
+			try (PreparedStatement update = connection.prepareStatement("update files_seq set next_val = ? where next_val = ?")) {
+				update.setLong(1, value + ALLOCATION_SIZE);
+				update.setLong(2, value);
+				assertEquals(1, update.executeUpdate());
+			}
+			connection.commit();
+			List<Long> ids = new ArrayList<>();
+			for (long id = value - ALLOCATION_SIZE + 1; id <= value; id++) {
+				ids.add(id);
+			}
+			return ids;
+		}
+	}
+
+	private static void assertDisjoint(List<Long> reactive, List<Long> blocking) {
+		Set<Long> shared = new HashSet<>(reactive);
+		shared.retainAll(blocking);
+		assertEquals(Set.of(), shared);
+	}
+}
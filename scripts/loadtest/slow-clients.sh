@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Holds CLIENTS slow chunk uploads open against a running server and measures how long a cheap
+# /list request takes meanwhile. Run it once per thread mode and compare the probe latencies:
+#
+#   ADMISSION_ENABLED=false VIRTUAL_THREADS=false ./mvnw spring-boot:run   then   scripts/loadtest/slow-clients.sh
+#   ADMISSION_ENABLED=false VIRTUAL_THREADS=true  ./mvnw spring-boot:run   then   scripts/loadtest/slow-clients.sh
+#
+# Admission control is off for these runs, every client shares one address and would be throttled.
+#
+# Usage: slow-clients.sh [base-url] [clients] [chunk-bytes] [client-rate]
+set -euo pipefail
+
+BASE_URL=${1:-http://localhost:8080}
+CLIENTS=${2:-400}
+CHUNK_BYTES=${3:-262144}
+RATE=${4:-16k}
+PROBES=${PROBES:-10}
+
+WORK=$(mktemp -d)
+trap 'kill $(jobs -p) 2>/dev/null || true; rm -rf "$WORK"' EXIT
+head -c "$CHUNK_BYTES" /dev/urandom > "$WORK/chunk.bin"
+
+echo "Opening $CLIENTS upload sessions of $CHUNK_BYTES bytes at $RATE/s each"
+for i in $(seq 1 "$CLIENTS"); do
+  curl -s -X POST "$BASE_URL/api/files/uploads" -H 'Content-Type: application/json' \
+    -d "{\"fileName\":\"load-$i.pdf\",\"fileType\":\"application/pdf\",\"totalSize\":$CHUNK_BYTES}" \
+    | sed -E 's/.*"id":"([^"]+)".*/\1/' > "$WORK/session-$i"
+done
+
+start=$(date +%s.%N)
+for i in $(seq 1 "$CLIENTS"); do
+  curl -s -o /dev/null --limit-rate "$RATE" -X PUT -H 'Content-Type: application/octet-stream' \
+    --data-binary @"$WORK/chunk.bin" "$BASE_URL/api/files/uploads/$(cat "$WORK/session-$i")?offset=0" &
+done
+sleep 2
+
+echo "Probing $BASE_URL/api/files/list while the uploads are in flight"
+for p in $(seq 1 "$PROBES"); do
+  curl -s -o /dev/null -w "%{time_total}\n" --max-time 120 "$BASE_URL/api/files/list" | tee -a "$WORK/probes"
+  sleep 0.5
+done
+sort -n "$WORK/probes" | awk '{ v[NR] = $1 } END { printf "probe latency  min %.3fs  median %.3fs  max %.3fs\n", v[1], v[int((NR + 1) / 2)], v[NR] }'
+
+wait
+end=$(date +%s.%N)
+awk -v s="$start" -v e="$end" -v n="$CLIENTS" -v b="$CHUNK_BYTES" \
+  'BEGIN { printf "all uploads done in %.1fs, aggregate %.1f MB/s\n", e - s, n * b / (e - s) / 1048576 }'
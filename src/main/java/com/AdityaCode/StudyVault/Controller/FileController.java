@@ -5,58 +5,157 @@ package com.AdityaCode.StudyVault.Controller;
 import com.AdityaCode.StudyVault.Entity.FileEntity;
 import com.AdityaCode.StudyVault.Entity.FolderEntity;
 import com.AdityaCode.StudyVault.Entity.ShareLinkEntity;
-import com.AdityaCode.StudyVault.Repository.ShareLinkRepo;
 import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import com.AdityaCode.StudyVault.Services.FolderArchiveService;
+import com.AdityaCode.StudyVault.Services.FolderListingService;
+import com.AdityaCode.StudyVault.Services.QuotaExceededException;
+import com.AdityaCode.StudyVault.Services.ResolvedShare;
+import com.AdityaCode.StudyVault.Services.SearchIndexService;
+import com.AdityaCode.StudyVault.Services.ShareLinkService;
+import com.AdityaCode.StudyVault.Services.StorageMetrics;
+import com.AdityaCode.StudyVault.Services.StorageQuotaService;
+import com.AdityaCode.StudyVault.Services.ThumbnailService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
 @CrossOrigin(origins = "http://localhost:3000")
 public class FileController {
 
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_FIELD_LENGTH = 64;
+    private static final long MAX_UPLOAD_REQUEST_SIZE = 11 * 1024 * 1024; // One 10MB file plus the other fields
+
     @Autowired
-    private ShareLinkRepo shareLinkRepository;
+    private ShareLinkService shareLinkService;
 
     private final FileServiceStorage fileServiceStorage;
+    private final FolderListingService folderListingService;
+    private final FileDownloadHandler fileDownloadHandler;
+    private final SearchIndexService searchIndexService;
+    private final ThumbnailService thumbnailService;
+    private final FolderArchiveService folderArchiveService;
+    private final StorageQuotaService storageQuotaService;
+    private final StorageMetrics storageMetrics;
 
-    public FileController(FileServiceStorage fileServiceStorage) {
+    public FileController(FileServiceStorage fileServiceStorage, FolderListingService folderListingService,
+                          FileDownloadHandler fileDownloadHandler, SearchIndexService searchIndexService,
+                          ThumbnailService thumbnailService, FolderArchiveService folderArchiveService,
+                          StorageQuotaService storageQuotaService, StorageMetrics storageMetrics) {
         this.fileServiceStorage = fileServiceStorage;
+        this.folderListingService = folderListingService;
+        this.fileDownloadHandler = fileDownloadHandler;
+        this.searchIndexService = searchIndexService;
+        this.thumbnailService = thumbnailService;
+        this.folderArchiveService = folderArchiveService;
+        this.storageQuotaService = storageQuotaService;
+        this.storageMetrics = storageMetrics;
     }
 
+    // Streams the multipart body part by part, so the file goes through type detection and into the blob store
+    // as it arrives instead of after the container buffered it. Multipart resolution is lazy and nothing here
+    // asks for parameters, which would make the container parse the whole body first. parentFolderId may be
+    // a query parameter or a form field before or after the file.
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file,
-                                             @RequestParam(value = "parentFolderId", required = false) Long parentFolderId) {
+    public ResponseEntity<String> uploadFile(HttpServletRequest request) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            return ResponseEntity.badRequest().body("File upload failed: multipart/form-data expected");
+        }
         try {
-            String response = fileServiceStorage.saveFile(file, parentFolderId);
-            return ResponseEntity.ok(response);
+            Long parentFolderId = parseFolderId(UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                    .getQueryParams().getFirst("parentFolderId"));
+            FileServiceStorage.StreamedUpload upload = null;
+            JakartaServletFileUpload<?, ?> parser = new JakartaServletFileUpload<>();
+            parser.setSizeMax(MAX_UPLOAD_REQUEST_SIZE);
+            FileItemInputIterator items = parser.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (item.isFormField() && "parentFolderId".equals(item.getFieldName())) {
+                    try (InputStream in = item.getInputStream()) {
+                        parentFolderId = parseFolderId(new String(in.readNBytes(MAX_FIELD_LENGTH), StandardCharsets.UTF_8));
+                    }
+                } else if (!item.isFormField() && "file".equals(item.getFieldName()) && upload == null) {
+                    upload = fileServiceStorage.writeUpload(item.getName(), item.getInputStream(), -1, parentFolderId);
+                }
+            }
+            if (upload == null) {
+                return ResponseEntity.badRequest().body("File upload failed: Required part 'file' is missing");
+            }
+            return ResponseEntity.ok(fileServiceStorage.recordUpload(upload, parentFolderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("File upload failed: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File upload failed: " + e.getMessage());
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File upload failed: " + e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("File upload failed: " + e.getMessage());
         }
     }
 
+    private static Long parseFolderId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parentFolderId: " + value);
+        }
+    }
+
+    @PostMapping("/upload/batch")
+    public ResponseEntity<?> uploadFiles(@RequestParam("files") List<MultipartFile> files,
+                                         @RequestParam(value = "parentFolderId", required = false) Long parentFolderId) {
+        if (files.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_SIZE + " files per batch"));
+        }
+        try {
+            return ResponseEntity.ok(fileServiceStorage.saveFiles(files, parentFolderId));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "Batch upload failed: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Batch upload failed: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Batch upload failed: " + e.getMessage()));
+        }
+    }
+
 @PostMapping("/folder")
 public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
     try {
         FolderEntity folder = fileServiceStorage.createFolder(request.getFolderName(), request.getParentFolderId());
         return ResponseEntity.ok("Folder created successfully: " + folder.getFolderName());
-    } catch (IOException | IllegalArgumentException e) {
+    } catch (IllegalArgumentException e) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body("Folder creation failed: " + e.getMessage());
     }
@@ -72,6 +171,66 @@ public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
         }
     }
 
+    @GetMapping("/folders/{folderId}/tree")
+    public ResponseEntity<Map<String, Object>> getFolderSubtree(@PathVariable Long folderId) {
+        try {
+            return ResponseEntity.ok(fileServiceStorage.getSubtree(folderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @GetMapping("/folders/{folderId}/size")
+    public ResponseEntity<Map<String, Object>> getFolderSize(@PathVariable Long folderId) {
+        try {
+            return ResponseEntity.ok(storageQuotaService.getFolderUsage(folderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // Synchronous, unlike moves a rename touches one row
+    @PutMapping("/folders/{folderId}/name")
+    public ResponseEntity<?> renameFolder(@PathVariable Long folderId, @RequestBody FolderRequest request) {
+        try {
+            FolderEntity folder = fileServiceStorage.renameFolder(folderId, request.getFolderName());
+            return ResponseEntity.ok(Map.of("id", folder.getId(), "name", folder.getFolderName()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/folders/{folderId}/quota")
+    public ResponseEntity<?> setFolderQuota(@PathVariable Long folderId, @RequestBody QuotaRequest request) {
+        try {
+            storageQuotaService.setFolderQuota(folderId, request.getQuotaBytes());
+            return ResponseEntity.ok(storageQuotaService.getFolderUsage(folderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/usage")
+    public ResponseEntity<Map<String, Object>> getTotalUsage() {
+        return ResponseEntity.ok(storageQuotaService.getTotalUsage());
+    }
+
+    // The archive is written while the client reads it, so there is no Content-Length
+    @GetMapping("/folders/{folderId}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadFolderZip(@PathVariable Long folderId) {
+        FolderArchiveService.FolderArchive archive;
+        try {
+            archive = folderArchiveService.prepare(folderId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(archive.fileName(), StandardCharsets.UTF_8).build().toString())
+                .body(out -> folderArchiveService.write(archive, out));
+    }
+
     @DeleteMapping("/folders/{folderId}")
     public ResponseEntity<?> deleteFolder(@PathVariable Long folderId) {
         try {
@@ -86,17 +245,44 @@ public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
     }
 
     @GetMapping("/download/{id}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id) {
-        try {
-            FileEntity fileEntity = fileServiceStorage.getFileById(id);
-            Path path = Paths.get(fileEntity.getFilePath());
-            Resource resource = new UrlResource(path.toUri());
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileEntity.getFileName() + "\"")
-                    .body(resource);
-        } catch (Exception e) {
+    public void downloadFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileEntity fileEntity;
+        try {
+            fileEntity = fileServiceStorage.getFileById(id);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloadHandler.serve(fileEntity, request, response);
+    }
+
+    // Thumbnails are derived from immutable content, so clients may cache them for as long as they like
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long id, WebRequest webRequest) {
+        FileEntity fileEntity;
+        try {
+            fileEntity = fileServiceStorage.getFileById(id);
+        } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        String etag = "\"" + thumbnailService.cacheKey(fileEntity) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return thumbnailService.getThumbnail(fileEntity)
+                    .<ResponseEntity<?>>map(path -> ResponseEntity.ok()
+                            .contentType(MediaType.IMAGE_JPEG)
+                            .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                            .eTag(etag)
+                            .body(new FileSystemResource(path)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                            .header(HttpHeaders.RETRY_AFTER, "2")
+                            .cacheControl(CacheControl.noStore())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/list")
@@ -109,6 +295,52 @@ public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(fileServiceStorage.getCacheStats());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "folderId", required = false) Long folderId,
+                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(searchIndexService.search(query, folderId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Search failed: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/list/page")
+    public ResponseEntity<?> listPage(@RequestParam(value = "parentFolderId", required = false) Long parentFolderId,
+                                      @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                      @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(folderListingService.listPage(parentFolderId, sort, direction, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/delete/batch")
+    public ResponseEntity<?> deleteFiles(@RequestBody BatchDeleteRequest request) {
+        List<Long> ids = request.getIds();
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Between 1 and " + MAX_BATCH_SIZE + " ids are required"));
+        }
+        try {
+            return ResponseEntity.ok(fileServiceStorage.deleteFiles(ids));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Batch delete failed: " + e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<String> deleteFile(@PathVariable Long id) {
         try {
@@ -123,12 +355,7 @@ public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
     @PostMapping("/share")
     public ResponseEntity<ShareLinkEntity> createShareLink(@RequestBody ShareRequest request) {
         try {
-            ShareLinkEntity link = new ShareLinkEntity();
-            link.setFileId(request.getFileId());
-            link.setPassword(request.getPassword());
-            link.setShareLink("http://localhost:8080/files/" + UUID.randomUUID().toString());
-            link.setExpiryDate(LocalDateTime.now().plusDays(request.getExpiryDays()));
-            shareLinkRepository.save(link);
+            ShareLinkEntity link = shareLinkService.createShareLink(request.getFileId(), request.getPassword(), request.getExpiryDays());
             return ResponseEntity.ok(link);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -137,31 +364,31 @@ public ResponseEntity<String> createFolder(@RequestBody FolderRequest request) {
     }
 
     @GetMapping("/share/{linkId}")
-    public ResponseEntity<Resource> accessSharedFile(@PathVariable String linkId, @RequestParam String password) {
+    public void accessSharedFile(@PathVariable String linkId, @RequestParam String password,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileEntity fileEntity;
         try {
-            ShareLinkEntity link = shareLinkRepository.findByShareLinkContains(linkId)
+            ResolvedShare share = shareLinkService.resolve(linkId)
                     .orElseThrow(() -> new RuntimeException("Invalid link"));
-            if (!link.getPassword().equals(password)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            if (!share.link().getPassword().equals(password)) {
+                storageMetrics.recordShareAccess("unauthorized");
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
             }
-            if (link.getExpiryDate().isBefore(LocalDateTime.now())) {
-                return ResponseEntity.status(HttpStatus.GONE).build();
+            if (share.link().getExpiryDate().isBefore(LocalDateTime.now())) {
+                storageMetrics.recordShareAccess("expired");
+                response.sendError(HttpServletResponse.SC_GONE);
+                return;
             }
-            FileEntity fileEntity = fileServiceStorage.getFileById(Long.parseLong(link.getFileId()));
-            Path path = Paths.get(fileEntity.getFilePath());
-            Resource resource = new UrlResource(path.toUri());
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileEntity.getFileName() + "\"")
-                    .body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            fileEntity = share.file();
+        } catch (RuntimeException e) {
+            storageMetrics.recordShareAccess("not_found");
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        storageMetrics.recordShareAccess("ok");
+        fileDownloadHandler.serve(fileEntity, request, response);
     }
-
-
-
-
-
 }
 
 class FolderRequest {
@@ -175,14 +402,28 @@ class FolderRequest {
 }
 
 class ShareRequest {
-    private String fileId;
+    private Long fileId;
     private String password;
     private int expiryDays;
 
-    public String getFileId() { return fileId; }
-    public void setFileId(String fileId) { this.fileId = fileId; }
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
     public int getExpiryDays() { return expiryDays; }
     public void setExpiryDays(int expiryDays) { this.expiryDays = expiryDays; }
 }
+
+class BatchDeleteRequest {
+    private List<Long> ids;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
+
+class QuotaRequest {
+    private Long quotaBytes; // null removes the limit
+
+    public Long getQuotaBytes() { return quotaBytes; }
+    public void setQuotaBytes(Long quotaBytes) { this.quotaBytes = quotaBytes; }
+}
@@ -0,0 +1,411 @@
+package com.AdityaCode.StudyVault.Controller;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Services.ContentCache;
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import com.AdityaCode.StudyVault.Services.StorageBackend;
+import com.AdityaCode.StudyVault.Services.StorageMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+// Serves stored files with conditional (ETag / Last-Modified) and Range support. Plain bodies of local
+// blobs never pass through the heap: large regions go out via Tomcat sendfile, the rest via
+// FileChannel.transferTo. Blobs in a remote backend are streamed from ranged reads of just the requested
+// regions. Compressed blobs are streamed as stored or inflated on the fly, depending on Accept-Encoding.
+// With a bandwidth limit every body is paced through the heap instead, sendfile cannot be throttled.
+// Small hot files are answered from the off-heap content cache without touching the backend at all.
+@Component
+public class FileDownloadHandler {
+
+    // Request attributes understood by Tomcat's NIO connector for zero-copy responses
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String GZIP = "gzip";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${file.download.sendfile-threshold:48KB}")
+    private DataSize sendfileThreshold;
+
+    // Per response, 0 leaves downloads unshaped
+    @Value("${file.download.bandwidth-limit:0}")
+    private DataSize bandwidthLimit;
+
+    private final FileServiceStorage fileServiceStorage;
+    private final StorageMetrics storageMetrics;
+    private final ContentCache contentCache;
+
+    public FileDownloadHandler(FileServiceStorage fileServiceStorage, StorageMetrics storageMetrics, ContentCache contentCache) {
+        this.fileServiceStorage = fileServiceStorage;
+        this.storageMetrics = storageMetrics;
+        this.contentCache = contentCache;
+    }
+
+    public void serve(FileEntity fileEntity, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Timer.Sample sample = storageMetrics.start();
+        long bytesSent = 0;
+        try {
+            bytesSent = serveContent(fileEntity, request, response);
+        } finally {
+            String encoding = !GZIP.equals(fileEntity.getContentEncoding()) ? "identity" : acceptsGzip(request) ? GZIP : "inflated";
+            long size = fileEntity.getSize() != null ? fileEntity.getSize() : 0;
+            storageMetrics.recordDownload(sample, fileEntity.getFileType(), size, encoding, response.getStatus(), bytesSent);
+        }
+    }
+
+    // Returns the number of body bytes handed to the connector
+    private long serveContent(FileEntity fileEntity, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // HEAD requests neither count as accesses nor admit anything into the cache
+        ContentCache.CachedContent cached = isHead(request) ? null : contentCache.get(fileEntity).orElse(null);
+        Optional<StorageBackend.ObjectInfo> stored = cached != null ? Optional.of(cached.info()) : fileServiceStorage.statContent(fileEntity);
+        if (stored.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return 0;
+        }
+        Path localFile = cached != null ? null : fileServiceStorage.localContent(fileEntity).orElse(null);
+
+        // Compressed blobs go out untouched to clients that accept the coding, everyone else gets them inflated
+        boolean encoded = GZIP.equals(fileEntity.getContentEncoding());
+        boolean sendEncoded = encoded && acceptsGzip(request);
+        Body body = new Body(fileEntity, localFile, cached, encoded && !sendEncoded);
+        long length;
+        if (sendEncoded) {
+            length = fileEntity.getStoredSize() != null ? fileEntity.getStoredSize() : stored.get().size();
+        } else {
+            length = fileEntity.getSize() != null ? fileEntity.getSize() : stored.get().size();
+        }
+        // HTTP dates only carry second precision
+        long lastModified = stored.get().lastModified().toEpochMilli() / 1000 * 1000;
+        // Blob-backed files are content addressed, so the hash is a natural strong validator.
+        // The encoded representation is a different byte sequence and needs its own.
+        String validator = fileEntity.getContentHash() != null
+                ? fileEntity.getContentHash()
+                : fileEntity.getId() + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        String etag = "\"" + validator + (sendEncoded ? "-" + GZIP : "") + "\"";
+
+        if (encoded) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return 0; // 304 or 412 already set
+        }
+        if (sendEncoded) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+
+        String contentType = fileEntity.getFileType() != null ? fileEntity.getFileType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        // Quotes and non-ASCII names are escaped, the latter also sent as RFC 5987 filename*
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(fileEntity.getFileName(), StandardCharsets.UTF_8).build().toString());
+
+        List<HttpRange> ranges = requestedRanges(request, etag, lastModified);
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            return writeRegion(request, response, body, 0, length);
+        }
+
+        long[][] regions;
+        try {
+            regions = toRegions(ranges, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return 0;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (regions.length == 1) {
+            long start = regions[0][0];
+            long count = regions[0][1];
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, count, length));
+            response.setContentLengthLong(count);
+            return writeRegion(request, response, body, start, count);
+        }
+        return writeMultipart(request, response, body, regions, contentType, length);
+    }
+
+    // Range is only honoured when If-Range is absent or still matches the current representation
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                if (!ifRange.equals(etag)) {
+                    return List.of();
+                }
+            } else {
+                try {
+                    if (request.getDateHeader(HttpHeaders.IF_RANGE) != lastModified) {
+                        return List.of();
+                    }
+                } catch (IllegalArgumentException e) {
+                    return List.of(); // Unparseable dates never match
+                }
+            }
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of(); // Malformed Range headers are ignored
+        }
+    }
+
+    private long[][] toRegions(List<HttpRange> ranges, long length) {
+        long[][] regions = new long[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            HttpRange range = ranges.get(i);
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (length == 0 || start >= length || end < start) {
+                throw new IllegalArgumentException("Unsatisfiable range");
+            }
+            regions[i] = new long[]{start, end - start + 1};
+            total += regions[i][1];
+        }
+        // Same guard as Spring's ResourceRegion conversion against overlapping-range amplification
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Requested ranges exceed the file length");
+        }
+        return regions;
+    }
+
+    private long writeMultipart(HttpServletRequest request, HttpServletResponse response, Body body,
+                                long[][] regions, String contentType, long length) throws IOException {
+        String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (long[] region : regions) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(region[0], region[1], length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + region[1];
+        }
+        byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += trailer.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (isHead(request)) {
+            return 0;
+        }
+
+        OutputStream out = output(response);
+        if (body.decode() || body.localFile() == null) {
+            for (int i = 0; i < regions.length; i++) {
+                out.write(partHeaders.get(i));
+                copy(body, regions[i][0], regions[i][1], out);
+            }
+        } else {
+            WritableByteChannel target = Channels.newChannel(out);
+            try (FileChannel channel = FileChannel.open(body.localFile(), StandardOpenOption.READ)) {
+                for (int i = 0; i < regions.length; i++) {
+                    out.write(partHeaders.get(i));
+                    transfer(channel, regions[i][0], regions[i][1], target);
+                }
+            }
+        }
+        out.write(trailer);
+        out.flush();
+        return contentLength;
+    }
+
+    private long writeRegion(HttpServletRequest request, HttpServletResponse response, Body body,
+                             long start, long count) throws IOException {
+        if (isHead(request) || count == 0) {
+            return 0;
+        }
+        if (body.decode() || body.localFile() == null) {
+            copy(body, start, count, output(response));
+            return count;
+        }
+        Path path = body.localFile();
+        if (count >= sendfileThreshold.toBytes() && bandwidthLimit.toBytes() == 0
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the region from the page cache after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return count;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(output(response)));
+        }
+        return count;
+    }
+
+    private void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        while (count > 0) {
+            long transferred = channel.transferTo(position, count, target);
+            if (transferred <= 0) {
+                throw new IOException("File truncated while streaming");
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    // Every path except a plain local file, which goes through transfer instead
+    private void copy(Body body, long start, long count, OutputStream out) throws IOException {
+        if (body.decode()) {
+            copyDecoded(body, start, count, out);
+        } else if (body.cached() != null) {
+            Channels.newChannel(out).write(body.cached().region(start, count));
+        } else {
+            copyStored(body.fileEntity(), start, count, out);
+        }
+    }
+
+    // Decoded ranges have no file offset to seek to, the stream is inflated up to the start and discarded
+    private void copyDecoded(Body body, long start, long count, OutputStream out) throws IOException {
+        try (InputStream in = body.cached() != null
+                ? new GZIPInputStream(body.cached().open(), COPY_BUFFER_SIZE)
+                : fileServiceStorage.openContent(body.fileEntity())) {
+            in.skipNBytes(start);
+            copy(in, count, out);
+        }
+    }
+
+    // Only the region is fetched from the backend
+    private void copyStored(FileEntity fileEntity, long start, long count, OutputStream out) throws IOException {
+        try (InputStream in = fileServiceStorage.openStored(fileEntity, start, count)) {
+            copy(in, count, out);
+        }
+    }
+
+    private void copy(InputStream in, long count, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        while (count > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read < 0) {
+                throw new IOException("File truncated while streaming");
+            }
+            out.write(buffer, 0, read);
+            count -= read;
+        }
+    }
+
+    private OutputStream output(HttpServletResponse response) throws IOException {
+        ServletOutputStream out = response.getOutputStream();
+        return bandwidthLimit.toBytes() > 0 ? new PacedOutputStream(out, bandwidthLimit.toBytes()) : out;
+    }
+
+    // Any listed gzip coding with a non-zero quality, or a wildcard that does not exclude it
+    private boolean acceptsGzip(HttpServletRequest request) {
+        boolean wildcard = false;
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                boolean rejected = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    return !rejected;
+                }
+                if (name.equals("*")) {
+                    wildcard = !rejected;
+                }
+            }
+        }
+        return wildcard;
+    }
+
+    private String contentRange(long start, long count, long length) {
+        return "bytes " + start + "-" + (start + count - 1) + "/" + length;
+    }
+
+    private boolean isHead(HttpServletRequest request) {
+        return "HEAD".equals(request.getMethod());
+    }
+
+    // Where a response body is read from. localFile is null when the blob lives in a remote backend or is
+    // cached, cached is null unless the content cache holds the stored bytes.
+    private record Body(FileEntity fileEntity, Path localFile, ContentCache.CachedContent cached, boolean decode) {
+    }
+
+    // Sleeps whenever the bytes written so far are ahead of the rate, writes go out in slices so a large
+    // buffer does not leave the connection idle for seconds before and after
+    private static class PacedOutputStream extends FilterOutputStream {
+        private static final int SLICE = 16 * 1024;
+
+        private final double nanosPerByte;
+        private final long startNanos = System.nanoTime();
+        private long written;
+
+        PacedOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.nanosPerByte = 1_000_000_000d / bytesPerSecond;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            pace(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int slice = Math.min(len, SLICE);
+                out.write(b, off, slice);
+                pace(slice);
+                off += slice;
+                len -= slice;
+            }
+        }
+
+        private void pace(int bytes) throws IOException {
+            written += bytes;
+            long ahead = startNanos + (long) (written * nanosPerByte) - System.nanoTime();
+            if (ahead > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(ahead);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Download interrupted");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.AdityaCode.StudyVault.Controller;
+
+import com.AdityaCode.StudyVault.Entity.FolderJobEntity;
+import com.AdityaCode.StudyVault.Services.FolderJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Recursive folder operations answer 202 with a job to poll, the work happens on the folder job workers
+@RestController
+@RequestMapping("/api/files/jobs")
+@CrossOrigin(origins = "http://localhost:3000")
+public class FolderJobController {
+
+    private final FolderJobService folderJobService;
+
+    public FolderJobController(FolderJobService folderJobService) {
+        this.folderJobService = folderJobService;
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<?> deleteFolder(@RequestBody FolderDeleteRequest request) {
+        try {
+            return accepted(folderJobService.submitDelete(request.getFolderId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/move")
+    public ResponseEntity<?> moveFolder(@RequestBody FolderMoveRequest request) {
+        try {
+            return accepted(folderJobService.submitMove(request.getFolderId(), request.getParentFolderId(),
+                    Boolean.TRUE.equals(request.getToRoot()), request.getNewName()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(toResponse(folderJobService.getJob(jobId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(toResponse(folderJobService.cancel(jobId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> accepted(FolderJobEntity job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/files/jobs/" + job.getId()))
+                .body(toResponse(job));
+    }
+
+    // LinkedHashMap, error and the move fields are null for most jobs
+    private Map<String, Object> toResponse(FolderJobEntity job) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", job.getId());
+        response.put("type", job.getType());
+        response.put("folderId", job.getFolderId());
+        response.put("status", job.getStatus());
+        response.put("totalItems", job.getTotalItems());
+        response.put("processedItems", job.getProcessedItems());
+        response.put("cancelRequested", job.getCancelRequested());
+        if (FolderJobEntity.MOVE.equals(job.getType())) {
+            response.put("parentFolderId", job.getTargetParentId());
+            response.put("toRoot", job.getMoveToRoot());
+            response.put("newName", job.getNewName());
+        }
+        response.put("error", job.getError());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("updatedAt", job.getUpdatedAt());
+        return response;
+    }
+}
+
+class FolderDeleteRequest {
+    private Long folderId;
+
+    public Long getFolderId() { return folderId; }
+    public void setFolderId(Long folderId) { this.folderId = folderId; }
+}
+
+class FolderMoveRequest {
+    private Long folderId;
+    private Long parentFolderId;
+    private Boolean toRoot;
+    private String newName;
+
+    public Long getFolderId() { return folderId; }
+    public void setFolderId(Long folderId) { this.folderId = folderId; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+    public Boolean getToRoot() { return toRoot; }
+    public void setToRoot(Boolean toRoot) { this.toRoot = toRoot; }
+    public String getNewName() { return newName; }
+    public void setNewName(String newName) { this.newName = newName; }
+}
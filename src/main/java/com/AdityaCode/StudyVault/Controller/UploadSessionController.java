@@ -0,0 +1,143 @@
+package com.AdityaCode.StudyVault.Controller;
+
+import com.AdityaCode.StudyVault.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.Services.ChunkedUploadService;
+import com.AdityaCode.StudyVault.Services.QuotaExceededException;
+import com.AdityaCode.StudyVault.Services.UploadSessionNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/files/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UploadSessionController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public UploadSessionController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> initUpload(@RequestBody UploadSessionRequest request) {
+        try {
+            UploadSessionEntity session = chunkedUploadService.initSession(request.getFileName(), request.getFileType(),
+                    request.getTotalSize(), request.getParentFolderId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                    .body(toResponse(session));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "Upload init failed: " + e.getMessage()));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload init failed: " + e.getMessage()));
+        }
+    }
+
+    @RequestMapping(value = "/{sessionId}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public ResponseEntity<?> getUploadStatus(@PathVariable String sessionId) {
+        try {
+            UploadSessionEntity session = chunkedUploadService.getSession(sessionId);
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                    .body(toResponse(session));
+        } catch (UploadSessionNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{sessionId}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String sessionId,
+                                         @RequestParam("offset") long offset,
+                                         HttpServletRequest request) {
+        try {
+            UploadSessionEntity session = chunkedUploadService.appendChunk(sessionId, offset, request.getInputStream());
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                    .body(toResponse(session));
+        } catch (UploadSessionNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return conflict(sessionId, e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Another PUT for the same offset committed first
+            return conflict(sessionId, "Concurrent chunk upload for this session");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Chunk upload failed: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<String> completeUpload(@PathVariable String sessionId) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.completeSession(sessionId));
+        } catch (UploadSessionNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File upload failed: " + e.getMessage());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("File upload failed: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("File upload failed: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String sessionId) {
+        try {
+            chunkedUploadService.abortSession(sessionId);
+            return ResponseEntity.ok().body(Map.of("message", "Upload aborted"));
+        } catch (UploadSessionNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to abort upload: " + e.getMessage()));
+        }
+    }
+
+    // Client is out of sync, tell it where to resume from
+    private ResponseEntity<?> conflict(String sessionId, String error) {
+        try {
+            UploadSessionEntity session = chunkedUploadService.getSession(sessionId);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                    .body(Map.of("error", error, "offset", session.getReceivedBytes()));
+        } catch (UploadSessionNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> toResponse(UploadSessionEntity session) {
+        return Map.of(
+                "id", session.getId(),
+                "fileName", session.getFileName(),
+                "offset", session.getReceivedBytes(),
+                "totalSize", session.getTotalSize()
+        );
+    }
+}
+
+class UploadSessionRequest {
+    private String fileName;
+    private String fileType;
+    private Long totalSize;
+    private Long parentFolderId;
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getFileType() { return fileType; }
+    public void setFileType(String fileType) { this.fileType = fileType; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+}
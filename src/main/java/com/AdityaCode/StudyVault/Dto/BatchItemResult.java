@@ -0,0 +1,16 @@
+package com.AdityaCode.StudyVault.Dto;
+
+// One entry per requested file in batch upload and delete responses; id is null when an upload failed
+public record BatchItemResult(Long id, String fileName, String status, String error) {
+    public static final String OK = "ok";
+    public static final String FAILED = "failed";
+    public static final String NOT_FOUND = "not_found";
+
+    public static BatchItemResult ok(Long id, String fileName) {
+        return new BatchItemResult(id, fileName, OK, null);
+    }
+
+    public static BatchItemResult failed(Long id, String fileName, String error) {
+        return new BatchItemResult(id, fileName, FAILED, error);
+    }
+}
@@ -0,0 +1,10 @@
+package com.AdityaCode.StudyVault.Dto;
+
+import java.time.LocalDateTime;
+
+// Lightweight row for paged folder listings, selected directly by the query instead of hydrating entities
+public record ListingItem(Long id, String name, String kind, String type, Long size, LocalDateTime createdAt) {
+
+    public static final String FOLDER = "folder";
+    public static final String FILE = "file";
+}
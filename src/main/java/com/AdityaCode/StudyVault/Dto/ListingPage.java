@@ -0,0 +1,7 @@
+package com.AdityaCode.StudyVault.Dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record ListingPage(List<ListingItem> items, String nextCursor) {
+}
@@ -0,0 +1,5 @@
+package com.AdityaCode.StudyVault.Dto;
+
+// parentFolderId is null for root-level files
+public record SearchHit(Long id, String fileName, String fileType, Long parentFolderId, float score) {
+}
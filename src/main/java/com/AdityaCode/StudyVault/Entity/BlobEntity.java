@@ -0,0 +1,31 @@
+package com.AdityaCode.StudyVault.Entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "blobs")
+public class BlobEntity {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // Hex SHA-256 of the original (decoded) content, the stored bytes may be gzip
+
+    private Long size;
+    private Long refCount; // Number of FileEntity rows pointing at this blob
+    private LocalDateTime createdAt;
+
+    public BlobEntity() {
+        // Default constructor
+    }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+    public Long getRefCount() { return refCount; }
+    public void setRefCount(Long refCount) { this.refCount = refCount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
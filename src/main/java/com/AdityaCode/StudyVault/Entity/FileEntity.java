@@ -4,18 +4,36 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "files")
+@Table(name = "files", indexes = {
+        // (parent, sort column, id) composites back the keyset-paged listing for each sort option
+        @Index(name = "idx_files_parent_name", columnList = "parentFolderId, fileName, id"),
+        @Index(name = "idx_files_parent_size", columnList = "parentFolderId, size, id"),
+        @Index(name = "idx_files_parent_created", columnList = "parentFolderId, createdAt, id"),
+        @Index(name = "idx_files_parent_type", columnList = "parentFolderId, fileType, id"),
+        @Index(name = "idx_files_content_hash", columnList = "contentHash")
+})
 public class FileEntity {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled ids are handed out in blocks, so inserts can be JDBC batched (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "files_seq")
+    @SequenceGenerator(name = "files_seq", sequenceName = "files_seq", allocationSize = FileEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     private String fileName;
-    private String fileType;
-    private Long size;
+    private String fileType; // Detected from the leading bytes at upload, never the client's header
+    private Long size; // Logical size, what the client uploaded and downloads
     private String filePath;
 
+    @Column(length = 16)
+    private String contentEncoding; // null when stored as uploaded, otherwise e.g. "gzip"
+    private Long storedSize; // Bytes on disk, differs from size for encoded content
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of the content from the upload pass, blob store key and integrity checksum
+
     // Corrected attribute name
     private Long parentFolderId; // References FolderEntity.id, null for root-level files
 
@@ -58,6 +76,30 @@ public class FileEntity {
         this.filePath = filePath;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public Long getStoredSize() {
+        return storedSize;
+    }
+
+    public void setStoredSize(Long storedSize) {
+        this.storedSize = storedSize;
+    }
+
     public String getFileType() {
         return fileType;
     }
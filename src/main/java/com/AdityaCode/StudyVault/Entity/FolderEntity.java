@@ -6,27 +6,37 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "folders")
+@Table(name = "folders", indexes = {
+        @Index(name = "idx_folders_ancestry_path", columnList = "ancestryPath"),
+        @Index(name = "idx_folders_parent_name", columnList = "parentFolderId, folderName, id")
+})
 public class FolderEntity {
 
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    // Folders exist only as rows, file contents live in the blob store under content keys
     private String folderName;
-    private String folderPath; // Path to the folder in the file system
     private Long parentFolderId; // null for root folders
+
+    @Column(length = 512)
+    private String ancestryPath; // Ids from the root down to this folder, e.g. "/1/5/9/"
     private LocalDateTime createdAt;
 
+    // Totals over the whole subtree, maintained in the same transaction as every file write and delete
+    private Long subtreeBytes = 0L;
+    private Long subtreeFileCount = 0L;
+    private Long quotaBytes; // null means no limit on this subtree
+
 
     public FolderEntity() {
         // Default constructor
     }
 
-    public FolderEntity( String folderName, String folderPath,  Long parentFolderId) {
+    public FolderEntity(String folderName, Long parentFolderId) {
 
         this.folderName = folderName;
-        this.folderPath = folderPath;
 
         this.parentFolderId = parentFolderId;
     }
@@ -47,14 +57,6 @@ public class FolderEntity {
         this.folderName = folderName;
     }
 
-    public String getFolderPath() {
-        return folderPath;
-    }
-
-    public void setFolderPath(String folderPath) {
-        this.folderPath = folderPath;
-    }
-
     public Long getId() {
         return id;
     }
@@ -63,6 +65,14 @@ public class FolderEntity {
         this.id = id;
     }
 
+    public String getAncestryPath() {
+        return ancestryPath;
+    }
+
+    public void setAncestryPath(String ancestryPath) {
+        this.ancestryPath = ancestryPath;
+    }
+
     public Long getParentFolderId() {
         return parentFolderId;
     }
@@ -70,4 +80,28 @@ public class FolderEntity {
     public void setParentFolderId(Long parentFolderId) {
         this.parentFolderId = parentFolderId;
     }
+
+    public Long getSubtreeBytes() {
+        return subtreeBytes;
+    }
+
+    public void setSubtreeBytes(Long subtreeBytes) {
+        this.subtreeBytes = subtreeBytes;
+    }
+
+    public Long getSubtreeFileCount() {
+        return subtreeFileCount;
+    }
+
+    public void setSubtreeFileCount(Long subtreeFileCount) {
+        this.subtreeFileCount = subtreeFileCount;
+    }
+
+    public Long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    public void setQuotaBytes(Long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
 }
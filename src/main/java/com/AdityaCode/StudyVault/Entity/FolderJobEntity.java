@@ -0,0 +1,87 @@
+package com.AdityaCode.StudyVault.Entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "folder_jobs", indexes = {
+        @Index(name = "idx_folder_jobs_status", columnList = "status")
+})
+public class FolderJobEntity {
+
+    public static final String DELETE = "delete";
+    public static final String MOVE = "move";
+
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+    public static final String CANCELLED = "cancelled";
+
+    @Id
+    private String id;
+
+    private String type;
+    private Long folderId;
+    private Long targetParentId; // Move only, null together with moveToRoot=false keeps the current parent
+    private Boolean moveToRoot;
+    private String newName; // Move only, null keeps the current name
+    private String status;
+    private Long totalItems; // Files and folders in the subtree when the job was submitted
+    private Long processedItems;
+    private Boolean cancelRequested; // Checked by the worker between batches
+
+    @Column(length = 1000)
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public FolderJobEntity() {
+        // Default constructor
+    }
+
+    public FolderJobEntity(String id, String type, Long folderId, Long totalItems) {
+        this.id = id;
+        this.type = type;
+        this.folderId = folderId;
+        this.status = QUEUED;
+        this.totalItems = totalItems;
+        this.processedItems = 0L;
+        this.moveToRoot = false;
+        this.cancelRequested = false;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return COMPLETED.equals(status) || FAILED.equals(status) || CANCELLED.equals(status);
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Long getFolderId() { return folderId; }
+    public void setFolderId(Long folderId) { this.folderId = folderId; }
+    public Long getTargetParentId() { return targetParentId; }
+    public void setTargetParentId(Long targetParentId) { this.targetParentId = targetParentId; }
+    public Boolean getMoveToRoot() { return moveToRoot; }
+    public void setMoveToRoot(Boolean moveToRoot) { this.moveToRoot = moveToRoot; }
+    public String getNewName() { return newName; }
+    public void setNewName(String newName) { this.newName = newName; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getTotalItems() { return totalItems; }
+    public void setTotalItems(Long totalItems) { this.totalItems = totalItems; }
+    public Long getProcessedItems() { return processedItems; }
+    public void setProcessedItems(Long processedItems) { this.processedItems = processedItems; }
+    public Boolean getCancelRequested() { return cancelRequested; }
+    public void setCancelRequested(Boolean cancelRequested) { this.cancelRequested = cancelRequested; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
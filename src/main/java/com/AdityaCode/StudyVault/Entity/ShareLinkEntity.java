@@ -6,13 +6,18 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "share_links")
+@Table(name = "share_links", indexes = {
+        @Index(name = "uk_share_links_token", columnList = "token", unique = true),
+        @Index(name = "idx_share_links_expiry_date", columnList = "expiryDate")
+})
 public class ShareLinkEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    private String fileId;
+    private Long fileId;
+    @Column(length = 36)
+    private String token; // Bare link token, the exact-match lookup key
     private String shareLink;
     private String password;
     private LocalDateTime expiryDate;
@@ -24,8 +29,10 @@ public class ShareLinkEntity {
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
-    public String getFileId() { return fileId; }
-    public void setFileId(String fileId) { this.fileId = fileId; }
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
     public String getShareLink() { return shareLink; }
@@ -34,4 +41,3 @@ public class ShareLinkEntity {
     public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
 
 }
-
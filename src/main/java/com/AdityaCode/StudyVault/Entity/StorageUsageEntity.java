@@ -0,0 +1,35 @@
+package com.AdityaCode.StudyVault.Entity;
+
+import jakarta.persistence.*;
+
+// Usage counters that are not tied to a folder, currently the single "global" row for the whole vault
+@Entity
+@Table(name = "storage_usage")
+public class StorageUsageEntity {
+
+    public static final String GLOBAL = "global";
+
+    @Id
+    @Column(length = 32)
+    private String scope;
+
+    private Long bytes;
+    private Long fileCount;
+
+    public StorageUsageEntity() {
+        // Default constructor
+    }
+
+    public StorageUsageEntity(String scope, Long bytes, Long fileCount) {
+        this.scope = scope;
+        this.bytes = bytes;
+        this.fileCount = fileCount;
+    }
+
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+    public Long getBytes() { return bytes; }
+    public void setBytes(Long bytes) { this.bytes = bytes; }
+    public Long getFileCount() { return fileCount; }
+    public void setFileCount(Long fileCount) { this.fileCount = fileCount; }
+}
@@ -0,0 +1,64 @@
+package com.AdityaCode.StudyVault.Entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_updated_at", columnList = "updatedAt")
+})
+public class UploadSessionEntity {
+
+    @Id
+    private String id;
+
+    private String fileName;
+    private String fileType;
+    private Long totalSize;
+    private Long receivedBytes; // Last acknowledged offset, chunks resume from here
+    private String stagingPath;
+    private Long parentFolderId; // null for root-level files
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    public UploadSessionEntity() {
+        // Default constructor
+    }
+
+    public UploadSessionEntity(String id, String fileName, String fileType, Long totalSize, String stagingPath, Long parentFolderId) {
+        this.id = id;
+        this.fileName = fileName;
+        this.fileType = fileType;
+        this.totalSize = totalSize;
+        this.receivedBytes = 0L;
+        this.stagingPath = stagingPath;
+        this.parentFolderId = parentFolderId;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getFileType() { return fileType; }
+    public void setFileType(String fileType) { this.fileType = fileType; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getReceivedBytes() { return receivedBytes; }
+    public void setReceivedBytes(Long receivedBytes) { this.receivedBytes = receivedBytes; }
+    public String getStagingPath() { return stagingPath; }
+    public void setStagingPath(String stagingPath) { this.stagingPath = stagingPath; }
+    public Long getParentFolderId() { return parentFolderId; }
+    public void setParentFolderId(Long parentFolderId) { this.parentFolderId = parentFolderId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
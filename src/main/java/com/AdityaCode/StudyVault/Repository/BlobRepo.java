@@ -0,0 +1,42 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.BlobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BlobRepo extends JpaRepository<BlobEntity, String> {
+
+    // Single statement so concurrent uploads of the same content cannot lose a reference
+    @Modifying
+    @Query(value = "insert into blobs (hash, size, ref_count, created_at) values (:hash, :size, 1, now()) " +
+            "on duplicate key update ref_count = ref_count + 1", nativeQuery = true)
+    int addReference(@Param("hash") String hash, @Param("size") long size);
+
+    @Modifying
+    @Query("update BlobEntity b set b.refCount = b.refCount - :references where b.hash = :hash")
+    int removeReferences(@Param("hash") String hash, @Param("references") long references);
+
+    @Modifying
+    @Query("delete from BlobEntity b where b.hash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // Locks the row for the rest of the transaction, inserting an unreferenced placeholder if there is none,
+    // so a concurrent addReference of the same hash waits until the reap has committed
+    @Modifying
+    @Query(value = "insert into blobs (hash, size, ref_count, created_at) values (:hash, 0, 0, now()) " +
+            "on duplicate key update ref_count = ref_count", nativeQuery = true)
+    int claimForReap(@Param("hash") String hash);
+
+    @Query("select coalesce(sum(b.refCount), 0) from BlobEntity b where b.hash = :hash")
+    long findRefCount(@Param("hash") String hash);
+
+    @Query("select b.hash from BlobEntity b where b.hash in :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -1,7 +1,10 @@
 package com.AdityaCode.StudyVault.Repository;
 
 import com.AdityaCode.StudyVault.Entity.FileEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +13,17 @@ import java.util.List;
 public interface FileRepo extends JpaRepository<FileEntity,Long> {
     List<FileEntity> findByParentFolderId(Long parentFolderId);
     List<FileEntity> findByParentFolderIdIsNull();
+    boolean existsByContentHash(String contentHash);
+
+    // Subtree queries resolve the folder set through the ancestry path index in one statement
+    String IN_SUBTREE = "f.parentFolderId in (select d.id from FolderEntity d where d.ancestryPath like concat(:ancestryPath, '%'))";
+
+    @Query("select f from FileEntity f where " + IN_SUBTREE)
+    List<FileEntity> findInSubtree(@Param("ancestryPath") String ancestryPath);
+
+    @Query("select f.parentFolderId, count(f), coalesce(sum(f.size), 0) from FileEntity f group by f.parentFolderId")
+    List<Object[]> sumByParentFolder();
+
+    @Query("select f.id from FileEntity f where " + IN_SUBTREE)
+    List<Long> findIdsInSubtree(@Param("ancestryPath") String ancestryPath, Pageable pageable);
 }
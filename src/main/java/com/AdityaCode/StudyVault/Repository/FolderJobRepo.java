@@ -0,0 +1,40 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.FolderJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// The worker and cancel requests touch the same row, so both write single columns instead of saving
+// whole entities over each other
+@Repository
+public interface FolderJobRepo extends JpaRepository<FolderJobEntity, String> {
+    List<FolderJobEntity> findByStatusIn(Collection<String> statuses);
+    List<FolderJobEntity> findByStatusInAndUpdatedAtBefore(Collection<String> statuses, LocalDateTime cutoff);
+
+    @Query("select j.cancelRequested from FolderJobEntity j where j.id = :id")
+    boolean isCancelRequested(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("update FolderJobEntity j set j.processedItems = :processed, j.updatedAt = :now where j.id = :id")
+    int updateProgress(@Param("id") String id, @Param("processed") long processed, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update FolderJobEntity j set j.status = :status, j.error = :error, j.updatedAt = :now where j.id = :id")
+    int updateStatus(@Param("id") String id, @Param("status") String status, @Param("error") String error,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update FolderJobEntity j set j.cancelRequested = true, j.updatedAt = :now where j.id = :id and j.status in :active")
+    int requestCancel(@Param("id") String id, @Param("active") Collection<String> active, @Param("now") LocalDateTime now);
+}
@@ -1,12 +1,40 @@
 package com.AdityaCode.StudyVault.Repository;
 
 import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FolderRepo extends JpaRepository<FolderEntity, Long> {
     // Additional query methods can be defined here if needed
     List<FolderEntity> findByParentFolderId(Long parentFolderId);
     List<FolderEntity> findByParentFolderIdIsNull();
+    List<FolderEntity> findByAncestryPathIsNull();
+
+    // Prefix match on the ancestry path index, returns the folder itself and all descendants
+    List<FolderEntity> findByAncestryPathStartingWith(String ancestryPath);
+    long countByAncestryPathStartingWith(String ancestryPath);
+
+    // Folders of the subtree holding neither files nor subfolders, i.e. what a bottom-up delete removes next
+    @Query("select d from FolderEntity d where d.ancestryPath like concat(:ancestryPath, '%') " +
+            "and not exists (select f.id from FileEntity f where f.parentFolderId = d.id) " +
+            "and not exists (select c.id from FolderEntity c where c.parentFolderId = d.id)")
+    List<FolderEntity> findEmptyInSubtree(@Param("ancestryPath") String ancestryPath, Pageable pageable);
+
+    // One statement adjusts the aggregates of every folder on the path from the root
+    @Modifying
+    @Query("update FolderEntity d set d.subtreeBytes = d.subtreeBytes + :bytes, d.subtreeFileCount = d.subtreeFileCount + :files " +
+            "where d.id in :ids")
+    int addUsage(@Param("ids") Collection<Long> ids, @Param("bytes") long bytes, @Param("files") long files);
+
+    // Re-roots every descendant in one statement, files point at folders by id and need no change
+    @Modifying
+    @Query("update FolderEntity d set d.ancestryPath = concat(:newPath, substring(d.ancestryPath, length(:oldPath) + 1)) " +
+            "where d.ancestryPath like concat(:oldPath, '%')")
+    int moveSubtree(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
@@ -0,0 +1,84 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Dto.ListingItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Keyset queries for paged listings. Each sort column is paired with id as a tie breaker and backed
+// by a (parentFolderId, column, id) index, so every page is an index range scan regardless of depth.
+// Null sort values order lowest, as MySQL does: first ascending, last descending.
+@Repository
+public class ListingRepo {
+
+    private final EntityManager entityManager;
+    private final Timer findFoldersTimer;
+    private final Timer findFilesTimer;
+
+    // Spring Data repositories are timed by Actuator (spring.data.repository.invocations), this one is hand written
+    public ListingRepo(EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.findFoldersTimer = Timer.builder("studyvault.listing.query").tag("method", "findFolders").register(meterRegistry);
+        this.findFilesTimer = Timer.builder("studyvault.listing.query").tag("method", "findFiles").register(meterRegistry);
+    }
+
+    public List<ListingItem> findFolders(Long parentFolderId, boolean descending, String afterName, Long afterId, int limit) {
+        String jpql = "select new com.AdityaCode.StudyVault.Dto.ListingItem(d.id, d.folderName, '" + ListingItem.FOLDER
+                + "', null, null, d.createdAt) from FolderEntity d where "
+                + parentClause("d", parentFolderId)
+                + (afterId != null ? " and " + keysetClause("d.folderName", descending, afterName == null) : "")
+                + orderBy("d.folderName", descending);
+        TypedQuery<ListingItem> query = entityManager.createQuery(jpql, ListingItem.class);
+        return findFoldersTimer.record(() -> run(query, parentFolderId, afterName, afterId, limit));
+    }
+
+    public List<ListingItem> findFiles(Long parentFolderId, String sortColumn, boolean descending, Object afterValue, Long afterId, int limit) {
+        String column = "f." + sortColumn;
+        String jpql = "select new com.AdityaCode.StudyVault.Dto.ListingItem(f.id, f.fileName, '" + ListingItem.FILE
+                + "', f.fileType, f.size, f.createdAt) from FileEntity f where "
+                + parentClause("f", parentFolderId)
+                + (afterId != null ? " and " + keysetClause(column, descending, afterValue == null) : "")
+                + orderBy(column, descending);
+        TypedQuery<ListingItem> query = entityManager.createQuery(jpql, ListingItem.class);
+        return findFilesTimer.record(() -> run(query, parentFolderId, afterValue, afterId, limit));
+    }
+
+    private List<ListingItem> run(TypedQuery<ListingItem> query, Long parentFolderId, Object afterValue, Long afterId, int limit) {
+        if (parentFolderId != null) {
+            query.setParameter("parentFolderId", parentFolderId);
+        }
+        if (afterId != null) {
+            if (afterValue != null) {
+                query.setParameter("afterValue", afterValue);
+            }
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    private String parentClause(String alias, Long parentFolderId) {
+        return parentFolderId == null ? alias + ".parentFolderId is null" : alias + ".parentFolderId = :parentFolderId";
+    }
+
+    // Row-value comparison (column, id) > (:afterValue, :afterId) spelled out for JPQL, with nulls below every value
+    private String keysetClause(String column, boolean descending, boolean afterNull) {
+        String op = descending ? "<" : ">";
+        String idColumn = column.substring(0, column.indexOf('.')) + ".id";
+        String sameValue = "(" + column + " is null and " + idColumn + " " + op + " :afterId)";
+        if (afterNull) {
+            return descending ? sameValue : "(" + sameValue + " or " + column + " is not null)";
+        }
+        String keyset = column + " " + op + " :afterValue or (" + column + " = :afterValue and " + idColumn + " " + op + " :afterId)";
+        return descending ? "(" + keyset + " or " + column + " is null)" : "(" + keyset + ")";
+    }
+
+    private String orderBy(String column, boolean descending) {
+        String direction = descending ? " desc" : " asc";
+        String idColumn = column.substring(0, column.indexOf('.')) + ".id";
+        return " order by " + column + direction + ", " + idColumn + direction;
+    }
+}
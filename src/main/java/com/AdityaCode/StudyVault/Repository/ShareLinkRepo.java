@@ -2,11 +2,21 @@ package com.AdityaCode.StudyVault.Repository;
 
 import com.AdityaCode.StudyVault.Entity.ShareLinkEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ShareLinkRepo extends JpaRepository<ShareLinkEntity, Long> {
-    Optional<ShareLinkEntity> findByShareLinkContains(String linkId);
+    Optional<ShareLinkEntity> findByToken(String token);
+    List<ShareLinkEntity> findByTokenIsNull();
+
+    @Modifying
+    @Query("delete from ShareLinkEntity s where s.expiryDate < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
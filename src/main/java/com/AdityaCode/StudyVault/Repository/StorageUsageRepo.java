@@ -0,0 +1,18 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.StorageUsageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StorageUsageRepo extends JpaRepository<StorageUsageEntity, String> {
+
+    // Single statement so concurrent uploads never lose an increment
+    @Modifying
+    @Query(value = "insert into storage_usage (scope, bytes, file_count) values (:scope, :bytes, :files) " +
+            "on duplicate key update bytes = bytes + :bytes, file_count = file_count + :files", nativeQuery = true)
+    int addUsage(@Param("scope") String scope, @Param("bytes") long bytes, @Param("files") long files);
+}
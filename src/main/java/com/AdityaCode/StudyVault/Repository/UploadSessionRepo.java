@@ -0,0 +1,13 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.UploadSessionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepo extends JpaRepository<UploadSessionEntity, String> {
+    List<UploadSessionEntity> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,162 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Repository.BlobRepo;
+import com.AdityaCode.StudyVault.Repository.UploadSessionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Safety net for space the normal paths could not reclaim: blobs written to the storage backend whose
+// metadata transaction rolled back or never ran, reaps that were dropped, and staging files of uploads
+// that never finished. The 256 top-level key prefixes are listed in parallel, with one existence query
+// per batch of hashes; anything younger than the grace period is left alone.
+@Service
+public class BlobReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(BlobReconciler.class);
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int QUERY_BATCH_SIZE = 500;
+    private static final int SHARDS = 256;
+
+    @Value("${file.staging-dir}")
+    private String stagingDir;
+
+    @Value("${storage.reconcile.grace-period}")
+    private Duration gracePeriod;
+
+    @Value("${storage.reconcile.parallelism}")
+    private int parallelism;
+
+    private final BlobRepo blobRepo;
+    private final UploadSessionRepo uploadSessionRepo;
+    private final ContentAddressedBlobStore blobStore;
+    private final StorageBackend backend;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BlobReconciler(BlobRepo blobRepo, UploadSessionRepo uploadSessionRepo, ContentAddressedBlobStore blobStore,
+                          StorageBackend backend) {
+        this.blobRepo = blobRepo;
+        this.uploadSessionRepo = uploadSessionRepo;
+        this.blobStore = blobStore;
+        this.backend = backend;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        Thread.ofPlatform().daemon().name("blob-reconciler").start(this::reconcile);
+    }
+
+    @Scheduled(initialDelayString = "${storage.reconcile.interval}", fixedDelayString = "${storage.reconcile.interval}")
+    public void reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            int blobs = reconcileBlobs(cutoff);
+            int staged = reconcileStaging(cutoff);
+            if (blobs > 0 || staged > 0) {
+                logger.info("Reconciler reclaimed {} orphaned blobs and {} staging files", blobs, staged);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Blob reconciliation failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int reconcileBlobs(Instant cutoff) throws IOException {
+        AtomicInteger reclaimed = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            String prefix = String.format("%02x/", shard);
+            tasks.add(() -> {
+                reclaimed.addAndGet(reconcileShard(prefix, cutoff));
+                return null;
+            });
+        }
+        try (ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().daemon().name("blob-reconciler-", 1).factory())) {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to scan blob shard: " + e.getCause().getMessage(), e.getCause());
+        }
+        return reclaimed.get();
+    }
+
+    // One top-level shard (ab/) with its 256 sub-shards, rows looked up in batches
+    private int reconcileShard(String prefix, Instant cutoff) throws IOException {
+        Map<String, Instant> candidates = new TreeMap<>();
+        backend.list(prefix, object -> {
+            String name = object.key().substring(object.key().lastIndexOf('/') + 1);
+            String hash = name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+            if (object.lastModified().isBefore(cutoff)) {
+                candidates.merge(hash, object.lastModified(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        });
+        int reclaimed = 0;
+        List<String> hashes = new ArrayList<>(candidates.keySet());
+        for (int i = 0; i < hashes.size(); i += QUERY_BATCH_SIZE) {
+            List<String> batch = hashes.subList(i, Math.min(hashes.size(), i + QUERY_BATCH_SIZE));
+            Set<String> referenced = new HashSet<>(blobRepo.findExistingHashes(batch));
+            for (String hash : batch) {
+                // Rechecked under the blob's row lock, an upload may have claimed it since the query
+                if (!referenced.contains(hash) && blobStore.reapIfUnreferenced(hash)) {
+                    reclaimed++;
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    // Blob staging files belong to a request that is long gone; chunked parts only once their session is
+    private int reconcileStaging(Instant cutoff) throws IOException {
+        Path root = Paths.get(System.getProperty("user.dir"), stagingDir);
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        int reclaimed = 0;
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                String name = file.getFileName().toString();
+                if (!Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    continue;
+                }
+                boolean orphaned = name.startsWith("blob-")
+                        || (name.endsWith(".part") && !uploadSessionRepo.existsById(name.substring(0, name.length() - ".part".length())));
+                if (orphaned && Files.deleteIfExists(file)) {
+                    reclaimed++;
+                }
+            }
+        }
+        return reclaimed;
+    }
+}
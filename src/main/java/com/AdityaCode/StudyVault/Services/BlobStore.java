@@ -0,0 +1,48 @@
+package com.AdityaCode.StudyVault.Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Content-addressed storage for file bytes. Identical content is stored once and reference counted.
+// Bytes are written before the transaction that creates the FileEntity and referenced inside it, so no
+// upload runs while a connection is held; released blobs are reclaimed after the releasing transaction.
+public interface BlobStore {
+
+    // Hashes the stream while writing it to storage; duplicate content is discarded after hashing.
+    // The content type decides whether the bytes are worth compressing on the way to storage.
+    // Must not be called inside a transaction. Until reference() commits the blob is unowned.
+    StoredBlob write(InputStream content, String contentType) throws IOException;
+
+    // Same for an already written file (e.g. a completed chunked upload), which is consumed on
+    // success and left where it was on failure
+    StoredBlob write(Path stagedFile, String contentType) throws IOException;
+
+    // Counts a reference to a written blob, inside the transaction that saves the FileEntity.
+    // Blobs written but never referenced are removed by the reconciler after its grace period.
+    void reference(StoredBlob blob) throws IOException;
+
+    // The stored bytes, still in contentEncoding
+    InputStream open(String hash, String contentEncoding) throws IOException;
+
+    InputStream open(String hash, String contentEncoding, long offset, long length) throws IOException;
+
+    Optional<StorageBackend.ObjectInfo> stat(String hash, String contentEncoding) throws IOException;
+
+    // Only when the backend keeps blobs on the local disk
+    Optional<Path> localPath(String hash, String contentEncoding);
+
+    // Drops references and reclaims the bytes once nothing points at them anymore
+    void release(String hash, long references) throws IOException;
+
+    default void release(String hash) throws IOException {
+        release(hash, 1);
+    }
+
+    // size is the logical (decoded) length, storedSize what the blob occupies in storage.
+    // contentEncoding is null for blobs stored as-is, otherwise an HTTP content-coding such as "gzip".
+    // location is the backend's name for the object, e.g. a path or an s3:// URI.
+    record StoredBlob(String hash, long size, String location, String contentEncoding, long storedSize) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.Repository.UploadSessionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class ChunkedUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    @Value("${file.staging-dir}")
+    private String stagingDir;
+
+    @Value("${file.chunked.max-file-size}")
+    private DataSize maxFileSize;
+
+    @Value("${file.chunked.session-ttl}")
+    private Duration sessionTtl;
+
+    private final UploadSessionRepo uploadSessionRepo;
+    private final FileServiceStorage fileServiceStorage;
+    private final StorageQuotaService storageQuotaService;
+    private final StorageMetrics storageMetrics;
+
+    public ChunkedUploadService(UploadSessionRepo uploadSessionRepo, FileServiceStorage fileServiceStorage,
+                                StorageQuotaService storageQuotaService, StorageMetrics storageMetrics) {
+        this.uploadSessionRepo = uploadSessionRepo;
+        this.fileServiceStorage = fileServiceStorage;
+        this.storageQuotaService = storageQuotaService;
+        this.storageMetrics = storageMetrics;
+    }
+
+    public UploadSessionEntity initSession(String originalFilename, String contentType, Long totalSize, Long parentFolderId) throws IOException {
+        String fileName = fileServiceStorage.validateUpload(originalFilename);
+        if (totalSize == null || totalSize <= 0) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        if (totalSize > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size exceeds " + maxFileSize.toMegabytes() + "MB limit");
+        }
+        // Fail fast on an unknown parent or a full quota instead of after the last chunk
+        fileServiceStorage.validateParentFolder(parentFolderId);
+        storageQuotaService.checkQuota(parentFolderId, totalSize);
+
+        Path stagingPath = Paths.get(System.getProperty("user.dir"), stagingDir);
+        Files.createDirectories(stagingPath);
+
+        String sessionId = UUID.randomUUID().toString();
+        Path stagedFile = stagingPath.resolve(sessionId + ".part");
+        Files.createFile(stagedFile);
+
+        UploadSessionEntity session = new UploadSessionEntity(sessionId, fileName, contentType, totalSize,
+                stagedFile.toString(), parentFolderId);
+        uploadSessionRepo.save(session);
+        logger.info("Upload session {} started for {} ({} bytes)", sessionId, fileName, totalSize);
+        return session;
+    }
+
+    public UploadSessionEntity getSession(String sessionId) {
+        return uploadSessionRepo.findById(sessionId)
+                .orElseThrow(() -> new UploadSessionNotFoundException(sessionId));
+    }
+
+    // Streams the request body straight into the staging file at the given offset. Whatever reached
+    // the disk is acknowledged even if the client drops mid-chunk, so the next PUT resumes from there.
+    public UploadSessionEntity appendChunk(String sessionId, long offset, InputStream body) throws IOException {
+        UploadSessionEntity session = getSession(sessionId);
+        if (offset != session.getReceivedBytes()) {
+            throw new IllegalStateException("Offset mismatch, expected " + session.getReceivedBytes());
+        }
+
+        long remaining = session.getTotalSize() - offset;
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(Paths.get(session.getStagingPath()), StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            try {
+                long transferred;
+                while (remaining > 0 && (transferred = channel.transferFrom(source, position, remaining)) > 0) {
+                    position += transferred;
+                    remaining -= transferred;
+                }
+                if (remaining == 0 && body.read() != -1) {
+                    throw new IllegalArgumentException("Chunk exceeds declared file size");
+                }
+            } finally {
+                channel.force(false);
+                storageMetrics.recordBytesWritten(StorageMetrics.MODE_CHUNKED, session.getFileType(), position - offset);
+                session.setReceivedBytes(position);
+                session.setUpdatedAt(LocalDateTime.now());
+                // Keep the merged copy, it carries the new version for the save below
+                session = uploadSessionRepo.save(session);
+            }
+        }
+
+        // The type is known as soon as the head is in, an unsupported file ends the session there
+        // instead of after the client sent the rest of it
+        long sniffLength = Math.min(UploadInspector.SNIFF_LENGTH, session.getTotalSize());
+        if (offset < sniffLength && position >= sniffLength) {
+            try {
+                session.setFileType(UploadInspector.inspect(Paths.get(session.getStagingPath())));
+                uploadSessionRepo.save(session);
+            } catch (IllegalArgumentException e) {
+                abortSession(sessionId);
+                throw e;
+            }
+        }
+        return session;
+    }
+
+    public String completeSession(String sessionId) throws IOException {
+        UploadSessionEntity session = getSession(sessionId);
+        if (!session.getReceivedBytes().equals(session.getTotalSize())) {
+            throw new IllegalStateException("Upload incomplete, received " + session.getReceivedBytes()
+                    + " of " + session.getTotalSize() + " bytes");
+        }
+        Path stagingPath = Paths.get(session.getStagingPath());
+        String response;
+        try {
+            response = fileServiceStorage.storeStagedFile(stagingPath, session.getFileName(), session.getFileType(),
+                    session.getParentFolderId());
+        } catch (IOException | RuntimeException e) {
+            // Once the bytes went to the blob store the session cannot be completed again, only re-uploaded
+            if (!Files.exists(stagingPath)) {
+                uploadSessionRepo.delete(session);
+                logger.warn("Upload session {} failed after its bytes were stored, session removed", sessionId);
+            }
+            throw e;
+        }
+        uploadSessionRepo.delete(session);
+        logger.info("Upload session {} completed", sessionId);
+        return response;
+    }
+
+    public void abortSession(String sessionId) throws IOException {
+        UploadSessionEntity session = getSession(sessionId);
+        Files.deleteIfExists(Paths.get(session.getStagingPath()));
+        uploadSessionRepo.delete(session);
+        logger.info("Upload session {} aborted", sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "${file.chunked.cleanup-interval}")
+    public void purgeStaleSessions() {
+        List<UploadSessionEntity> stale = uploadSessionRepo.findByUpdatedAtBefore(LocalDateTime.now().minus(sessionTtl));
+        for (UploadSessionEntity session : stale) {
+            try {
+                Files.deleteIfExists(Paths.get(session.getStagingPath()));
+                uploadSessionRepo.delete(session);
+            } catch (IOException e) {
+                logger.error("Failed to purge upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (!stale.isEmpty()) {
+            logger.info("Purged {} stale upload sessions", stale.size());
+        }
+    }
+}
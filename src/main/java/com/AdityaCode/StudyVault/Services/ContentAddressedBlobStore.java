@@ -0,0 +1,344 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Repository.BlobRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Stores blobs under the keys ab/cd/abcd... of the configured StorageBackend, so no directory grows past
+// 256 entries per level on disk. Compressible content is gzipped while it is hashed and kept as abcd....gz
+// when that saves enough space; the hash always covers the decoded bytes, so deduplication does not depend
+// on the encoding.
+//
+// Writes go to a local staging file that is fsynced and handed to the backend before any transaction is
+// open, so a slow (e.g. multipart S3) upload never holds a connection or a row lock. The transaction only
+// takes the reference; when it does not commit, the object has no row and the reconciler removes it after
+// the grace period. Unreferenced blobs are deleted after the releasing commit by a background reaper. The
+// blobs row serializes references and reaps, also across nodes sharing a backend: a reap takes the row lock
+// and re-checks the count, a reference takes the same lock and then checks the object is still there.
+@Service
+public class ContentAddressedBlobStore implements BlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedBlobStore.class);
+    private static final String GZIP = "gzip";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int REAPER_QUEUE_CAPACITY = 10000;
+
+    @Value("${file.staging-dir}")
+    private String stagingDir;
+
+    @Value("${file.compression.enabled}")
+    private boolean compressionEnabled;
+
+    @Value("${file.compression.types}")
+    private List<String> compressibleTypes;
+
+    @Value("${file.compression.level}")
+    private int compressionLevel;
+
+    // Compressed copies that save less than this fraction are dropped in favour of the original
+    @Value("${file.compression.min-savings}")
+    private double minSavings;
+
+    private final BlobRepo blobRepo;
+    private final StorageBackend backend;
+    private final TransactionTemplate transactionTemplate;
+
+    private ThreadPoolExecutor reaper;
+
+    public ContentAddressedBlobStore(BlobRepo blobRepo, StorageBackend backend, PlatformTransactionManager transactionManager) {
+        this.blobRepo = blobRepo;
+        this.backend = backend;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        // Whatever does not fit in the queue is picked up by the next BlobReconciler run
+        reaper = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REAPER_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "blob-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> logger.warn("Blob reaper queue full, leaving reclamation to the reconciler"));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reaper.shutdown();
+        if (!reaper.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Blob reaper did not drain before shutdown");
+        }
+    }
+
+    @Override
+    public StoredBlob write(InputStream content, String contentType) throws IOException {
+        Path tempFile = createStagingFile();
+        try {
+            boolean compress = isCompressible(contentType);
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = compress ? gzip(Files.newOutputStream(tempFile)) : Files.newOutputStream(tempFile)) {
+                size = in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (!compress || worthCompressing(size, Files.size(tempFile))) {
+                sync(tempFile);
+                return place(tempFile, hash, size, compress ? GZIP : null);
+            }
+            // The source stream is gone, so the original bytes come back out of the compressed copy
+            Path plainFile = createStagingFile();
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(tempFile), BUFFER_SIZE)) {
+                Files.copy(in, plainFile, StandardCopyOption.REPLACE_EXISTING);
+                sync(plainFile);
+                Files.delete(tempFile);
+                return place(plainFile, hash, size, null);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(plainFile);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public StoredBlob write(Path stagedFile, String contentType) throws IOException {
+        boolean compress = isCompressible(contentType);
+        Path compressedFile = compress ? createStagingFile() : null;
+        try {
+            // One pass over the staged file both hashes and, if applicable, compresses it
+            MessageDigest digest = sha256();
+            try (DigestInputStream in = new DigestInputStream(Files.newInputStream(stagedFile), digest);
+                 OutputStream out = compress ? gzip(Files.newOutputStream(compressedFile)) : OutputStream.nullOutputStream()) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(stagedFile);
+            if (compress && worthCompressing(size, Files.size(compressedFile))) {
+                sync(compressedFile);
+                StoredBlob blob = place(compressedFile, hash, size, GZIP);
+                Files.delete(stagedFile);
+                return blob;
+            }
+            if (compressedFile != null) {
+                Files.delete(compressedFile);
+            }
+            // The chunks were forced to disk as they arrived
+            return place(stagedFile, hash, size, null);
+        } catch (IOException | RuntimeException e) {
+            if (compressedFile != null) {
+                Files.deleteIfExists(compressedFile);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void reference(StoredBlob blob) throws IOException {
+        blobRepo.addReference(blob.hash(), blob.size());
+        // The row lock keeps reaps out from here to commit, but one may have removed the object since it was written
+        if (backend.stat(key(blob.hash(), blob.contentEncoding())).isEmpty()) {
+            throw new IllegalStateException("Blob " + blob.hash() + " was reclaimed concurrently, retry the upload");
+        }
+    }
+
+    @Override
+    public InputStream open(String hash, String contentEncoding) throws IOException {
+        return backend.get(key(hash, contentEncoding));
+    }
+
+    @Override
+    public InputStream open(String hash, String contentEncoding, long offset, long length) throws IOException {
+        return backend.get(key(hash, contentEncoding), offset, length);
+    }
+
+    @Override
+    public Optional<StorageBackend.ObjectInfo> stat(String hash, String contentEncoding) throws IOException {
+        return backend.stat(key(hash, contentEncoding));
+    }
+
+    @Override
+    public Optional<Path> localPath(String hash, String contentEncoding) {
+        return backend.localPath(key(hash, contentEncoding));
+    }
+
+    @Override
+    public void release(String hash, long references) throws IOException {
+        blobRepo.removeReferences(hash, references);
+        if (blobRepo.deleteIfUnreferenced(hash) > 0) {
+            pending().release(hash);
+        }
+    }
+
+    // Deletes the blob's objects unless it is referenced (again). Called by the reaper after the releasing
+    // transaction committed, and by the reconciler for objects it found without a row. The claim locks the
+    // row, or a placeholder with no references, so an upload of the same content waits for the delete.
+    boolean reapIfUnreferenced(String hash) throws IOException {
+        try {
+            Boolean deleted = transactionTemplate.execute(status -> {
+                blobRepo.claimForReap(hash);
+                if (blobRepo.findRefCount(hash) > 0) {
+                    return false;
+                }
+                try {
+                    boolean removed = backend.delete(key(hash, null));
+                    removed |= backend.delete(key(hash, GZIP));
+                    blobRepo.deleteIfUnreferenced(hash);
+                    return removed;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (Boolean.TRUE.equals(deleted)) {
+                logger.info("Blob reclaimed: {}", hash);
+            }
+            return Boolean.TRUE.equals(deleted);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Hands the staged bytes to the backend under their content key, unless identical content is already
+    // stored in either encoding. Putting the same key twice stores the same bytes, so racing writers are fine.
+    // The staged file is consumed on success and left to the caller on failure.
+    private StoredBlob place(Path stagedFile, String hash, long size, String contentEncoding) throws IOException {
+        Optional<StorageBackend.ObjectInfo> plain = backend.stat(key(hash, null));
+        Optional<StorageBackend.ObjectInfo> existing = plain.isPresent() ? plain : backend.stat(key(hash, GZIP));
+        if (existing.isPresent()) {
+            logger.info("Duplicate content, reusing blob {}", hash);
+            Files.delete(stagedFile);
+            return new StoredBlob(hash, size, backend.location(existing.get().key()), plain.isPresent() ? null : GZIP,
+                    existing.get().size());
+        }
+        String key = key(hash, contentEncoding);
+        long storedSize = Files.size(stagedFile);
+        backend.put(key, stagedFile);
+        return new StoredBlob(hash, size, backend.location(key), contentEncoding, storedSize);
+    }
+
+    // Releases of the current transaction, reaped once it committed. Outside a transaction they are
+    // scheduled on the spot through a throwaway instance.
+    private PendingBlobs pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingBlobs(true);
+        }
+        PendingBlobs pending = (PendingBlobs) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBlobs(false);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private final class PendingBlobs implements TransactionSynchronization {
+        private final boolean immediate;
+        private final Set<String> released = new LinkedHashSet<>();
+
+        private PendingBlobs(boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        void release(String hash) {
+            if (immediate) {
+                scheduleReap(hash);
+            } else {
+                released.add(hash);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            released.forEach(this::scheduleReap);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ContentAddressedBlobStore.this);
+        }
+
+        private void scheduleReap(String hash) {
+            reaper.execute(() -> {
+                try {
+                    reapIfUnreferenced(hash);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Failed to reclaim blob {}: {}", hash, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private boolean isCompressible(String contentType) {
+        return compressionEnabled && contentType != null && compressibleTypes.contains(contentType);
+    }
+
+    private boolean worthCompressing(long size, long compressedSize) {
+        return compressedSize <= size * (1 - minSavings);
+    }
+
+    private OutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+    }
+
+    private String key(String hash, String contentEncoding) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + (GZIP.equals(contentEncoding) ? GZIP_SUFFIX : "");
+    }
+
+    private Path createStagingFile() throws IOException {
+        Path stagingPath = Paths.get(System.getProperty("user.dir"), stagingDir);
+        Files.createDirectories(stagingPath);
+        return Files.createTempFile(stagingPath, "blob-", ".tmp");
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Off-heap copies of small, frequently downloaded blobs, kept as stored (still gzip when compressed).
+// A doorkeeper only lets a blob in on its second request within the window, so one-off downloads never
+// allocate; past that, Caffeine's W-TinyLFU policy keeps an entry only while it is requested more often
+// than the one it would evict. Bytes live in direct buffers weighed against max-size, outside the GC'd heap.
+// Blobs are content addressed and never change under their key, eviction on delete just returns memory.
+@Component
+public class ContentCache {
+    private static final Logger logger = LoggerFactory.getLogger(ContentCache.class);
+    private static final long DOORKEEPER_ENTRIES = 100_000;
+
+    private final BlobStore blobStore;
+    private final long maxEntrySize;
+    private final Cache<String, CachedContent> cache; // null when disabled
+    private final Cache<String, Boolean> doorkeeper;
+
+    public ContentCache(@Value("${file.content-cache.max-size}") DataSize maxSize,
+                        @Value("${file.content-cache.max-entry-size}") DataSize maxEntrySize,
+                        @Value("${file.content-cache.admission-window}") Duration admissionWindow,
+                        BlobStore blobStore, MeterRegistry meterRegistry) {
+        this.blobStore = blobStore;
+        this.maxEntrySize = Math.min(maxEntrySize.toBytes(), maxSize.toBytes());
+        if (maxSize.toBytes() == 0) {
+            this.cache = null;
+            this.doorkeeper = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<String, CachedContent>weigher((key, content) -> content.bytes().capacity())
+                .recordStats()
+                .build();
+        this.doorkeeper = Caffeine.newBuilder()
+                .maximumSize(DOORKEEPER_ENTRIES)
+                .expireAfterWrite(admissionWindow)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fileContent");
+        Gauge.builder("studyvault.content.cache.bytes", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Off-heap bytes held by the content cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Empty when the file is not cacheable, not admitted yet or its blob is gone; the caller then reads
+    // from storage as usual. Files stored before the blob store are never cached.
+    public Optional<CachedContent> get(FileEntity fileEntity) throws IOException {
+        if (cache == null || fileEntity.getContentHash() == null || fileEntity.getStoredSize() == null
+                || fileEntity.getStoredSize() > maxEntrySize) {
+            return Optional.empty();
+        }
+        String key = key(fileEntity.getContentHash(), fileEntity.getContentEncoding());
+        CachedContent cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (doorkeeper.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+            return Optional.empty();
+        }
+        // Loaded outside the cache's compute lock, two racing misses at worst read the same small blob twice
+        CachedContent loaded = load(fileEntity);
+        if (loaded != null) {
+            cache.put(key, loaded);
+            doorkeeper.invalidate(key);
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileDeleted(FileDeletedEvent event) {
+        FileEntity file = event.file();
+        if (cache != null && file.getContentHash() != null) {
+            cache.invalidate(key(file.getContentHash(), file.getContentEncoding()));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        if (cache == null) {
+            description.put("enabled", false);
+            return description;
+        }
+        CacheStats stats = cache.stats();
+        description.put("size", cache.estimatedSize());
+        description.put("bytes", cache.policy().eviction().orElseThrow().weightedSize().orElse(0));
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        return description;
+    }
+
+    private CachedContent load(FileEntity fileEntity) throws IOException {
+        String hash = fileEntity.getContentHash();
+        String encoding = fileEntity.getContentEncoding();
+        Optional<StorageBackend.ObjectInfo> info = blobStore.stat(hash, encoding);
+        if (info.isEmpty() || info.get().size() > maxEntrySize) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocateDirect((int) info.get().size());
+        try {
+            Optional<Path> local = blobStore.localPath(hash, encoding);
+            if (local.isPresent()) {
+                try (FileChannel channel = FileChannel.open(local.get(), StandardOpenOption.READ)) {
+                    readFully(channel, bytes);
+                }
+            } else {
+                try (InputStream in = blobStore.open(hash, encoding); ReadableByteChannel channel = Channels.newChannel(in)) {
+                    readFully(channel, bytes);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null; // Reclaimed between stat and read
+        }
+        if (bytes.hasRemaining()) {
+            logger.warn("Blob {} shorter than its recorded size, not caching it", hash);
+            return null;
+        }
+        return new CachedContent(info.get(), bytes.flip().asReadOnlyBuffer());
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+            // Until the buffer is full or the blob ends
+        }
+    }
+
+    private static String key(String hash, String contentEncoding) {
+        return contentEncoding == null ? hash : hash + "." + contentEncoding;
+    }
+
+    // bytes is shared by all readers, region hands out an independent view
+    public record CachedContent(StorageBackend.ObjectInfo info, ByteBuffer bytes) {
+
+        public ByteBuffer region(long start, long count) {
+            return bytes.slice((int) start, (int) count);
+        }
+
+        public InputStream open() {
+            ByteBuffer view = bytes.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return view.hasRemaining() ? view.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int read = Math.min(len, view.remaining());
+                    view.get(b, off, read);
+                    return read;
+                }
+            };
+        }
+    }
+}
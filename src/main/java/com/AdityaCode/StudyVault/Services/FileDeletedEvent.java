@@ -0,0 +1,6 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+
+public record FileDeletedEvent(FileEntity file) {
+}
@@ -1,97 +1,184 @@
 package com.AdityaCode.StudyVault.Services;
 
+import com.AdityaCode.StudyVault.Dto.BatchItemResult;
 import com.AdityaCode.StudyVault.Entity.FileEntity;
 import com.AdityaCode.StudyVault.Entity.FolderEntity;
 import com.AdityaCode.StudyVault.Repository.FileRepo;
 import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @Service
 public class FileServiceStorage {
     private static final Logger logger = LoggerFactory.getLogger(FileServiceStorage.class);
-    private static final List<String> ALLOWED_TYPES = Arrays.asList(
-            "application/pdf", "image/jpeg", "image/png", "text/plain"
-    );
+    private static final long MAX_UPLOAD_SIZE = 10 * 1024 * 1024;
+    private static final Pattern INVALID_NAME_CHARS = Pattern.compile("[/\\\\\\x00-\\x1f]");
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
 
     private final FileRepo fileRepo;
     private final FolderRepo folderRepo;
-
-    public FileServiceStorage(FileRepo fileRepo, FolderRepo folderRepo) {
+    private final BlobStore blobStore;
+    private final MetadataCache metadataCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageQuotaService storageQuotaService;
+    private final StorageMetrics storageMetrics;
+    private final ContentCache contentCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public FileServiceStorage(FileRepo fileRepo, FolderRepo folderRepo, BlobStore blobStore, MetadataCache metadataCache,
+                              ApplicationEventPublisher eventPublisher, StorageQuotaService storageQuotaService,
+                              StorageMetrics storageMetrics, ContentCache contentCache,
+                              PlatformTransactionManager transactionManager) {
         this.fileRepo = fileRepo;
         this.folderRepo = folderRepo;
+        this.blobStore = blobStore;
+        this.metadataCache = metadataCache;
+        this.eventPublisher = eventPublisher;
+        this.storageQuotaService = storageQuotaService;
+        this.storageMetrics = storageMetrics;
+        this.contentCache = contentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public FolderEntity createFolder(String folderName, Long parentFolderId) throws IOException {
-        if (folderName == null || folderName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Folder name is required");
-        }
+    // Folders are metadata only, nothing is created on disk
+    @Transactional
+    public FolderEntity createFolder(String folderName, Long parentFolderId) {
+        String name = validateFolderName(folderName);
 
         // Validate parent folder if provided
-        Path parentPath = Paths.get(System.getProperty("user.dir"), uploadDir);
+        String parentAncestryPath = "/";
         if (parentFolderId != null) {
             FolderEntity parentFolder = folderRepo.findById(parentFolderId)
                     .orElseThrow(() -> new IllegalArgumentException("Parent folder not found"));
-            parentPath = Paths.get(parentFolder.getFolderPath());
+            parentAncestryPath = parentFolder.getAncestryPath();
         }
 
-        // Create folder path
-        Path folderPath = parentPath.resolve(folderName);
-        if (!Files.exists(folderPath)) {
-            Files.createDirectories(folderPath);
-        }
-
-        // Save folder metadata
-        FolderEntity folderEntity = new FolderEntity(folderName, folderPath.toString(), parentFolderId);
+        FolderEntity folderEntity = new FolderEntity(name, parentFolderId);
         folderRepo.save(folderEntity);
-        logger.info("Folder created: {}", folderName);
+        // The id is only known after the insert, the update is flushed with the same transaction
+        folderEntity.setAncestryPath(parentAncestryPath + folderEntity.getId() + "/");
+        metadataCache.evictListing(parentFolderId);
+        logger.info("Folder created: {}", name);
         return folderEntity;
     }
 
+    // A single row update whatever the size of the subtree, paths below are ids and do not carry names
+    @Transactional
+    public FolderEntity renameFolder(Long folderId, String newName) {
+        String name = validateFolderName(newName);
+        FolderEntity folder = folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+        folder.setFolderName(name);
+        metadataCache.evictListing(folder.getParentFolderId());
+        logger.info("Folder {} renamed to {}", folderId, name);
+        return folder;
+    }
+
+    // Names are labels only, separators are rejected so breadcrumbs and archive paths stay unambiguous
+    public String validateFolderName(String folderName) {
+        if (folderName == null || folderName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Folder name is required");
+        }
+        String name = folderName.trim();
+        if (name.length() > 255 || name.equals(".") || name.equals("..") || INVALID_NAME_CHARS.matcher(name).find()) {
+            throw new IllegalArgumentException("Folder name is invalid: " + name);
+        }
+        return name;
+    }
+
 
 
     public List<Map<String, Object>> getFolderPath(Long folderId) {
-        List<Map<String, Object>> path = new ArrayList<>();
         FolderEntity currentFolder = folderRepo.findById(folderId)
                 .orElseThrow(() -> new RuntimeException("Folder not found with id: " + folderId));
 
-        // Add current folder
-        Map<String, Object> currentFolderMap = new HashMap<>();
-        currentFolderMap.put("id", currentFolder.getId());
-        currentFolderMap.put("name", currentFolder.getFolderName());
-        path.add(currentFolderMap);
+        // All ancestors are named by the ancestry path, so they come back in a single lookup
+        List<Long> ancestorIds = parseAncestryPath(currentFolder.getAncestryPath());
+        Map<Long, FolderEntity> ancestors = folderRepo.findAllById(ancestorIds).stream()
+                .collect(Collectors.toMap(FolderEntity::getId, folder -> folder));
 
-        // Traverse up the folder hierarchy
-        Long parentId = currentFolder.getParentFolderId();
-        while (parentId != null) {
-            Long finalParentId = parentId;
-            FolderEntity parentFolder = folderRepo.findById(parentId)
-                    .orElseThrow(() -> new RuntimeException("Parent folder not found with id: " + finalParentId));
+        List<Map<String, Object>> path = new ArrayList<>();
+        for (Long ancestorId : ancestorIds) {
+            FolderEntity folder = ancestors.get(ancestorId);
+            if (folder == null) {
+                throw new RuntimeException("Parent folder not found with id: " + ancestorId);
+            }
+            Map<String, Object> folderMap = new HashMap<>();
+            folderMap.put("id", folder.getId());
+            folderMap.put("name", folder.getFolderName());
+            path.add(folderMap);
+        }
+        return path;
+    }
 
-            Map<String, Object> parentFolderMap = new HashMap<>();
-            parentFolderMap.put("id", parentFolder.getId());
-            parentFolderMap.put("name", parentFolder.getFolderName());
-            path.add(0, parentFolderMap); // Add to the beginning of the list
+    // Every folder below folderId together with every file stored in them
+    public Map<String, Object> getSubtree(Long folderId) {
+        FolderEntity folder = folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+        List<FolderEntity> folders = folderRepo.findByAncestryPathStartingWith(folder.getAncestryPath()).stream()
+                .filter(subfolder -> !subfolder.getId().equals(folderId))
+                .toList();
+        Map<String, Object> subtree = new HashMap<>();
+        subtree.put("folders", folders);
+        subtree.put("files", fileRepo.findInSubtree(folder.getAncestryPath()));
+        return subtree;
+    }
 
-            parentId = parentFolder.getParentFolderId();
+    // Folders created before the ancestry path existed get theirs computed once at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillAncestryPaths() {
+        List<FolderEntity> missing = folderRepo.findByAncestryPathIsNull();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, FolderEntity> folders = folderRepo.findAll().stream()
+                .collect(Collectors.toMap(FolderEntity::getId, folder -> folder));
+        for (FolderEntity folder : missing) {
+            folder.setAncestryPath(computeAncestryPath(folder, folders));
         }
+        logger.info("Backfilled ancestry paths for {} folders", missing.size());
+    }
 
-        return path;
+    private String computeAncestryPath(FolderEntity folder, Map<Long, FolderEntity> folders) {
+        if (folder.getAncestryPath() != null) {
+            return folder.getAncestryPath();
+        }
+        FolderEntity parent = folder.getParentFolderId() != null ? folders.get(folder.getParentFolderId()) : null;
+        String parentPath = parent != null ? computeAncestryPath(parent, folders) : "/";
+        folder.setAncestryPath(parentPath + folder.getId() + "/");
+        return folder.getAncestryPath();
+    }
+
+    private List<Long> parseAncestryPath(String ancestryPath) {
+        return Arrays.stream(ancestryPath.split("/"))
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .toList();
     }
 
 
@@ -111,6 +198,9 @@ public class FileServiceStorage {
         try {
             // Delete the folder from the database
             folderRepo.delete(folder);
+            metadataCache.evictListing(folder.getParentFolderId());
+            metadataCache.evictListing(folderId);
+            eventPublisher.publishEvent(new FolderDeletedEvent(folderId, folder.getAncestryPath()));
             logger.info("Folder deleted successfully: {}", folderId);
         } catch (Exception e) {
             logger.error("Error deleting folder: {}", folderId, e);
@@ -118,111 +208,421 @@ public class FileServiceStorage {
         }
     }
 
-    // Helper method to recursively delete folder contents (if needed in the future)
+    // Recursive deletes run as folder jobs, one bounded slice of the subtree per call and transaction.
+    // Files go first through deleteFiles, then folders that have become empty.
+    public List<Long> findFileIdsInSubtree(String ancestryPath, int limit) {
+        return fileRepo.findIdsInSubtree(ancestryPath, PageRequest.of(0, limit));
+    }
+
+    @Transactional
+    public int deleteEmptyFolders(String ancestryPath, int limit) {
+        List<FolderEntity> folders = folderRepo.findEmptyInSubtree(ancestryPath, PageRequest.of(0, limit));
+        folderRepo.deleteAllInBatch(folders);
+        for (FolderEntity folder : folders) {
+            metadataCache.evictListing(folder.getParentFolderId());
+            metadataCache.evictListing(folder.getId());
+            eventPublisher.publishEvent(new FolderDeletedEvent(folder.getId(), folder.getAncestryPath()));
+        }
+        return folders.size();
+    }
+
+    // Files and folders a recursive delete of this subtree has to remove
+    public long countSubtreeItems(FolderEntity folder) {
+        return folder.getSubtreeFileCount() + folderRepo.countByAncestryPathStartingWith(folder.getAncestryPath());
+    }
+
+    // Renames the folder and/or re-parents it (targetParentId null with moveParent=true is the root).
+    // Files reference their folder by id, so only folder rows change: this one and, in a single
+    // statement, the ancestry paths below it. Usage totals move along with the subtree.
     @Transactional
-    public void deleteFolderRecursive(Long folderId) {
+    public FolderEntity moveFolder(Long folderId, boolean moveParent, Long targetParentId, String newName) {
         FolderEntity folder = folderRepo.findById(folderId)
                 .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+        if (newName != null) {
+            folder.setFolderName(validateFolderName(newName));
+        }
+        Long oldParentId = folder.getParentFolderId();
+        if (moveParent && !Objects.equals(targetParentId, oldParentId)) {
+            String targetAncestryPath = "/";
+            if (targetParentId != null) {
+                FolderEntity target = folderRepo.findById(targetParentId)
+                        .orElseThrow(() -> new IllegalArgumentException("Target folder not found with id: " + targetParentId));
+                if (target.getAncestryPath().startsWith(folder.getAncestryPath())) {
+                    throw new IllegalArgumentException("A folder cannot be moved into its own subtree");
+                }
+                targetAncestryPath = target.getAncestryPath();
+            }
+            String oldAncestryPath = folder.getAncestryPath();
+            String newAncestryPath = targetAncestryPath + folder.getId() + "/";
+            storageQuotaService.recordSubtreeMoved(folder, targetParentId);
+            folder.setParentFolderId(targetParentId);
+            folder.setAncestryPath(newAncestryPath);
+            int moved = folderRepo.moveSubtree(oldAncestryPath, newAncestryPath);
+            // Cached listings of the subtree hold the old ancestry paths
+            metadataCache.evictAll();
+            eventPublisher.publishEvent(new FolderMovedEvent(folderId, newAncestryPath));
+            logger.info("Folder {} moved from {} to {} ({} descendants)", folderId, oldParentId, targetParentId, moved);
+        } else {
+            metadataCache.evictListing(oldParentId);
+        }
+        return folder;
+    }
 
-        // Delete all files in the folder
-        List<FileEntity> files = fileRepo.findByParentFolderId(folderId);
-        for (FileEntity file : files) {
-            try {
-                // Delete physical file
-                Path filePath = Paths.get(uploadDir, file.getFileName());
-                Files.deleteIfExists(filePath);
-                // Delete file record
-                fileRepo.delete(file);
-            } catch (IOException e) {
-                logger.error("Error deleting file: {}", file.getFileName(), e);
+    // Not transactional: the bytes reach storage first, only the reference and the row share a transaction
+    public String saveFile(MultipartFile file, Long parentFolderId) {
+        InputStream in;
+        try {
+            in = file.getInputStream();
+        } catch (IOException e) {
+            throw new RuntimeException("File upload failed: " + e.getMessage(), e);
+        }
+        return recordUpload(writeUpload(file.getOriginalFilename(), in, file.getSize(), parentFolderId), parentFolderId);
+    }
+
+    // First half of a single upload: checks the parent and quota known so far (size is -1 while unknown),
+    // then streams the body through the inspector, which enforces the size limit, into the blob store. The
+    // client's Content-Type is ignored, the inspected head decides and the blob store hashes the same pass.
+    // Nothing is recorded yet.
+    public StreamedUpload writeUpload(String originalFilename, InputStream in, long size, Long parentFolderId) {
+        Timer.Sample sample = storageMetrics.start();
+        try (in) {
+            String fileName = validateUpload(originalFilename);
+            validateParentFolder(parentFolderId);
+            storageQuotaService.checkQuota(parentFolderId, Math.max(size, 0));
+            UploadInspector.InspectedStream content = UploadInspector.inspect(in, MAX_UPLOAD_SIZE);
+            BlobStore.StoredBlob blob = blobStore.write(content, content.contentType());
+            if (blob.size() == 0) {
+                throw new IllegalArgumentException("File is empty");
             }
+            storageMetrics.recordBytesWritten(StorageMetrics.MODE_MULTIPART, content.contentType(), blob.size());
+            return new StreamedUpload(fileName, content.contentType(), blob, sample);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("File upload failed for {}: {}", originalFilename, e.getMessage());
+            storageMetrics.recordUpload(sample, StorageMetrics.MODE_MULTIPART, null, Math.max(size, 0), e);
+            throw new RuntimeException("File upload failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            storageMetrics.recordUpload(sample, StorageMetrics.MODE_MULTIPART, null, Math.max(size, 0), e);
+            throw e;
         }
+    }
 
-        // Recursively delete subfolders
-        List<FolderEntity> subfolders = folderRepo.findByParentFolderId(folderId);
-        for (FolderEntity subfolder : subfolders) {
-            deleteFolderRecursive(subfolder.getId());
+    // Second half: the parent may only have become known after the file part, so it and the quota are
+    // checked again with the actual size. A rejected upload leaves an unreferenced blob to the reconciler.
+    public String recordUpload(StreamedUpload upload, Long parentFolderId) {
+        BlobStore.StoredBlob blob = upload.blob();
+        try {
+            validateParentFolder(parentFolderId);
+            storageQuotaService.checkQuota(parentFolderId, blob.size());
+            inTransaction(List.of(blob), () -> saveFileEntity(upload.fileName(), blob, upload.contentType(), parentFolderId));
+            storageMetrics.recordUpload(upload.sample(), StorageMetrics.MODE_MULTIPART, upload.contentType(), blob.size(), null);
+            return "File uploaded successfully: " + upload.fileName();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("File upload failed for {}: {}", upload.fileName(), e.getMessage());
+            storageMetrics.recordUpload(upload.sample(), StorageMetrics.MODE_MULTIPART, upload.contentType(), blob.size(), e);
+            throw new RuntimeException("File upload failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            storageMetrics.recordUpload(upload.sample(), StorageMetrics.MODE_MULTIPART, upload.contentType(), blob.size(), e);
+            throw e;
         }
+    }
 
-        // Delete the folder itself
-        folderRepo.delete(folder);
-        logger.info("Folder and its contents deleted successfully: {}", folderId);
+    public record StreamedUpload(String fileName, String contentType, BlobStore.StoredBlob blob, Timer.Sample sample) {
     }
 
+    // Hands a fully received staging file (chunked uploads) to the blob store and records it. The type
+    // is detected again from the assembled head, it is what gets stored whatever the session declared.
+    // The quota was only checked when the session opened, other uploads may have filled the folder since;
+    // a rejected completion keeps the staged bytes, so it can be retried once space is freed.
+    public String storeStagedFile(Path stagedFile, String fileName, String declaredType, Long parentFolderId) throws IOException {
+        Timer.Sample sample = storageMetrics.start();
+        long size = Files.size(stagedFile);
+        String contentType = declaredType;
+        try {
+            validateParentFolder(parentFolderId);
+            storageQuotaService.checkQuota(parentFolderId, size);
+            contentType = UploadInspector.inspect(stagedFile);
+            String storedType = contentType;
+            BlobStore.StoredBlob blob = blobStore.write(stagedFile, storedType);
+
+            inTransaction(List.of(blob), () -> saveFileEntity(fileName, blob, storedType, parentFolderId));
+            storageMetrics.recordUpload(sample, StorageMetrics.MODE_CHUNKED, contentType, size, null);
+            return "File uploaded successfully: " + fileName;
+        } catch (IOException | RuntimeException e) {
+            storageMetrics.recordUpload(sample, StorageMetrics.MODE_CHUNKED, contentType, size, e);
+            throw e;
+        }
+    }
 
+    // Returns the sanitized file name. The content type is checked later, from the bytes themselves.
+    public String validateUpload(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new IllegalArgumentException("File name is invalid");
+        }
+        String fileName = Paths.get(originalFilename).getFileName().toString();
+        if (fileName.isEmpty()) {
+            throw new IllegalArgumentException("File name is invalid");
+        }
+        return fileName;
+    }
 
+    // Uploads only need the parent to exist, where the bytes go does not depend on it
+    public void validateParentFolder(Long parentFolderId) {
+        if (parentFolderId != null && !folderRepo.existsById(parentFolderId)) {
+            throw new IllegalArgumentException("Parent folder not found");
+        }
+    }
 
-    public String saveFile(MultipartFile file, Long parentFolderId) {
-        try {
-            if (file.isEmpty()) {
-                throw new IllegalArgumentException("File is empty");
-            }
-            String fileName = Paths.get(file.getOriginalFilename()).getFileName().toString();
-            if (fileName == null || fileName.isEmpty()) {
-                throw new IllegalArgumentException("File name is invalid");
-            }
-            if (!ALLOWED_TYPES.contains(file.getContentType())) {
-                throw new IllegalArgumentException("Unsupported file type: " + file.getContentType());
-            }
-            if (file.getSize() > 10 * 1024 * 1024) {
-                throw new IllegalArgumentException("File size exceeds 10MB limit");
+    // Every part is streamed to the blob store first, then all references and rows go out in one
+    // transaction, the rows as one JDBC batch. Rejected parts are reported per item and do not fail the rest.
+    public List<BatchItemResult> saveFiles(List<MultipartFile> files, Long parentFolderId) {
+        validateParentFolder(parentFolderId);
+        storageQuotaService.checkQuota(parentFolderId, files.stream().mapToLong(MultipartFile::getSize).sum());
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<FileEntity> stored = new ArrayList<>();
+        List<BlobStore.StoredBlob> blobs = new ArrayList<>();
+        for (MultipartFile file : files) {
+            Timer.Sample sample = storageMetrics.start();
+            try {
+                if (file.isEmpty()) {
+                    throw new IllegalArgumentException("File is empty");
+                }
+                String fileName = validateUpload(file.getOriginalFilename());
+                if (file.getSize() > MAX_UPLOAD_SIZE) {
+                    throw new IllegalArgumentException("File size exceeds 10MB limit");
+                }
+                UploadInspector.InspectedStream content = UploadInspector.inspect(file.getInputStream(), MAX_UPLOAD_SIZE);
+                BlobStore.StoredBlob blob = blobStore.write(content, content.contentType());
+                blobs.add(blob);
+                stored.add(newFileEntity(fileName, blob, content.contentType(), parentFolderId));
+                results.add(null); // Filled in once the id is assigned
+                storageMetrics.recordUpload(sample, StorageMetrics.MODE_BATCH, content.contentType(), blob.size(), null);
+                storageMetrics.recordBytesWritten(StorageMetrics.MODE_BATCH, content.contentType(), blob.size());
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Batch upload failed for {}: {}", file.getOriginalFilename(), e.getMessage());
+                storageMetrics.recordUpload(sample, StorageMetrics.MODE_BATCH, file.getContentType(), file.getSize(), e);
+                results.add(BatchItemResult.failed(null, file.getOriginalFilename(), e.getMessage()));
             }
+        }
 
-            // Determine upload path based on parent folder
-            Path uploadPath = Paths.get(System.getProperty("user.dir"), uploadDir);
-            if (parentFolderId != null) {
-                FolderEntity parentFolder = folderRepo.findById(parentFolderId)
-                        .orElseThrow(() -> new IllegalArgumentException("Parent folder not found"));
-                uploadPath = Paths.get(parentFolder.getFolderPath());
+        try {
+            inTransaction(blobs, () -> {
+                fileRepo.saveAll(stored);
+                storageQuotaService.recordUsage(parentFolderId, stored.stream().mapToLong(FileEntity::getSize).sum(), stored.size());
+                stored.forEach(fileEntity -> eventPublisher.publishEvent(new FileStoredEvent(fileEntity)));
+                return stored;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Batch upload failed: " + e.getMessage(), e);
+        }
+        Iterator<FileEntity> saved = stored.iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                FileEntity fileEntity = saved.next();
+                results.set(i, BatchItemResult.ok(fileEntity.getId(), fileEntity.getFileName()));
             }
+        }
+        metadataCache.evictListing(parentFolderId);
+        logger.info("Batch upload stored {} of {} files", stored.size(), files.size());
+        return results;
+    }
 
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    // References the written blobs and records the rows in one transaction. Should it roll back, the blobs
+    // stay in storage without a reference and the reconciler removes them after its grace period.
+    private <T> T inTransaction(List<BlobStore.StoredBlob> blobs, Supplier<T> rows) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                for (BlobStore.StoredBlob blob : blobs) {
+                    try {
+                        blobStore.reference(blob);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return rows.get();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-            FileEntity fileEntity = new FileEntity();
-            fileEntity.setFileName(fileName);
-            fileEntity.setFilePath(filePath.toString());
-            fileEntity.setFileType(file.getContentType());
-            fileEntity.setSize(file.getSize());
-            fileEntity.setParentFolderId(parentFolderId);
-            fileEntity.setCreatedAt(LocalDateTime.now());
+    private FileEntity saveFileEntity(String fileName, BlobStore.StoredBlob blob, String contentType, Long parentFolderId) {
+        FileEntity fileEntity = newFileEntity(fileName, blob, contentType, parentFolderId);
+        fileRepo.save(fileEntity);
+        storageQuotaService.recordUsage(parentFolderId, fileEntity.getSize(), 1);
+        metadataCache.evictListing(parentFolderId);
+        eventPublisher.publishEvent(new FileStoredEvent(fileEntity));
+        logger.info("File uploaded: {}", fileName);
+        return fileEntity;
+    }
 
-            fileRepo.save(fileEntity);
-            logger.info("File uploaded: {}", fileName);
-            return "File uploaded successfully: " + fileName;
-        } catch (IOException | IllegalArgumentException e) {
-            logger.error("File upload failed for {}: {}", file.getOriginalFilename(), e.getMessage());
-            throw new RuntimeException("File upload failed: " + e.getMessage(), e);
-        }
+    private FileEntity newFileEntity(String fileName, BlobStore.StoredBlob blob, String contentType, Long parentFolderId) {
+        FileEntity fileEntity = new FileEntity();
+        fileEntity.setFileName(fileName);
+        fileEntity.setFilePath(blob.location());
+        fileEntity.setContentHash(blob.hash());
+        fileEntity.setContentEncoding(blob.contentEncoding());
+        fileEntity.setStoredSize(blob.storedSize());
+        fileEntity.setFileType(contentType);
+        fileEntity.setSize(blob.size());
+        fileEntity.setParentFolderId(parentFolderId);
+        fileEntity.setCreatedAt(LocalDateTime.now());
+        return fileEntity;
     }
 
     public List<FileEntity> getFilesByParentFolderId(Long parentFolderId) {
-        return parentFolderId == null
+        return metadataCache.getFiles(parentFolderId, () -> parentFolderId == null
                 ? fileRepo.findByParentFolderIdIsNull()
-                : fileRepo.findByParentFolderId(parentFolderId);
+                : fileRepo.findByParentFolderId(parentFolderId));
     }
 
     public List<FolderEntity> getFoldersByParentFolderId(Long parentFolderId) {
-        return parentFolderId == null
+        return metadataCache.getFolders(parentFolderId, () -> parentFolderId == null
                 ? folderRepo.findByParentFolderIdIsNull()
-                : folderRepo.findByParentFolderId(parentFolderId);
+                : folderRepo.findByParentFolderId(parentFolderId));
     }
 
     public FileEntity getFileById(Long fileId) {
-        return fileRepo.findById(fileId)
-                .orElseThrow(() -> new RuntimeException("File not found with id: " + fileId));
+        return metadataCache.getFile(fileId, () -> fileRepo.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found with id: " + fileId)));
     }
 
+    // Decoded content regardless of how and where the blob is stored
+    public InputStream openContent(FileEntity fileEntity) throws IOException {
+        InputStream in = fileEntity.getContentHash() != null
+                ? blobStore.open(fileEntity.getContentHash(), fileEntity.getContentEncoding())
+                : Files.newInputStream(Paths.get(fileEntity.getFilePath()));
+        if ("gzip".equals(fileEntity.getContentEncoding())) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    // A range of the bytes as stored, i.e. still encoded. Files stored before the blob store are local files.
+    public InputStream openStored(FileEntity fileEntity, long offset, long length) throws IOException {
+        if (fileEntity.getContentHash() != null) {
+            return blobStore.open(fileEntity.getContentHash(), fileEntity.getContentEncoding(), offset, length);
+        }
+        InputStream in = Files.newInputStream(Paths.get(fileEntity.getFilePath()));
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BoundedInputStream(in, length);
+    }
+
+    public Optional<StorageBackend.ObjectInfo> statContent(FileEntity fileEntity) throws IOException {
+        if (fileEntity.getContentHash() != null) {
+            return blobStore.stat(fileEntity.getContentHash(), fileEntity.getContentEncoding());
+        }
+        Path path = Paths.get(fileEntity.getFilePath());
+        if (!Files.isReadable(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StorageBackend.ObjectInfo(path.toString(), Files.size(path), Files.getLastModifiedTime(path).toInstant()));
+    }
+
+    // The stored bytes as a local file, empty when the storage backend is remote
+    public Optional<Path> localContent(FileEntity fileEntity) {
+        if (fileEntity.getContentHash() != null) {
+            return blobStore.localPath(fileEntity.getContentHash(), fileEntity.getContentEncoding());
+        }
+        return Optional.of(Paths.get(fileEntity.getFilePath()));
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = metadataCache.stats();
+        stats.put("fileContent", contentCache.stats());
+        return stats;
+    }
+
+    @Transactional
     public void deleteFile(Long id) {
         FileEntity fileEntity = getFileById(id);
-        Path filePath = Paths.get(fileEntity.getFilePath());
         try {
-            Files.deleteIfExists(filePath);
+            releaseContent(fileEntity);
         } catch (IOException e) {
-            logger.error("Failed to delete file {}: {}", filePath, e.getMessage());
+            logger.error("Failed to delete file {}: {}", fileEntity.getFilePath(), e.getMessage());
             throw new RuntimeException("Failed to delete file from disk", e);
         }
         fileRepo.deleteById(id);
+        storageQuotaService.recordUsage(fileEntity.getParentFolderId(), -fileEntity.getSize(), -1);
+        metadataCache.evictFile(id);
+        metadataCache.evictListing(fileEntity.getParentFolderId());
+        eventPublisher.publishEvent(new FileDeletedEvent(fileEntity));
         logger.info("File deleted: {}", fileEntity.getFileName());
     }
+
+    // One lookup and one delete statement for the whole batch, blob references released per distinct content
+    @Transactional
+    public List<BatchItemResult> deleteFiles(List<Long> ids) {
+        Map<Long, FileEntity> found = fileRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(FileEntity::getId, fileEntity -> fileEntity));
+        try {
+            Map<String, Long> references = found.values().stream()
+                    .filter(fileEntity -> fileEntity.getContentHash() != null)
+                    .collect(Collectors.groupingBy(FileEntity::getContentHash, Collectors.counting()));
+            for (Map.Entry<String, Long> entry : references.entrySet()) {
+                blobStore.release(entry.getKey(), entry.getValue());
+            }
+            for (FileEntity fileEntity : found.values()) {
+                if (fileEntity.getContentHash() == null) {
+                    deleteAfterCommit(Paths.get(fileEntity.getFilePath()));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Batch delete failed: {}", e.getMessage());
+            throw new RuntimeException("Failed to delete files from disk", e);
+        }
+        fileRepo.deleteAllByIdInBatch(found.keySet());
+        // HashMap rather than groupingBy, root-level files group under a null parent id
+        Map<Long, long[]> removedByParent = new HashMap<>();
+        for (FileEntity fileEntity : found.values()) {
+            long[] removed = removedByParent.computeIfAbsent(fileEntity.getParentFolderId(), parent -> new long[2]);
+            removed[0] += fileEntity.getSize();
+            removed[1]++;
+        }
+        removedByParent.forEach((parentFolderId, removed) ->
+                storageQuotaService.recordUsage(parentFolderId, -removed[0], -removed[1]));
+
+        List<BatchItemResult> results = new ArrayList<>();
+        for (Long id : ids) {
+            FileEntity fileEntity = found.get(id);
+            if (fileEntity == null) {
+                results.add(new BatchItemResult(id, null, BatchItemResult.NOT_FOUND, "File not found with id: " + id));
+                continue;
+            }
+            metadataCache.evictFile(id);
+            metadataCache.evictListing(fileEntity.getParentFolderId());
+            eventPublisher.publishEvent(new FileDeletedEvent(fileEntity));
+            results.add(BatchItemResult.ok(id, fileEntity.getFileName()));
+        }
+        logger.info("Batch delete removed {} of {} files", found.size(), ids.size());
+        return results;
+    }
+
+    // Blob-backed files drop a reference, files stored before the blob store are removed directly
+    private void releaseContent(FileEntity fileEntity) throws IOException {
+        if (fileEntity.getContentHash() != null) {
+            blobStore.release(fileEntity.getContentHash());
+        } else {
+            deleteAfterCommit(Paths.get(fileEntity.getFilePath()));
+        }
+    }
+
+    // A rolled back delete must still find its file, so it only goes once the row deletion committed
+    private void deleteAfterCommit(Path path) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete {}: {}", path, e.getMessage());
+                }
+            }
+        });
+    }
 }
\ No newline at end of file
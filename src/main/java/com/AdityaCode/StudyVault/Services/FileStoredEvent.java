@@ -0,0 +1,7 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+
+// Published by FileServiceStorage once a file row has been written, consumed after commit
+public record FileStoredEvent(FileEntity file) {
+}
@@ -0,0 +1,120 @@
+package com.AdityaCode.StudyVault.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Objects are files under <blob-dir>, keys map one to one onto relative paths. Staging files live on the
+// same file system, so put is an atomic rename followed by a directory sync.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemStorageBackend implements StorageBackend {
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemStorageBackend.class);
+
+    @Value("${file.blob-dir}")
+    private String blobDir;
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.getParent());
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new ObjectInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<ObjectInfo> consumer) throws IOException {
+        Path root = root();
+        Path directory = resolve(prefix);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                String key = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    consumer.accept(new ObjectInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                } catch (NoSuchFileException e) {
+                    // Reclaimed while walking
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public String location(String key) {
+        return resolve(key).toString();
+    }
+
+    private Path root() {
+        return Paths.get(System.getProperty("user.dir"), blobDir);
+    }
+
+    private Path resolve(String key) {
+        return root().resolve(key);
+    }
+
+    // Makes the rename itself durable. Not every platform can open a directory for this, which is fine.
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory sync not supported for {}: {}", directory, e.getMessage());
+        }
+    }
+}
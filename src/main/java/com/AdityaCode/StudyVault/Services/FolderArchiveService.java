@@ -0,0 +1,187 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Streams a folder subtree as a ZIP straight onto the response. Only the metadata is loaded up front;
+// file bodies are copied one at a time, so neither the heap nor a temp file ever holds the archive.
+@Service
+public class FolderArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(FolderArchiveService.class);
+    // Deflating these again costs CPU and gains next to nothing
+    private static final Set<String> STORED_TYPES = Set.of("image/png", "image/jpeg", "application/pdf");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileRepo fileRepo;
+    private final FolderRepo folderRepo;
+    private final FileServiceStorage fileServiceStorage;
+
+    public FolderArchiveService(FileRepo fileRepo, FolderRepo folderRepo, FileServiceStorage fileServiceStorage) {
+        this.fileRepo = fileRepo;
+        this.folderRepo = folderRepo;
+        this.fileServiceStorage = fileServiceStorage;
+    }
+
+    // Resolves every entry name before the first byte is written, so lookups never interleave with streaming
+    public FolderArchive prepare(Long folderId) {
+        FolderEntity root = folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+
+        List<FolderEntity> folders = new ArrayList<>(folderRepo.findByAncestryPathStartingWith(root.getAncestryPath()));
+        // Parents sort before their children since their ancestry path is a prefix
+        folders.sort(Comparator.comparing(FolderEntity::getAncestryPath));
+        Map<Long, String> folderPaths = new HashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        List<ArchiveEntry> entries = new ArrayList<>();
+        for (FolderEntity folder : folders) {
+            String parentPath = folder.getId().equals(folderId) ? "" : folderPaths.get(folder.getParentFolderId());
+            if (parentPath == null) {
+                continue; // Orphaned row, its parent is not part of the subtree
+            }
+            String path = uniqueName(parentPath, sanitize(folder.getFolderName()), usedNames) + "/";
+            folderPaths.put(folder.getId(), path);
+            entries.add(new ArchiveEntry(path, null));
+        }
+        List<FileEntity> files = new ArrayList<>(fileRepo.findInSubtree(root.getAncestryPath()));
+        files.sort(Comparator.comparing(FileEntity::getId));
+        for (FileEntity file : files) {
+            String parentPath = folderPaths.get(file.getParentFolderId());
+            if (parentPath != null) {
+                entries.add(new ArchiveEntry(uniqueName(parentPath, sanitize(file.getFileName()), usedNames), file));
+            }
+        }
+        return new FolderArchive(sanitize(root.getFolderName()) + ".zip", entries);
+    }
+
+    public void write(FolderArchive archive, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (ArchiveEntry entry : archive.entries()) {
+            FileEntity file = entry.file();
+            ZipEntry zipEntry = new ZipEntry(entry.name());
+            if (file == null) {
+                zip.putNextEntry(zipEntry);
+                zip.closeEntry();
+                continue;
+            }
+            if (file.getCreatedAt() != null) {
+                zipEntry.setTimeLocal(file.getCreatedAt());
+            }
+            InputStream in;
+            try {
+                if (STORED_TYPES.contains(file.getFileType())) {
+                    // STORED entries carry size and CRC in the local header, ahead of the data
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(file.getSize());
+                    zipEntry.setCompressedSize(file.getSize());
+                    zipEntry.setCrc(crc(file));
+                }
+                in = fileServiceStorage.openContent(file);
+            } catch (NoSuchFileException e) {
+                // Headers are already committed, so a missing blob can only be left out
+                logger.warn("Skipping file {} in archive, content missing: {}", file.getId(), e.getMessage());
+                continue;
+            }
+            try (in) {
+                zip.putNextEntry(zipEntry);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    // gzip blobs record the CRC-32 of the decoded bytes in their trailer, anything else needs one read pass
+    private long crc(FileEntity file) throws IOException {
+        Optional<Path> local = fileServiceStorage.localContent(file);
+        if (local.isEmpty()) {
+            return remoteCrc(file);
+        }
+        try (FileChannel channel = FileChannel.open(local.get(), StandardOpenOption.READ)) {
+            if ("gzip".equals(file.getContentEncoding())) {
+                ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(trailer, channel.size() - 8);
+                return Integer.toUnsignedLong(trailer.getInt(0));
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            return crc.getValue();
+        }
+    }
+
+    // Remote blobs: the gzip trailer is a ranged read of its last 8 bytes
+    private long remoteCrc(FileEntity file) throws IOException {
+        if ("gzip".equals(file.getContentEncoding()) && file.getStoredSize() != null) {
+            try (InputStream in = fileServiceStorage.openStored(file, file.getStoredSize() - 8, 8)) {
+                return Integer.toUnsignedLong(ByteBuffer.wrap(in.readNBytes(8)).order(ByteOrder.LITTLE_ENDIAN).getInt(0));
+            }
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = fileServiceStorage.openContent(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private String uniqueName(String parentPath, String name, Set<String> usedNames) {
+        String candidate = parentPath + name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; !usedNames.add(candidate); i++) {
+            candidate = parentPath + base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+
+    private String sanitize(String name) {
+        String cleaned = name == null ? "" : name.replaceAll("[/\\\\\\x00-\\x1f]", "_").trim();
+        return cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..") ? "_" : cleaned;
+    }
+
+    // file is null for directory entries
+    public record ArchiveEntry(String name, FileEntity file) {
+    }
+
+    public record FolderArchive(String fileName, List<ArchiveEntry> entries) {
+    }
+}
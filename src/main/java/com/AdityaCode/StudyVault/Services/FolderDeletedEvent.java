@@ -0,0 +1,5 @@
+package com.AdityaCode.StudyVault.Services;
+
+// Covers the folder and, for recursive deletes, everything below it
+public record FolderDeletedEvent(Long folderId, String ancestryPath) {
+}
@@ -0,0 +1,271 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Entity.FolderJobEntity;
+import com.AdityaCode.StudyVault.Repository.FolderJobRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Recursive folder deletes and moves, run on a small worker pool and tracked in folder_jobs so clients poll
+// progress instead of holding a request open. Deletes work through the subtree in bounded batches, each its
+// own transaction, so locks stay short and a crash or cancel leaves a consistent, smaller subtree behind.
+@Service
+public class FolderJobService {
+    private static final Logger logger = LoggerFactory.getLogger(FolderJobService.class);
+    private static final List<String> ACTIVE = List.of(FolderJobEntity.QUEUED, FolderJobEntity.RUNNING);
+    private static final List<String> FINISHED = List.of(FolderJobEntity.COMPLETED, FolderJobEntity.FAILED, FolderJobEntity.CANCELLED);
+
+    @Value("${folder-jobs.workers}")
+    private int workers;
+
+    @Value("${folder-jobs.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${folder-jobs.batch-size}")
+    private int batchSize;
+
+    @Value("${folder-jobs.retention}")
+    private Duration retention;
+
+    private final FolderJobRepo folderJobRepo;
+    private final FolderRepo folderRepo;
+    private final FileServiceStorage fileServiceStorage;
+
+    private ThreadPoolExecutor worker;
+
+    public FolderJobService(FolderJobRepo folderJobRepo, FolderRepo folderRepo, FileServiceStorage fileServiceStorage) {
+        this.folderJobRepo = folderJobRepo;
+        this.folderRepo = folderRepo;
+        this.fileServiceStorage = fileServiceStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        worker = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "folder-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Running jobs stop between batches and are picked up again on the next start
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public synchronized FolderJobEntity submitDelete(Long folderId) {
+        FolderEntity folder = findFolder(folderId);
+        FolderJobEntity job = new FolderJobEntity(UUID.randomUUID().toString(), FolderJobEntity.DELETE, folderId,
+                fileServiceStorage.countSubtreeItems(folder));
+        return enqueue(job);
+    }
+
+    // Moves are validated up front so obvious mistakes fail the request rather than the job
+    public synchronized FolderJobEntity submitMove(Long folderId, Long targetParentId, boolean moveToRoot, String newName) {
+        FolderEntity folder = findFolder(folderId);
+        if (targetParentId == null && !moveToRoot && newName == null) {
+            throw new IllegalArgumentException("Nothing to do, give a target folder, toRoot or a new name");
+        }
+        if (newName != null) {
+            fileServiceStorage.validateFolderName(newName);
+        }
+        if (targetParentId != null) {
+            FolderEntity target = folderRepo.findById(targetParentId)
+                    .orElseThrow(() -> new IllegalArgumentException("Target folder not found with id: " + targetParentId));
+            if (target.getAncestryPath().startsWith(folder.getAncestryPath())) {
+                throw new IllegalArgumentException("A folder cannot be moved into its own subtree");
+            }
+        }
+        FolderJobEntity job = new FolderJobEntity(UUID.randomUUID().toString(), FolderJobEntity.MOVE, folderId,
+                folderRepo.countByAncestryPathStartingWith(folder.getAncestryPath()));
+        job.setTargetParentId(targetParentId);
+        job.setMoveToRoot(moveToRoot && targetParentId == null);
+        job.setNewName(newName);
+        return enqueue(job);
+    }
+
+    public FolderJobEntity getJob(String jobId) {
+        return folderJobRepo.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found: " + jobId));
+    }
+
+    // Deletes stop at the next batch boundary, what is already gone stays gone. A move is a single
+    // transaction and can only be cancelled while it waits in the queue.
+    public FolderJobEntity cancel(String jobId) {
+        FolderJobEntity job = getJob(jobId);
+        if (folderJobRepo.requestCancel(jobId, ACTIVE, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Job " + jobId + " already " + job.getStatus());
+        }
+        return getJob(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        List<FolderJobEntity> jobs = folderJobRepo.findByStatusIn(ACTIVE);
+        for (FolderJobEntity job : jobs) {
+            schedule(job);
+        }
+        if (!jobs.isEmpty()) {
+            logger.info("Resumed {} folder jobs", jobs.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${folder-jobs.cleanup-interval}")
+    public void purgeFinishedJobs() {
+        List<FolderJobEntity> finished = folderJobRepo.findByStatusInAndUpdatedAtBefore(FINISHED, LocalDateTime.now().minus(retention));
+        folderJobRepo.deleteAllInBatch(finished);
+        if (!finished.isEmpty()) {
+            logger.info("Purged {} finished folder jobs", finished.size());
+        }
+    }
+
+    private FolderEntity findFolder(Long folderId) {
+        if (folderId == null) {
+            throw new IllegalArgumentException("Folder id is required");
+        }
+        return folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+    }
+
+    // One active job per subtree: a delete racing a move anywhere above or below it would chase moving rows,
+    // and a move into a subtree that is being deleted would be deleted along with it
+    private FolderJobEntity enqueue(FolderJobEntity job) {
+        List<FolderJobEntity> active = folderJobRepo.findByStatusIn(ACTIVE);
+        if (!active.isEmpty()) {
+            Set<Long> folderIds = new HashSet<>();
+            folderIds.add(job.getFolderId());
+            folderIds.add(job.getTargetParentId());
+            active.forEach(other -> {
+                folderIds.add(other.getFolderId());
+                folderIds.add(other.getTargetParentId());
+            });
+            folderIds.remove(null);
+            Map<Long, String> paths = folderRepo.findAllById(folderIds).stream()
+                    .collect(Collectors.toMap(FolderEntity::getId, FolderEntity::getAncestryPath));
+            for (FolderJobEntity other : active) {
+                if (conflicts(job, other, paths)) {
+                    throw new IllegalStateException("Folder " + job.getFolderId() + " overlaps folder " + other.getFolderId()
+                            + ", which has a job in progress");
+                }
+            }
+        }
+        folderJobRepo.save(job);
+        schedule(job);
+        logger.info("Queued {} job {} for folder {}", job.getType(), job.getId(), job.getFolderId());
+        return job;
+    }
+
+    private static boolean conflicts(FolderJobEntity job, FolderJobEntity other, Map<Long, String> paths) {
+        String subtree = paths.get(job.getFolderId());
+        String otherSubtree = paths.get(other.getFolderId());
+        if (subtree == null || otherSubtree == null) {
+            return false; // The other job's folder is already gone
+        }
+        return subtree.startsWith(otherSubtree) || otherSubtree.startsWith(subtree)
+                || within(paths.get(job.getTargetParentId()), otherSubtree)
+                || within(paths.get(other.getTargetParentId()), subtree);
+    }
+
+    private static boolean within(String path, String subtree) {
+        return path != null && path.startsWith(subtree);
+    }
+
+    private void schedule(FolderJobEntity job) {
+        try {
+            worker.execute(() -> run(job.getId()));
+        } catch (RejectedExecutionException e) {
+            folderJobRepo.updateStatus(job.getId(), FolderJobEntity.FAILED, "Job queue is full", LocalDateTime.now());
+            job.setStatus(FolderJobEntity.FAILED);
+            job.setError("Job queue is full");
+            logger.warn("Folder job {} rejected, queue is full", job.getId());
+        }
+    }
+
+    private void run(String jobId) {
+        FolderJobEntity job = folderJobRepo.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(job.getCancelRequested())) {
+            folderJobRepo.updateStatus(jobId, FolderJobEntity.CANCELLED, null, LocalDateTime.now());
+            return;
+        }
+        folderJobRepo.updateStatus(jobId, FolderJobEntity.RUNNING, null, LocalDateTime.now());
+        try {
+            boolean completed = FolderJobEntity.DELETE.equals(job.getType()) ? runDelete(job) : runMove(job);
+            folderJobRepo.updateStatus(jobId, completed ? FolderJobEntity.COMPLETED : FolderJobEntity.CANCELLED,
+                    null, LocalDateTime.now());
+            logger.info("Folder job {} {}", jobId, completed ? "completed" : "cancelled");
+        } catch (RuntimeException e) {
+            String error = e.getMessage() != null && e.getMessage().length() > 1000 ? e.getMessage().substring(0, 1000) : e.getMessage();
+            folderJobRepo.updateStatus(jobId, FolderJobEntity.FAILED, error, LocalDateTime.now());
+            logger.error("Folder job {} failed: {}", jobId, e.getMessage(), e);
+        }
+    }
+
+    // Files first, in batches through the regular batch delete so blobs, usage and the index follow along,
+    // then the folders that became empty, deepest first by construction. The path is read again for every
+    // batch, so a subtree that was moved meanwhile is still deleted where it is now.
+    private boolean runDelete(FolderJobEntity job) {
+        long processed = job.getProcessedItems();
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted by shutdown");
+            }
+            if (folderJobRepo.isCancelRequested(job.getId())) {
+                return false;
+            }
+            FolderEntity folder = folderRepo.findById(job.getFolderId()).orElse(null);
+            if (folder == null) {
+                // Already gone, e.g. the last batch committed just before a restart
+                return true;
+            }
+            String ancestryPath = folder.getAncestryPath();
+            int removed;
+            List<Long> fileIds = fileServiceStorage.findFileIdsInSubtree(ancestryPath, batchSize);
+            if (!fileIds.isEmpty()) {
+                fileServiceStorage.deleteFiles(fileIds);
+                removed = fileIds.size();
+            } else {
+                removed = fileServiceStorage.deleteEmptyFolders(ancestryPath, batchSize);
+            }
+            if (removed == 0) {
+                return true;
+            }
+            processed += removed;
+            folderJobRepo.updateProgress(job.getId(), processed, LocalDateTime.now());
+        }
+    }
+
+    private boolean runMove(FolderJobEntity job) {
+        boolean moveParent = job.getTargetParentId() != null || Boolean.TRUE.equals(job.getMoveToRoot());
+        fileServiceStorage.moveFolder(job.getFolderId(), moveParent, job.getTargetParentId(), job.getNewName());
+        folderJobRepo.updateProgress(job.getId(), job.getTotalItems(), LocalDateTime.now());
+        return true;
+    }
+}
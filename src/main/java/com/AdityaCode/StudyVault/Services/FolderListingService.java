@@ -0,0 +1,134 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Dto.ListingItem;
+import com.AdityaCode.StudyVault.Dto.ListingPage;
+import com.AdityaCode.StudyVault.Repository.ListingRepo;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+// Paged folder listings: subfolders first (always by name), then files by the requested sort.
+// The cursor carries the phase plus the last row's sort value and id, so pages stay stable under inserts.
+// Rows without a sort value (e.g. files from before createdAt was recorded) sort first ascending, as in MySQL.
+@Service
+public class FolderListingService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final Map<String, String> FILE_SORT_COLUMNS = Map.of(
+            "name", "fileName",
+            "size", "size",
+            "createdAt", "createdAt",
+            "type", "fileType"
+    );
+
+    private final ListingRepo listingRepo;
+
+    public FolderListingService(ListingRepo listingRepo) {
+        this.listingRepo = listingRepo;
+    }
+
+    public ListingPage listPage(Long parentFolderId, String sort, String direction, String cursor, int limit) {
+        String sortColumn = FILE_SORT_COLUMNS.get(sort);
+        if (sortColumn == null) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        if (!"asc".equalsIgnoreCase(direction) && !"desc".equalsIgnoreCase(direction)) {
+            throw new IllegalArgumentException("Unsupported direction: " + direction);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        Cursor after = cursor == null || cursor.isEmpty() ? null : Cursor.decode(cursor);
+
+        List<ListingItem> items = new ArrayList<>();
+        if (after == null || after.kind().equals(ListingItem.FOLDER)) {
+            // Fetch one extra row to know whether another page exists
+            List<ListingItem> folders = listingRepo.findFolders(parentFolderId, descending,
+                    after != null ? after.value() : null, after != null ? after.id() : null, limit + 1);
+            if (folders.size() > limit) {
+                items.addAll(folders.subList(0, limit));
+                return new ListingPage(items, Cursor.of(items.get(limit - 1), sort).encode());
+            }
+            items.addAll(folders);
+            after = null;
+        }
+
+        int remaining = limit - items.size();
+        if (remaining == 0) {
+            // Page ends exactly at the last folder, continue with files next time
+            return new ListingPage(items, new Cursor(ListingItem.FILE, null, null).encode());
+        }
+        Object afterValue = after != null && after.id() != null ? parseValue(sort, after.value()) : null;
+        List<ListingItem> files = listingRepo.findFiles(parentFolderId, sortColumn, descending, afterValue,
+                after != null ? after.id() : null, remaining + 1);
+        if (files.size() > remaining) {
+            items.addAll(files.subList(0, remaining));
+            return new ListingPage(items, Cursor.of(items.get(items.size() - 1), sort).encode());
+        }
+        items.addAll(files);
+        return new ListingPage(items, null);
+    }
+
+    // A cursor from another sort, or a tampered one, is a bad request rather than a failed query
+    private Object parseValue(String sort, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return switch (sort) {
+                case "size" -> Long.valueOf(value);
+                case "createdAt" -> LocalDateTime.parse(value);
+                default -> value;
+            };
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(String kind, String value, Long id) {
+
+        static Cursor of(ListingItem item, String sort) {
+            if (item.kind().equals(ListingItem.FOLDER)) {
+                return new Cursor(ListingItem.FOLDER, item.name(), item.id());
+            }
+            Object value = switch (sort) {
+                case "size" -> item.size();
+                case "createdAt" -> item.createdAt();
+                case "type" -> item.type();
+                default -> item.name();
+            };
+            return new Cursor(ListingItem.FILE, value != null ? value.toString() : null, item.id());
+        }
+
+        // kind:id:n for a null sort value, otherwise kind:id:v:value. The value goes last because names may
+        // contain the separator.
+        String encode() {
+            String raw = kind + ":" + (id != null ? id : "") + (value != null ? ":v:" + value : ":n");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 4);
+                boolean kindValid = parts[0].equals(ListingItem.FOLDER) || parts[0].equals(ListingItem.FILE);
+                boolean nullValue = parts.length == 3 && parts[2].equals("n");
+                if (!kindValid || !(nullValue || (parts.length == 4 && parts[2].equals("v")))) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                Long id = parts[1].isEmpty() ? null : Long.valueOf(parts[1]);
+                return new Cursor(parts[0], nullValue ? null : parts[3], id);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.AdityaCode.StudyVault.Services;
+
+// ancestryPath is the folder's new path, everything below it moved along
+public record FolderMovedEvent(Long folderId, String ancestryPath) {
+}
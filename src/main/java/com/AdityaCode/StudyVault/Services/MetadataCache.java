@@ -0,0 +1,175 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Read-through cache for folder listings and file lookups. Listings are keyed by parent folder
+// and weighed by their length, so one huge folder cannot push every other entry out.
+@Component
+public class MetadataCache {
+
+    private static final long ROOT_KEY = -1L; // parentFolderId is null for the root listing
+
+    private final AsyncCache<Long, List<FileEntity>> filesByFolder;
+    private final AsyncCache<Long, List<FolderEntity>> foldersByFolder;
+    private final AsyncCache<Long, FileEntity> filesById;
+    private final AsyncCache<String, ResolvedShare> sharesByToken;
+
+    // Loads run on the calling thread, inside its transaction and persistence context, in both thread
+    // modes. On a virtual thread that pins the carrier for the length of the query; the connection pool
+    // bounds how many can do so. Concurrent misses for one key share a single load.
+    public MetadataCache(@Value("${file.cache.max-entries}") long maxEntries,
+                         @Value("${file.cache.ttl}") Duration ttl,
+                         @Value("${share.cache.max-entries}") long maxShares,
+                         MeterRegistry meterRegistry) {
+        this.filesByFolder = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .<Long, List<FileEntity>>weigher((key, files) -> files.size() + 1)
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        this.foldersByFolder = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .<Long, List<FolderEntity>>weigher((key, folders) -> folders.size() + 1)
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        this.filesById = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        // Each token lives at most the configured TTL and never past its link's expiry date
+        this.sharesByToken = Caffeine.newBuilder()
+                .maximumSize(maxShares)
+                .expireAfter(Expiry.<String, ResolvedShare>writing((token, share) -> {
+                    Duration untilExpiry = Duration.between(LocalDateTime.now(), share.link().getExpiryDate());
+                    if (untilExpiry.isNegative()) {
+                        return Duration.ZERO;
+                    }
+                    return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+                }))
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+
+        // Same names as the /cache/stats sections, exported as cache.gets / cache.evictions / cache.size
+        CaffeineCacheMetrics.monitor(meterRegistry, filesByFolder, "fileListings");
+        CaffeineCacheMetrics.monitor(meterRegistry, foldersByFolder, "folderListings");
+        CaffeineCacheMetrics.monitor(meterRegistry, filesById, "files");
+        CaffeineCacheMetrics.monitor(meterRegistry, sharesByToken, "shareLinks");
+    }
+
+    public List<FileEntity> getFiles(Long parentFolderId, Supplier<List<FileEntity>> loader) {
+        return join(filesByFolder.get(key(parentFolderId), k -> List.copyOf(loader.get())));
+    }
+
+    public List<FolderEntity> getFolders(Long parentFolderId, Supplier<List<FolderEntity>> loader) {
+        return join(foldersByFolder.get(key(parentFolderId), k -> List.copyOf(loader.get())));
+    }
+
+    public FileEntity getFile(Long fileId, Supplier<FileEntity> loader) {
+        return join(filesById.get(fileId, k -> loader.get()));
+    }
+
+    // Returns null (and caches nothing) when the loader finds no link for the token
+    public ResolvedShare getShare(String token, Supplier<ResolvedShare> loader) {
+        return join(sharesByToken.get(token, k -> loader.get()));
+    }
+
+    public void evictListing(Long parentFolderId) {
+        Long key = key(parentFolderId);
+        evict(() -> {
+            filesByFolder.synchronous().invalidate(key);
+            foldersByFolder.synchronous().invalidate(key);
+        });
+    }
+
+    public void evictFile(Long fileId) {
+        evict(() -> {
+            filesById.synchronous().invalidate(fileId);
+            sharesByToken.synchronous().asMap().values().removeIf(share -> share.file().getId().equals(fileId));
+        });
+    }
+
+    public void evictAll() {
+        evict(() -> {
+            filesByFolder.synchronous().invalidateAll();
+            foldersByFolder.synchronous().invalidateAll();
+            filesById.synchronous().invalidateAll();
+            sharesByToken.synchronous().invalidateAll();
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fileListings", describe(filesByFolder.synchronous()));
+        stats.put("folderListings", describe(foldersByFolder.synchronous()));
+        stats.put("files", describe(filesById.synchronous()));
+        stats.put("shareLinks", describe(sharesByToken.synchronous()));
+        return stats;
+    }
+
+    // Evict now and again after commit, so a reader racing the transaction cannot re-cache stale rows
+    private void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // Unwraps the load so callers see the loader's own RuntimeException, as with a synchronous cache
+    private <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", cache.estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        return description;
+    }
+
+    private Long key(Long parentFolderId) {
+        return parentFolderId == null ? ROOT_KEY : parentFolderId;
+    }
+}
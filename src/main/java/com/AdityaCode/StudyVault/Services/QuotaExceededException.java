@@ -0,0 +1,8 @@
+package com.AdityaCode.StudyVault.Services;
+
+// Thrown before an upload writes anything when it would push a folder subtree or the vault past its quota
+public class QuotaExceededException extends IllegalStateException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.ShareLinkEntity;
+
+// A share token that has been looked up together with the file it points at
+public record ResolvedShare(ShareLinkEntity link, FileEntity file) {
+}
@@ -0,0 +1,220 @@
+package com.AdityaCode.StudyVault.Services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Objects in one bucket of an S3-compatible store (AWS, MinIO, ...), so several application nodes can
+// share the same blobs. Files above the part size are sent as a multipart upload, each part streamed
+// from its slice of the staging file, and reads ask for byte ranges instead of whole objects.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageBackend.class);
+    private static final int NOT_FOUND = 404;
+    private static final long MIN_PART_SIZE = 5 * 1024 * 1024; // S3 rejects smaller parts except the last
+
+    private final S3Client client;
+    private final String bucket;
+    private final long partSize;
+
+    public S3StorageBackend(@Value("${storage.s3.endpoint}") String endpoint,
+                            @Value("${storage.s3.region}") String region,
+                            @Value("${storage.s3.bucket}") String bucket,
+                            @Value("${storage.s3.access-key}") String accessKey,
+                            @Value("${storage.s3.secret-key}") String secretKey,
+                            @Value("${storage.s3.path-style}") boolean pathStyle,
+                            @Value("${storage.s3.part-size}") DataSize partSize) {
+        if (partSize.toBytes() < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("storage.s3.part-size must be at least 5MB");
+        }
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle)
+                // Not every S3-compatible store understands the newer default checksum headers
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        // Without explicit keys the default chain applies (environment, profile, instance role)
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+        this.client = builder.build();
+        this.bucket = bucket;
+        this.partSize = partSize.toBytes();
+    }
+
+    @PreDestroy
+    public void close() {
+        client.close();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        try {
+            if (size <= partSize) {
+                client.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size);
+            }
+        } catch (SdkException | UncheckedIOException e) {
+            throw new IOException("Failed to upload " + key + ": " + e.getMessage(), e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private void putMultipart(String key, Path source, long size) {
+        String uploadId = client.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long start = offset;
+                long length = Math.min(partSize, size - offset);
+                int number = partNumber;
+                // A provider rather than one stream, so the SDK can reopen the slice when it retries a part
+                RequestBody body = RequestBody.fromContentProvider(() -> slice(source, start, length), length, "application/octet-stream");
+                String etag = client.uploadPart(request -> request.bucket(bucket).key(key)
+                        .uploadId(uploadId).partNumber(number).contentLength(length), body).eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(etag).build());
+            }
+            client.completeMultipartUpload(request -> request.bucket(bucket).key(key)
+                    .uploadId(uploadId).multipartUpload(upload -> upload.parts(parts)));
+        } catch (SdkException | UncheckedIOException e) {
+            try {
+                client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortError) {
+                logger.warn("Failed to abort multipart upload of {}: {}", key, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static InputStream slice(Path source, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key)
+                    .range("bytes=" + offset + "-" + (offset + length - 1)));
+        } catch (SdkException e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // Deletes succeed whether or not the key exists, the lookup tells the two apart
+        if (stat(key).isEmpty()) {
+            return false;
+        }
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+            return true;
+        } catch (SdkException e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new ObjectInfo(key, head.contentLength(), head.lastModified()));
+        } catch (SdkException e) {
+            if (isNotFound(e)) {
+                return Optional.empty();
+            }
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<ObjectInfo> consumer) throws IOException {
+        try {
+            client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                    .contents()
+                    .forEach(object -> consumer.accept(new ObjectInfo(object.key(), object.size(), object.lastModified())));
+        } catch (SdkException e) {
+            throw translate(prefix, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public String location(String key) {
+        return "s3://" + bucket + "/" + key;
+    }
+
+    private static boolean isNotFound(SdkException e) {
+        return e instanceof NoSuchKeyException || (e instanceof S3Exception s3 && s3.statusCode() == NOT_FOUND);
+    }
+
+    private static IOException translate(String key, SdkException e) {
+        if (isNotFound(e)) {
+            NoSuchFileException missing = new NoSuchFileException(key);
+            missing.initCause(e);
+            return missing;
+        }
+        return new IOException("Object store request for " + key + " failed: " + e.getMessage(), e);
+    }
+}
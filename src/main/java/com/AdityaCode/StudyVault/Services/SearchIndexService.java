@@ -0,0 +1,387 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Dto.SearchHit;
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Embedded Lucene index over file names and extracted text. Writes are applied after commit on a single
+// indexer thread; searches read through a near-real-time SearcherManager and never touch the database.
+@Service
+public class SearchIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_FOLDER = "folder"; // one term per ancestor folder, for subtree filters
+    private static final String FIELD_FILE_NAME = "fileName";
+    private static final String FIELD_FILE_TYPE = "fileType";
+    private static final String FIELD_PARENT = "parentFolderId";
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(FIELD_NAME, 3.0f, FIELD_CONTENT, 1.0f);
+    public static final int MAX_RESULTS = 100;
+
+    @Value("${search.index-dir}")
+    private String indexDir;
+
+    @Value("${search.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${search.max-content-chars}")
+    private int maxContentChars;
+
+    @Value("${search.max-pdf-pages}")
+    private int maxPdfPages;
+
+    private final FileRepo fileRepo;
+    private final FolderRepo folderRepo;
+    private final FileServiceStorage fileServiceStorage;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private FSDirectory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private ThreadPoolExecutor indexer;
+    private final AtomicBoolean stale = new AtomicBoolean(); // updates were dropped since the last rebuild
+
+    public SearchIndexService(FileRepo fileRepo, FolderRepo folderRepo, FileServiceStorage fileServiceStorage) {
+        this.fileRepo = fileRepo;
+        this.folderRepo = folderRepo;
+        this.fileServiceStorage = fileServiceStorage;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path indexPath = Paths.get(System.getProperty("user.dir"), indexDir);
+        Files.createDirectories(indexPath);
+        directory = FSDirectory.open(indexPath);
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(indexWriter, null);
+        // Bounded queue, once full updates are dropped rather than run on the publishing (request) thread,
+        // and the index is marked stale for the next catch-up to rebuild
+        indexer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-indexer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> {
+                    if (stale.compareAndSet(false, true)) {
+                        logger.warn("Search indexer queue full, dropping updates until the next catch-up rebuild");
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        indexer.shutdown();
+        if (!indexer.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Search indexer did not drain before shutdown");
+        }
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    // An empty index next to a populated files table means the index is new or was wiped
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (indexWriter.getDocStats().numDocs == 0 && fileRepo.count() > 0) {
+            indexer.execute(this::rebuild);
+        }
+    }
+
+    // A rebuild rejected in turn marks the index stale again, so it is retried on the next run
+    @Scheduled(fixedDelayString = "${search.catch-up-interval}")
+    public void catchUp() {
+        if (stale.compareAndSet(true, false)) {
+            logger.info("Rebuilding search index after dropped updates");
+            indexer.execute(this::rebuild);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        FileEntity file = event.file();
+        indexer.execute(() -> {
+            try {
+                indexFile(file, ancestorFolderIds(file.getParentFolderId()));
+                searcherManager.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to index file {}: {}", file.getId(), e.getMessage());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileDeleted(FileDeletedEvent event) {
+        apply(new Term(FIELD_ID, event.file().getId().toString()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFolderDeleted(FolderDeletedEvent event) {
+        apply(new Term(FIELD_FOLDER, event.folderId().toString()));
+    }
+
+    // The folder terms of every file below a moved folder changed, the documents are rebuilt with the new ones
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFolderMoved(FolderMovedEvent event) {
+        indexer.execute(() -> {
+            try {
+                Map<Long, List<String>> ancestorsByFolder = new HashMap<>();
+                for (FolderEntity folder : folderRepo.findByAncestryPathStartingWith(event.ancestryPath())) {
+                    ancestorsByFolder.put(folder.getId(), parseAncestryPath(folder.getAncestryPath()));
+                }
+                for (FileEntity file : fileRepo.findInSubtree(event.ancestryPath())) {
+                    indexFile(file, ancestorsByFolder.getOrDefault(file.getParentFolderId(), List.of()));
+                }
+                searcherManager.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to reindex moved folder {}: {}", event.folderId(), e.getMessage());
+            }
+        });
+    }
+
+    private void apply(Term deleteTerm) {
+        indexer.execute(() -> {
+            try {
+                indexWriter.deleteDocuments(deleteTerm);
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                logger.error("Failed to update search index for {}: {}", deleteTerm, e.getMessage());
+            }
+        });
+    }
+
+    // Updates are visible to searchers after the refresh above, commits only bound what a crash loses
+    @Scheduled(fixedDelayString = "${search.commit-interval}")
+    public void commit() {
+        indexer.execute(() -> {
+            try {
+                if (indexWriter.hasUncommittedChanges()) {
+                    indexWriter.commit();
+                }
+            } catch (IOException e) {
+                logger.error("Failed to commit search index: {}", e.getMessage());
+            }
+        });
+    }
+
+    public List<SearchHit> search(String queryText, Long folderId, int limit) throws IOException {
+        if (queryText == null || queryText.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RESULTS);
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(parseQuery(queryText), BooleanClause.Occur.MUST);
+        if (folderId != null) {
+            // FILTER restricts to the subtree without influencing the score
+            query.add(new TermQuery(new Term(FIELD_FOLDER, folderId.toString())), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query.build(), limit);
+            List<SearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Document doc = searcher.storedFields().document(scoreDoc.doc);
+                String parent = doc.get(FIELD_PARENT);
+                hits.add(new SearchHit(Long.valueOf(doc.get(FIELD_ID)), doc.get(FIELD_FILE_NAME), doc.get(FIELD_FILE_TYPE),
+                        parent != null ? Long.valueOf(parent) : null, scoreDoc.score));
+            }
+            return hits;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // User input is tried as query syntax first, anything unparsable is searched as plain words
+    private Query parseQuery(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{FIELD_NAME, FIELD_CONTENT}, analyzer, FIELD_BOOSTS);
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            try {
+                return parser.parse(QueryParser.escape(queryText));
+            } catch (ParseException escaped) {
+                throw new IllegalArgumentException("Invalid search query: " + queryText);
+            }
+        }
+    }
+
+    private void rebuild() {
+        try {
+            indexWriter.deleteAll();
+            Map<Long, List<String>> ancestorsByFolder = new HashMap<>();
+            for (FolderEntity folder : folderRepo.findAll()) {
+                ancestorsByFolder.put(folder.getId(), parseAncestryPath(folder.getAncestryPath()));
+            }
+            int indexed = 0;
+            for (FileEntity file : fileRepo.findAll()) {
+                List<String> ancestors = file.getParentFolderId() != null
+                        ? ancestorsByFolder.getOrDefault(file.getParentFolderId(), List.of())
+                        : List.of();
+                indexFile(file, ancestors);
+                indexed++;
+            }
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+            logger.info("Rebuilt search index with {} files", indexed);
+        } catch (IOException e) {
+            logger.error("Failed to rebuild search index: {}", e.getMessage());
+        }
+    }
+
+    private void indexFile(FileEntity file, List<String> ancestorFolderIds) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, file.getId().toString(), Field.Store.YES));
+        doc.add(new StoredField(FIELD_FILE_NAME, file.getFileName()));
+        doc.add(new TextField(FIELD_NAME, nameTokens(file.getFileName()), Field.Store.NO));
+        if (file.getFileType() != null) {
+            doc.add(new StoredField(FIELD_FILE_TYPE, file.getFileType()));
+        }
+        if (file.getParentFolderId() != null) {
+            doc.add(new StoredField(FIELD_PARENT, file.getParentFolderId().toString()));
+        }
+        for (String folderId : ancestorFolderIds) {
+            doc.add(new StringField(FIELD_FOLDER, folderId, Field.Store.NO));
+        }
+        String content = extractText(file);
+        if (!content.isEmpty()) {
+            doc.add(new TextField(FIELD_CONTENT, content, Field.Store.NO));
+        }
+        // Keyed on the id so replays and rebuilds never duplicate a file
+        indexWriter.updateDocument(new Term(FIELD_ID, file.getId().toString()), doc);
+    }
+
+    // "Lecture7_handout.pdf" is a single token to the standard tokenizer, split it into "Lecture 7 handout pdf"
+    private String nameTokens(String fileName) {
+        return fileName.replaceAll("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})", " ")
+                .replaceAll("[^\\p{L}\\p{N}]+", " ");
+    }
+
+    private String extractText(FileEntity file) {
+        try {
+            if ("text/plain".equals(file.getFileType())) {
+                return readText(file);
+            }
+            if ("application/pdf".equals(file.getFileType())) {
+                return readPdf(file);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // The name alone is still worth indexing
+            logger.warn("Could not extract text from file {}: {}", file.getId(), e.getMessage());
+        }
+        return "";
+    }
+
+    private String readText(FileEntity file) throws IOException {
+        char[] buffer = new char[maxContentChars];
+        int read = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileServiceStorage.openContent(file), StandardCharsets.UTF_8))) {
+            int n;
+            while (read < buffer.length && (n = reader.read(buffer, read, buffer.length - read)) > 0) {
+                read += n;
+            }
+        }
+        return new String(buffer, 0, read);
+    }
+
+    private String readPdf(FileEntity file) throws IOException {
+        try (PDDocument document = loadPdf(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setEndPage(Math.min(document.getNumberOfPages(), maxPdfPages));
+            String text = stripper.getText(document);
+            return text.length() > maxContentChars ? text.substring(0, maxContentChars) : text;
+        }
+    }
+
+    // Plain local PDFs are read in place, compressed or remote ones are loaded into memory first
+    private PDDocument loadPdf(FileEntity file) throws IOException {
+        Optional<Path> local = fileServiceStorage.localContent(file);
+        if (file.getContentEncoding() == null && local.isPresent()) {
+            return Loader.loadPDF(local.get().toFile());
+        }
+        try (InputStream in = fileServiceStorage.openContent(file)) {
+            return Loader.loadPDF(new RandomAccessReadBuffer(in));
+        }
+    }
+
+    private List<String> ancestorFolderIds(Long parentFolderId) {
+        if (parentFolderId == null) {
+            return List.of();
+        }
+        return folderRepo.findById(parentFolderId)
+                .map(folder -> parseAncestryPath(folder.getAncestryPath()))
+                .orElse(List.of());
+    }
+
+    private List<String> parseAncestryPath(String ancestryPath) {
+        if (ancestryPath == null) {
+            return List.of();
+        }
+        return Arrays.stream(ancestryPath.split("/"))
+                .filter(id -> !id.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.ShareLinkEntity;
+import com.AdityaCode.StudyVault.Repository.ShareLinkRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class ShareLinkService {
+    private static final Logger logger = LoggerFactory.getLogger(ShareLinkService.class);
+    private static final String SHARE_URL_PREFIX = "http://localhost:8080/files/";
+
+    private final ShareLinkRepo shareLinkRepo;
+    private final FileServiceStorage fileServiceStorage;
+    private final MetadataCache metadataCache;
+
+    public ShareLinkService(ShareLinkRepo shareLinkRepo, FileServiceStorage fileServiceStorage, MetadataCache metadataCache) {
+        this.shareLinkRepo = shareLinkRepo;
+        this.fileServiceStorage = fileServiceStorage;
+        this.metadataCache = metadataCache;
+    }
+
+    public ShareLinkEntity createShareLink(Long fileId, String password, int expiryDays) {
+        String token = UUID.randomUUID().toString();
+        ShareLinkEntity link = new ShareLinkEntity();
+        link.setFileId(fileId);
+        link.setPassword(password);
+        link.setToken(token);
+        link.setShareLink(SHARE_URL_PREFIX + token);
+        link.setExpiryDate(LocalDateTime.now().plusDays(expiryDays));
+        shareLinkRepo.save(link);
+        return link;
+    }
+
+    // Exact match on the unique token index, cached until the link expires
+    public Optional<ResolvedShare> resolve(String token) {
+        return Optional.ofNullable(metadataCache.getShare(token, () -> shareLinkRepo.findByToken(token)
+                .map(link -> {
+                    FileEntity file = fileServiceStorage.getFileById(link.getFileId());
+                    return new ResolvedShare(link, file);
+                })
+                .orElse(null)));
+    }
+
+    @Scheduled(fixedDelayString = "${share.sweep-interval}")
+    @Transactional
+    public void purgeExpiredLinks() {
+        int purged = shareLinkRepo.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired share links", purged);
+        }
+    }
+
+    // Links created before the token column existed carry the token at the end of the URL
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillTokens() {
+        List<ShareLinkEntity> missing = shareLinkRepo.findByTokenIsNull();
+        for (ShareLinkEntity link : missing) {
+            link.setToken(link.getShareLink().substring(link.getShareLink().lastIndexOf('/') + 1));
+        }
+        if (!missing.isEmpty()) {
+            logger.info("Backfilled tokens for {} share links", missing.size());
+        }
+    }
+}
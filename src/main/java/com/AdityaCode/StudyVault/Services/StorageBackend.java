@@ -0,0 +1,39 @@
+package com.AdityaCode.StudyVault.Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Where blob bytes live. Keys are relative, '/'-separated names such as "ab/cd/abcd...gz"; the blob store
+// decides the layout and the reference counting, a backend only moves whole objects and byte ranges.
+// Missing objects are reported as NoSuchFileException so callers do not depend on the backend in use.
+public interface StorageBackend {
+
+    // Stores a finished local file under key and consumes it. Keys are content addressed, an existing
+    // object may be overwritten with identical bytes.
+    void put(String key, Path source) throws IOException;
+
+    InputStream get(String key) throws IOException;
+
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    // False when there was nothing to delete
+    boolean delete(String key) throws IOException;
+
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    // Every object whose key starts with prefix, in no particular order
+    void list(String prefix, Consumer<ObjectInfo> consumer) throws IOException;
+
+    // The file behind key when objects are kept on the local disk, which allows zero-copy reads
+    Optional<Path> localPath(String key);
+
+    // What FileEntity.filePath records for the object, informational only
+    String location(String key);
+
+    record ObjectInfo(String key, long size, Instant lastModified) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.AdityaCode.StudyVault.Services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Meters for the storage hot paths. Tags are kept to small fixed sets (content type, size bucket, outcome)
+// so the Prometheus series count stays bounded no matter what clients send.
+@Component
+public class StorageMetrics {
+
+    public static final String MODE_MULTIPART = "multipart";
+    public static final String MODE_BATCH = "batch";
+    public static final String MODE_CHUNKED = "chunked";
+
+    private static final Set<String> KNOWN_TYPES = Set.of("application/pdf", "image/jpeg", "image/png", "text/plain");
+
+    private final MeterRegistry registry;
+    // Meters by tag combination, so the hot paths skip building an id and looking it up in the registry
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public StorageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    // failure is null for successful uploads. Bytes are counted separately, chunked uploads write them chunk by chunk.
+    public void recordUpload(Timer.Sample sample, String mode, String contentType, long size, Throwable failure) {
+        String type = typeTag(contentType);
+        String sizeTag = sizeBucket(size);
+        String outcome = failure == null ? "success" : "failure";
+        sample.stop(timers.computeIfAbsent("upload|" + mode + "|" + type + "|" + sizeTag + "|" + outcome,
+                key -> Timer.builder("studyvault.upload")
+                        .description("Time to receive, store and record an uploaded file")
+                        .tag("mode", mode)
+                        .tag("type", type)
+                        .tag("size", sizeTag)
+                        .tag("outcome", outcome)
+                        .register(registry)));
+        if (failure != null) {
+            String cause = failureCause(failure);
+            counter("upload.failures|" + mode + "|" + cause, () -> Counter.builder("studyvault.upload.failures")
+                    .tag("mode", mode)
+                    .tag("cause", cause))
+                    .increment();
+        }
+    }
+
+    public void recordBytesWritten(String mode, String contentType, long bytes) {
+        String type = typeTag(contentType);
+        counter("bytes.written|" + mode + "|" + type, () -> Counter.builder("studyvault.storage.bytes.written")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .tag("type", type))
+                .increment(bytes);
+    }
+
+    // encoding is the representation sent: identity, gzip (stored bytes as-is) or inflated (decoded on the fly).
+    // With sendfile the body is written after the handler returns, so the timer covers the handler only.
+    public void recordDownload(Timer.Sample sample, String contentType, long size, String encoding, int status, long bytesSent) {
+        String type = typeTag(contentType);
+        String sizeTag = sizeBucket(size);
+        sample.stop(timers.computeIfAbsent("download|" + type + "|" + sizeTag + "|" + encoding + "|" + status,
+                key -> Timer.builder("studyvault.download")
+                        .description("Time to serve a file download")
+                        .tag("type", type)
+                        .tag("size", sizeTag)
+                        .tag("encoding", encoding)
+                        .tag("status", String.valueOf(status))
+                        .register(registry)));
+        if (bytesSent > 0) {
+            counter("bytes.read|" + type + "|" + encoding, () -> Counter.builder("studyvault.storage.bytes.read")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .tag("encoding", encoding))
+                    .increment(bytesSent);
+        }
+    }
+
+    public void recordShareAccess(String result) {
+        counter("share.access|" + result, () -> Counter.builder("studyvault.share.access")
+                .description("Share link resolutions by result")
+                .tag("result", result))
+                .increment();
+    }
+
+    private Counter counter(String key, Supplier<Counter.Builder> builder) {
+        return counters.computeIfAbsent(key, k -> builder.get().register(registry));
+    }
+
+    private String failureCause(Throwable failure) {
+        Throwable cause = failure;
+        // saveFile wraps validation and I/O errors in a RuntimeException
+        if (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof QuotaExceededException) {
+            return "quota";
+        }
+        if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException) {
+            return "validation";
+        }
+        if (cause instanceof IOException || cause instanceof UncheckedIOException) {
+            return "io";
+        }
+        return "other";
+    }
+
+    private String typeTag(String contentType) {
+        return contentType != null && KNOWN_TYPES.contains(contentType) ? contentType : "other";
+    }
+
+    private String sizeBucket(long size) {
+        if (size < 100 * 1024) {
+            return "<100KB";
+        }
+        if (size < 1024 * 1024) {
+            return "<1MB";
+        }
+        if (size < 10 * 1024 * 1024) {
+            return "<10MB";
+        }
+        if (size < 100 * 1024 * 1024) {
+            return "<100MB";
+        }
+        return ">=100MB";
+    }
+}
@@ -0,0 +1,176 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Entity.StorageUsageEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import com.AdityaCode.StudyVault.Repository.StorageUsageRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Byte and file counts per folder subtree plus one vault-wide row, adjusted incrementally by the callers'
+// transactions so usage reads are a single primary key lookup. Quotas are checked against these counters
+// before an upload writes anything; two uploads racing past the check can overshoot by at most their size.
+@Service
+public class StorageQuotaService {
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaService.class);
+
+    // Vault-wide limit, 0 disables it. There are no user accounts, so this is the "per user" quota for the
+    // single tenant; per-folder limits cover course or class spaces.
+    @Value("${storage.quota.total}")
+    private DataSize totalQuota;
+
+    private final FolderRepo folderRepo;
+    private final FileRepo fileRepo;
+    private final StorageUsageRepo storageUsageRepo;
+
+    public StorageQuotaService(FolderRepo folderRepo, FileRepo fileRepo, StorageUsageRepo storageUsageRepo) {
+        this.folderRepo = folderRepo;
+        this.fileRepo = fileRepo;
+        this.storageUsageRepo = storageUsageRepo;
+    }
+
+    public void checkQuota(Long parentFolderId, long incomingBytes) {
+        if (totalQuota.toBytes() > 0) {
+            long used = storageUsageRepo.findById(StorageUsageEntity.GLOBAL).map(StorageUsageEntity::getBytes).orElse(0L);
+            if (used + incomingBytes > totalQuota.toBytes()) {
+                throw new QuotaExceededException("Storage quota of " + totalQuota.toMegabytes() + "MB exceeded");
+            }
+        }
+        for (FolderEntity folder : folderRepo.findAllById(ancestorIds(parentFolderId))) {
+            if (folder.getQuotaBytes() != null && folder.getSubtreeBytes() + incomingBytes > folder.getQuotaBytes()) {
+                throw new QuotaExceededException("Quota of folder " + folder.getFolderName() + " exceeded ("
+                        + folder.getSubtreeBytes() + " of " + folder.getQuotaBytes() + " bytes used)");
+            }
+        }
+    }
+
+    // Negative values record removals. Must run inside the transaction that writes the file rows.
+    public void recordUsage(Long parentFolderId, long bytes, long files) {
+        List<Long> ancestors = ancestorIds(parentFolderId);
+        if (!ancestors.isEmpty()) {
+            folderRepo.addUsage(ancestors, bytes, files);
+        }
+        storageUsageRepo.addUsage(StorageUsageEntity.GLOBAL, bytes, files);
+    }
+
+    // The folder's own totals move with it: ancestors it leaves give them up, ancestors it joins take them
+    // on and must have room for them. Common ancestors and the vault total stay as they are.
+    public void recordSubtreeMoved(FolderEntity folder, Long targetParentId) {
+        List<Long> path = parseAncestryPath(folder.getAncestryPath());
+        List<Long> oldAncestors = path.subList(0, Math.max(0, path.size() - 1));
+        List<Long> newAncestors = ancestorIds(targetParentId);
+        List<Long> leaving = oldAncestors.stream().filter(id -> !newAncestors.contains(id)).toList();
+        List<Long> joining = newAncestors.stream().filter(id -> !oldAncestors.contains(id)).toList();
+
+        long bytes = folder.getSubtreeBytes();
+        for (FolderEntity ancestor : folderRepo.findAllById(joining)) {
+            if (ancestor.getQuotaBytes() != null && ancestor.getSubtreeBytes() + bytes > ancestor.getQuotaBytes()) {
+                throw new QuotaExceededException("Quota of folder " + ancestor.getFolderName() + " exceeded ("
+                        + ancestor.getSubtreeBytes() + " of " + ancestor.getQuotaBytes() + " bytes used)");
+            }
+        }
+        if (!leaving.isEmpty()) {
+            folderRepo.addUsage(leaving, -bytes, -folder.getSubtreeFileCount());
+        }
+        if (!joining.isEmpty()) {
+            folderRepo.addUsage(joining, bytes, folder.getSubtreeFileCount());
+        }
+    }
+
+    public Map<String, Object> getFolderUsage(Long folderId) {
+        FolderEntity folder = folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+        Map<String, Object> usage = new HashMap<>();
+        usage.put("folderId", folderId);
+        usage.put("fileCount", folder.getSubtreeFileCount());
+        usage.put("size", folder.getSubtreeBytes());
+        usage.put("quotaBytes", folder.getQuotaBytes());
+        return usage;
+    }
+
+    public Map<String, Object> getTotalUsage() {
+        StorageUsageEntity total = storageUsageRepo.findById(StorageUsageEntity.GLOBAL)
+                .orElse(new StorageUsageEntity(StorageUsageEntity.GLOBAL, 0L, 0L));
+        Map<String, Object> usage = new HashMap<>();
+        usage.put("fileCount", total.getFileCount());
+        usage.put("size", total.getBytes());
+        usage.put("quotaBytes", totalQuota.toBytes() > 0 ? totalQuota.toBytes() : null);
+        return usage;
+    }
+
+    @Transactional
+    public void setFolderQuota(Long folderId, Long quotaBytes) {
+        if (quotaBytes != null && quotaBytes < 0) {
+            throw new IllegalArgumentException("Quota must not be negative");
+        }
+        FolderEntity folder = folderRepo.findById(folderId)
+                .orElseThrow(() -> new IllegalArgumentException("Folder not found with id: " + folderId));
+        folder.setQuotaBytes(quotaBytes);
+    }
+
+    // Databases from before the counters existed get them computed once: per-folder sums rolled up in memory
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeUsage() {
+        if (storageUsageRepo.existsById(StorageUsageEntity.GLOBAL)) {
+            return;
+        }
+        Map<Long, FolderEntity> folders = folderRepo.findAll().stream()
+                .collect(Collectors.toMap(FolderEntity::getId, Function.identity()));
+        for (FolderEntity folder : folders.values()) {
+            folder.setSubtreeBytes(0L);
+            folder.setSubtreeFileCount(0L);
+        }
+        long totalBytes = 0;
+        long totalFiles = 0;
+        for (Object[] row : fileRepo.sumByParentFolder()) {
+            long files = ((Number) row[1]).longValue();
+            long bytes = ((Number) row[2]).longValue();
+            totalFiles += files;
+            totalBytes += bytes;
+            // Walk up through parentFolderId, the ancestry path may not have been backfilled yet
+            FolderEntity folder = row[0] != null ? folders.get((Long) row[0]) : null;
+            while (folder != null) {
+                folder.setSubtreeBytes(folder.getSubtreeBytes() + bytes);
+                folder.setSubtreeFileCount(folder.getSubtreeFileCount() + files);
+                folder = folder.getParentFolderId() != null ? folders.get(folder.getParentFolderId()) : null;
+            }
+        }
+        storageUsageRepo.save(new StorageUsageEntity(StorageUsageEntity.GLOBAL, totalBytes, totalFiles));
+        logger.info("Initialized storage usage: {} files, {} bytes", totalFiles, totalBytes);
+    }
+
+    private List<Long> ancestorIds(Long parentFolderId) {
+        if (parentFolderId == null) {
+            return List.of();
+        }
+        return folderRepo.findById(parentFolderId)
+                .map(folder -> parseAncestryPath(folder.getAncestryPath()))
+                .orElse(List.of());
+    }
+
+    private List<Long> parseAncestryPath(String ancestryPath) {
+        if (ancestryPath == null) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(ancestryPath.split("/"))
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+}
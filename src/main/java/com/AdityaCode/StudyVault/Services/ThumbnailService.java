@@ -0,0 +1,280 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders fixed-size JPEG previews for images and the first page of PDFs into an on-disk cache keyed by
+// content hash, so identical uploads share one thumbnail. Rendering runs on a small dedicated pool whose
+// queue is bounded; when it is full new work is dropped rather than run on the caller, and the next
+// thumbnail request simply queues it again. Content that fails to render (a corrupt PDF, an undecodable
+// image) is remembered for a while and answered as having no preview instead of being rendered again.
+@Service
+public class ThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "application/pdf");
+    private static final long FAILED_ENTRIES = 10_000;
+
+    @Value("${thumbnail.dir}")
+    private String thumbnailDir;
+
+    @Value("${thumbnail.size}")
+    private int thumbnailSize;
+
+    @Value("${thumbnail.workers}")
+    private int workers;
+
+    @Value("${thumbnail.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${thumbnail.failure-ttl}")
+    private Duration failureTtl;
+
+    private final FileRepo fileRepo;
+    private final FileServiceStorage fileServiceStorage;
+    // Cache keys currently queued or rendering, so repeated requests do not pile up duplicate work
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private Path thumbnailRoot;
+    private ThreadPoolExecutor renderer;
+    private Cache<String, Boolean> failed; // cache keys whose last render failed
+
+    public ThumbnailService(FileRepo fileRepo, FileServiceStorage fileServiceStorage) {
+        this.fileRepo = fileRepo;
+        this.fileServiceStorage = fileServiceStorage;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        thumbnailRoot = Paths.get(System.getProperty("user.dir"), thumbnailDir);
+        Files.createDirectories(thumbnailRoot);
+        failed = Caffeine.newBuilder()
+                .maximumSize(FAILED_ENTRIES)
+                .expireAfterWrite(failureTtl)
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        renderer = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    public boolean supports(FileEntity file) {
+        return SUPPORTED_TYPES.contains(file.getFileType());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        if (supports(event.file())) {
+            enqueue(event.file());
+        }
+    }
+
+    // Content-addressed thumbnails stay until no file carries the hash any more
+    @TransactionalEventListener
+    public void onFileDeleted(FileDeletedEvent event) {
+        FileEntity file = event.file();
+        if (!supports(file) || (file.getContentHash() != null && fileRepo.existsByContentHash(file.getContentHash()))) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(thumbnailPath(file));
+        } catch (IOException e) {
+            logger.warn("Failed to delete thumbnail for file {}: {}", file.getId(), e.getMessage());
+        }
+    }
+
+    // Empty while the thumbnail is still being rendered, in which case rendering has been (re)queued.
+    // Content that recently failed to render is refused rather than queued again
+    public Optional<Path> getThumbnail(FileEntity file) {
+        if (!supports(file)) {
+            throw new IllegalArgumentException("No preview available for " + file.getFileType());
+        }
+        Path path = thumbnailPath(file);
+        if (Files.exists(path)) {
+            return Optional.of(path);
+        }
+        if (failed.getIfPresent(cacheKey(file)) != null) {
+            throw new IllegalArgumentException("No preview available for file " + file.getId());
+        }
+        enqueue(file);
+        return Optional.empty();
+    }
+
+    private void enqueue(FileEntity file) {
+        String key = cacheKey(file);
+        if (failed.getIfPresent(key) != null || !pending.add(key)) {
+            return;
+        }
+        try {
+            renderer.execute(() -> {
+                try {
+                    render(file);
+                } catch (IOException | RuntimeException e) {
+                    // Recorded before the key leaves pending, so no poll in between can queue it again
+                    failed.put(key, Boolean.TRUE);
+                    logger.warn("Failed to render thumbnail for file {}: {}", file.getId(), e.getMessage());
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            logger.debug("Thumbnail queue full, skipping file {}", file.getId());
+        }
+    }
+
+    private void render(FileEntity file) throws IOException {
+        Path target = thumbnailPath(file);
+        if (Files.exists(target)) {
+            return;
+        }
+        BufferedImage image = "application/pdf".equals(file.getFileType()) ? renderPdfPage(file) : readImage(file);
+        if (image == null) {
+            throw new IOException("Unreadable image");
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        try {
+            writeJpeg(scale(image), temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Subsampled decode: a 24MP photo is read at a fraction of its size instead of fully into the heap
+    private BufferedImage readImage(FileEntity file) throws IOException {
+        try (InputStream content = fileServiceStorage.openContent(file);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longestSide / (thumbnailSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage renderPdfPage(FileEntity file) throws IOException {
+        try (PDDocument document = loadPdf(file)) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle page = document.getPage(0).getCropBox();
+            float scale = thumbnailSize / Math.max(page.getWidth(), page.getHeight());
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    private PDDocument loadPdf(FileEntity file) throws IOException {
+        Optional<Path> local = fileServiceStorage.localContent(file);
+        if (file.getContentEncoding() == null && local.isPresent()) {
+            return Loader.loadPDF(local.get().toFile());
+        }
+        try (InputStream in = fileServiceStorage.openContent(file)) {
+            return Loader.loadPDF(new RandomAccessReadBuffer(in));
+        }
+    }
+
+    // Fits the longest side to the thumbnail size, flattened onto white since JPEG has no alpha
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) thumbnailSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public String cacheKey(FileEntity file) {
+        return file.getContentHash() != null ? file.getContentHash() : "file-" + file.getId();
+    }
+
+    private Path thumbnailPath(FileEntity file) {
+        String key = cacheKey(file);
+        return thumbnailRoot.resolve(key.substring(0, 2)).resolve(key + "-" + thumbnailSize + ".jpg");
+    }
+}
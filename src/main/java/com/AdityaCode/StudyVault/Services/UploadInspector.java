@@ -0,0 +1,176 @@
+package com.AdityaCode.StudyVault.Services;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// First stage of every upload. The content type comes from the leading bytes instead of the client's
+// header, and the size limit is enforced while the bytes stream past. Single uploads and chunked sessions
+// reach it while the body is still arriving, so a bad file fails within its first kilobytes; batch parts
+// were already buffered by the container but are still rejected before they are written out. The blob
+// store hashes the same single pass.
+public final class UploadInspector {
+
+    public static final int SNIFF_LENGTH = 4096;
+    private static final int PDF_HEADER_WINDOW = 1024; // readers accept the header anywhere in the first 1KB
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private UploadInspector() {
+    }
+
+    // Reads the head up front and fails unless it is one of the allowed types; the returned stream
+    // replays it and then continues with the rest, failing once more than maxSize bytes went through
+    public static InspectedStream inspect(InputStream in, long maxSize) throws IOException {
+        try {
+            byte[] head = in.readNBytes(SNIFF_LENGTH);
+            return new InspectedStream(in, head, requireAllowed(head, head.length), maxSize);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // For content that is already on disk, e.g. an assembled chunked upload
+    public static String inspect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(SNIFF_LENGTH);
+            return requireAllowed(head, head.length);
+        }
+    }
+
+    public static String requireAllowed(byte[] head, int length) {
+        String contentType = detect(head, length);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Unsupported file type, content is not a PDF, JPEG, PNG or text file");
+        }
+        return contentType;
+    }
+
+    // null when the bytes match none of the allowed types
+    public static String detect(byte[] head, int length) {
+        if (startsWith(head, length, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, PNG)) {
+            return "image/png";
+        }
+        if (indexOf(head, Math.min(length, PDF_HEADER_WINDOW), PDF) >= 0) {
+            return "application/pdf";
+        }
+        if (length > 0 && isText(head, length)) {
+            return "text/plain";
+        }
+        return null;
+    }
+
+    // UTF-16 needs its byte order mark. Anything else counts as text without NULs or C0 controls other
+    // than tab, line breaks, form feed and escape, which keeps legacy 8-bit encodings acceptable.
+    private static boolean isText(byte[] head, int length) {
+        if (length >= 2 && ((head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) || (head[0] == (byte) 0xFF && head[1] == (byte) 0xFE))) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        return length >= magic.length && indexOf(head, magic.length, magic) == 0;
+    }
+
+    private static int indexOf(byte[] head, int length, byte[] magic) {
+        outer:
+        for (int i = 0; i + magic.length <= length; i++) {
+            for (int j = 0; j < magic.length; j++) {
+                if (head[i + j] != magic[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public static final class InspectedStream extends FilterInputStream {
+        private final byte[] head;
+        private final String contentType;
+        private final long maxSize;
+        private int headPosition;
+        private long count;
+
+        private InspectedStream(InputStream in, byte[] head, String contentType, long maxSize) {
+            super(in);
+            this.head = head;
+            this.contentType = contentType;
+            this.maxSize = maxSize;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        // Bytes handed out so far, the full size once the stream is drained
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == 1 ? single[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read;
+            if (headPosition < head.length) {
+                read = Math.min(len, head.length - headPosition);
+                System.arraycopy(head, headPosition, b, off, read);
+                headPosition += read;
+            } else {
+                read = in.read(b, off, len);
+                if (read < 0) {
+                    return -1;
+                }
+            }
+            count += read;
+            if (count > maxSize) {
+                throw new IOException("File size exceeds " + maxSize / (1024 * 1024) + "MB limit");
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            // Skipped bytes still count towards the limit, reading them keeps that simple
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return headPosition < head.length ? head.length - headPosition : in.available();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
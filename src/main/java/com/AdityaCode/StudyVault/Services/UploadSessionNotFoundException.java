@@ -0,0 +1,8 @@
+package com.AdityaCode.StudyVault.Services;
+
+// The session never existed, expired, or was completed or aborted in the meantime
+public class UploadSessionNotFoundException extends IllegalArgumentException {
+    public UploadSessionNotFoundException(String sessionId) {
+        super("Upload session not found: " + sessionId);
+    }
+}
@@ -0,0 +1,201 @@
+package com.AdityaCode.StudyVault.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Admission control for the endpoints that move file bytes. Each client (remote address, so behind a proxy
+// set server.forward-headers-strategy) gets a token bucket per endpoint kind, share links get one more per
+// link across all clients, and a bulkhead per kind caps concurrent requests. Rejections are 429 with
+// Retry-After. Admitted requests pay for a map lookup, a CAS and an uncontended semaphore.
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+    public static final String SHARE = "share";
+    private static final List<String> ENDPOINTS = List.of(UPLOAD, DOWNLOAD, SHARE);
+
+    private static final String SHARE_PREFIX = "/api/files/share/";
+    private static final String RATE = "rate";
+    private static final String CONCURRENCY = "concurrency";
+
+    private final boolean enabled;
+    private final Duration queueTimeout;
+    private final Map<String, TokenBucketLimiter> clientLimiters = new HashMap<>();
+    private final TokenBucketLimiter shareLinkLimiter;
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+    private final Map<String, Counter> rejections = new HashMap<>();
+
+    public AdmissionControlFilter(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getRequiredProperty("admission.enabled", Boolean.class);
+        this.queueTimeout = environment.getRequiredProperty("admission.queue-timeout", Duration.class);
+        for (String endpoint : ENDPOINTS) {
+            String prefix = "admission." + endpoint + ".";
+            clientLimiters.put(endpoint, new TokenBucketLimiter(
+                    environment.getRequiredProperty(prefix + "rate", Double.class),
+                    environment.getRequiredProperty(prefix + "burst", Integer.class)));
+            Bulkhead bulkhead = new Bulkhead(
+                    environment.getRequiredProperty(prefix + "max-concurrent", Integer.class),
+                    environment.getRequiredProperty(prefix + "max-queued", Integer.class));
+            bulkheads.put(endpoint, bulkhead);
+
+            Gauge.builder("studyvault.admission.active", bulkhead, Bulkhead::active)
+                    .description("Requests currently holding a bulkhead permit")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            Gauge.builder("studyvault.admission.queued", bulkhead, Bulkhead::queued)
+                    .description("Requests waiting for a bulkhead permit")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            for (String reason : List.of(RATE, CONCURRENCY)) {
+                rejections.put(endpoint + reason, Counter.builder("studyvault.admission.rejected")
+                        .description("Requests turned away with 429")
+                        .tag("endpoint", endpoint)
+                        .tag("reason", reason)
+                        .register(meterRegistry));
+            }
+        }
+        this.shareLinkLimiter = new TokenBucketLimiter(
+                environment.getRequiredProperty("admission.share.link-rate", Double.class),
+                environment.getRequiredProperty("admission.share.link-burst", Integer.class));
+        Gauge.builder("studyvault.admission.tracked.keys", this,
+                        filter -> filter.clientLimiters.values().stream().mapToInt(TokenBucketLimiter::size).sum()
+                                + filter.shareLinkLimiter.size())
+                .description("Clients and share links with a partially drained token bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = endpoint(request);
+        long waitNanos = clientLimiters.get(endpoint).tryAcquire(request.getRemoteAddr());
+        if (waitNanos == 0 && SHARE.equals(endpoint)) {
+            waitNanos = shareLinkLimiter.tryAcquire(shareLinkId(request.getRequestURI()));
+        }
+        if (waitNanos > 0) {
+            reject(response, endpoint, RATE, waitNanos);
+            return;
+        }
+
+        Bulkhead bulkhead = bulkheads.get(endpoint);
+        boolean admitted;
+        try {
+            admitted = bulkhead.tryAcquire(queueTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(response, endpoint, CONCURRENCY, queueTimeout.toNanos());
+            return;
+        }
+
+        // Streamed responses (folder ZIPs) keep writing after the filter chain returns
+        boolean releaseLater = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(bulkhead));
+                releaseLater = true;
+            }
+        } finally {
+            if (!releaseLater) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${admission.sweep-interval}")
+    public void sweepIdleBuckets() {
+        int removed = shareLinkLimiter.sweep();
+        for (TokenBucketLimiter limiter : clientLimiters.values()) {
+            removed += limiter.sweep();
+        }
+        if (removed > 0) {
+            logger.debug("Dropped {} refilled token buckets", removed);
+        }
+    }
+
+    // Only the requests that move file bytes, prefix checks keep classification off the regex engine
+    private String endpoint(HttpServletRequest request) {
+        String method = request.getMethod();
+        String uri = request.getRequestURI();
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (read) {
+            if (uri.startsWith(SHARE_PREFIX)) {
+                return SHARE;
+            }
+            if (uri.startsWith("/api/files/download/") || (uri.startsWith("/api/files/folders/") && uri.endsWith("/zip"))) {
+                return DOWNLOAD;
+            }
+        } else if (("POST".equals(method) || "PUT".equals(method)) && uri.startsWith("/api/files/upload")) {
+            return UPLOAD;
+        }
+        return null;
+    }
+
+    private String shareLinkId(String uri) {
+        int end = uri.indexOf('/', SHARE_PREFIX.length());
+        return end < 0 ? uri.substring(SHARE_PREFIX.length()) : uri.substring(SHARE_PREFIX.length(), end);
+    }
+
+    private void reject(HttpServletResponse response, String endpoint, String reason, long retryAfterNanos) throws IOException {
+        rejections.get(endpoint + reason).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(RATE.equals(reason)
+                ? "{\"error\":\"Too many requests, retry later\"}"
+                : "{\"error\":\"Server busy, retry later\"}");
+    }
+
+    private record ReleasingListener(Bulkhead bulkhead) implements AsyncListener {
+        // onComplete follows errors and timeouts as well, so the permit is released exactly once
+        @Override
+        public void onComplete(AsyncEvent event) {
+            bulkhead.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.AdityaCode.StudyVault.config;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Caps how many requests of one kind run at once. Up to maxQueued more wait for a permit, at most for
+// the queue timeout; everyone beyond that is turned away immediately instead of holding a thread.
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public Bulkhead(int maxConcurrent, int maxQueued) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public boolean tryAcquire(Duration timeout) throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+}
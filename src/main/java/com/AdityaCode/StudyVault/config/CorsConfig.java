@@ -29,6 +29,16 @@ public class CorsConfig {
         config.addAllowedHeader("Content-Type");
         config.addAllowedHeader("Accept");
         config.addAllowedHeader("Authorization");
+        config.addAllowedHeader("Range");
+        config.addAllowedHeader("If-Range");
+        config.addAllowedHeader("If-None-Match");
+        config.addAllowedHeader("If-Modified-Since");
+
+        // Let the frontend read partial-content and caching headers on downloads
+        config.addExposedHeader("Accept-Ranges");
+        config.addExposedHeader("Content-Range");
+        config.addExposedHeader("Content-Disposition");
+        config.addExposedHeader("ETag");
 
         // Allow credentials (cookies, authorization headers, etc.)
         config.setAllowCredentials(true);
@@ -0,0 +1,79 @@
+package com.AdityaCode.StudyVault.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Replaces spring.jpa.show-sql: every statement is counted by kind, and only a sample of them is logged,
+// at debug level and only when sql.log.sample-rate is above zero.
+@Component
+public class SampledSqlLogger implements StatementInspector, HibernatePropertiesCustomizer {
+    private static final Logger logger = LoggerFactory.getLogger("com.AdityaCode.StudyVault.SQL");
+
+    private final double sampleRate;
+    private final Map<String, Counter> counters;
+
+    public SampledSqlLogger(@Value("${sql.log.sample-rate}") double sampleRate, MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.counters = Map.of(
+                "select", counter(meterRegistry, "select"),
+                "insert", counter(meterRegistry, "insert"),
+                "update", counter(meterRegistry, "update"),
+                "delete", counter(meterRegistry, "delete"),
+                "other", counter(meterRegistry, "other"));
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        counters.getOrDefault(kind(sql), counters.get("other")).increment();
+        if (sampleRate > 0 && logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            logger.debug(sql);
+        }
+        return sql;
+    }
+
+    // The first keyword after any leading comments, Hibernate prefixes statements with /* ... */ when
+    // hibernate.use_sql_comments is on
+    private static String kind(String sql) {
+        int start = 0;
+        while (start < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(start))) {
+                start++;
+            } else if (sql.startsWith("/*", start)) {
+                int close = sql.indexOf("*/", start + 2);
+                start = close < 0 ? sql.length() : close + 2;
+            } else if (sql.startsWith("--", start)) {
+                int newline = sql.indexOf('\n', start + 2);
+                start = newline < 0 ? sql.length() : newline + 1;
+            } else {
+                break;
+            }
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return sql.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("studyvault.sql.statements")
+                .description("SQL statements prepared by Hibernate, by kind")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
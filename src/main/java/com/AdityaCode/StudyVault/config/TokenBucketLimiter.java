@@ -0,0 +1,54 @@
+package com.AdityaCode.StudyVault.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets in their GCRA form: per key only the time at which the bucket will be full again is kept,
+// and taking a token is a single compare-and-set on it. No locks and no allocation once a key is known.
+public class TokenBucketLimiter {
+
+    private final long refillNanos; // time for one token to come back
+    private final long capacityNanos; // the whole burst, expressed as refill time
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketLimiter(double tokensPerSecond, int burst) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.refillNanos = (long) (1_000_000_000L / tokensPerSecond);
+        this.capacityNanos = refillNanos * burst;
+    }
+
+    // 0 when a token was taken, otherwise the nanoseconds until the next one is available
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + refillNanos;
+            long wait = next - capacityNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket that has refilled completely is indistinguishable from a new one. Removing it can race a
+    // request that just looked it up, which at worst hands that client one extra token.
+    public int sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -12,7 +12,9 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000") // Your Next.js frontend URL
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("Origin", "Content-Type", "Accept", "Authorization")
+                .allowedHeaders("Origin", "Content-Type", "Accept", "Authorization",
+                        "Range", "If-Range", "If-None-Match", "If-Modified-Since")
+                .exposedHeaders("Accept-Ranges", "Content-Range", "Content-Disposition", "ETag", "Retry-After")
                 .allowCredentials(true)
                 .maxAge(3600); // 1 hour
     }
@@ -0,0 +1,17 @@
+create table folder_jobs (
+    id varchar(255) not null,
+    type varchar(255),
+    folder_id bigint,
+    target_parent_id bigint,
+    move_to_root bit,
+    new_name varchar(255),
+    status varchar(255),
+    total_items bigint,
+    processed_items bigint,
+    cancel_requested bit,
+    error varchar(1000),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+create index idx_folder_jobs_status on folder_jobs (status);
@@ -0,0 +1,2 @@
+-- Folders are metadata only, the hierarchy lives in parent_folder_id and ancestry_path
+alter table folders drop column folder_path;
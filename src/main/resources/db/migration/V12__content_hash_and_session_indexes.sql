@@ -0,0 +1,5 @@
+-- Every file delete asks whether another row still shares the content (thumbnail cleanup)
+create index idx_files_content_hash on files (content_hash);
+
+-- The upload session sweeper looks up sessions idle past the TTL
+create index idx_upload_sessions_updated_at on upload_sessions (updated_at);
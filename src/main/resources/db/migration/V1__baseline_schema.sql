@@ -0,0 +1,31 @@
+-- The schema that ddl-auto=update created for the original release. Databases from that setup already
+-- have it and are baselined at this version (spring.flyway.baseline-on-migrate), new ones start here.
+
+create table files (
+    id bigint not null auto_increment,
+    file_name varchar(255),
+    file_type varchar(255),
+    size bigint,
+    file_path varchar(255),
+    parent_folder_id bigint,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table folders (
+    id bigint not null auto_increment,
+    folder_name varchar(255),
+    folder_path varchar(255),
+    parent_folder_id bigint,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table share_links (
+    id bigint not null auto_increment,
+    file_id varchar(255),
+    share_link varchar(255),
+    password varchar(255),
+    expiry_date datetime(6),
+    primary key (id)
+) engine=InnoDB;
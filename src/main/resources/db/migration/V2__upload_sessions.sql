@@ -0,0 +1,13 @@
+create table upload_sessions (
+    id varchar(255) not null,
+    file_name varchar(255),
+    file_type varchar(255),
+    total_size bigint,
+    received_bytes bigint,
+    staging_path varchar(255),
+    parent_folder_id bigint,
+    created_at datetime(6),
+    updated_at datetime(6),
+    version bigint,
+    primary key (id)
+) engine=InnoDB;
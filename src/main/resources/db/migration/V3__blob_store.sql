@@ -0,0 +1,10 @@
+create table blobs (
+    hash varchar(64) not null,
+    size bigint,
+    ref_count bigint,
+    created_at datetime(6),
+    primary key (hash)
+) engine=InnoDB;
+
+-- Files stored before the blob store keep a null hash and are served from file_path
+alter table files add column content_hash varchar(64);
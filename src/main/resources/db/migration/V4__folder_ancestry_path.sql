@@ -0,0 +1,3 @@
+-- Filled in for existing folders at startup (FileServiceStorage.backfillAncestryPaths)
+alter table folders add column ancestry_path varchar(512);
+create index idx_folders_ancestry_path on folders (ancestry_path);
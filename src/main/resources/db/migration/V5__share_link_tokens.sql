@@ -0,0 +1,9 @@
+-- Filled in for existing links at startup from the end of share_link (ShareLinkService.backfillTokens)
+alter table share_links add column token varchar(36);
+alter table share_links add constraint uk_share_links_token unique (token);
+create index idx_share_links_expiry_date on share_links (expiry_date);
+
+-- file_id was a free-form string. Links whose value is not a file id can never resolve, so they are
+-- dropped before the column becomes numeric (the length cap keeps values inside bigint)
+delete from share_links where file_id is null or file_id not regexp '^[0-9]{1,18}$';
+alter table share_links modify column file_id bigint;
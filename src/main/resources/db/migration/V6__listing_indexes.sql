@@ -0,0 +1,6 @@
+-- (parent, sort column, id) composites back the keyset-paged listings
+create index idx_files_parent_name on files (parent_folder_id, file_name, id);
+create index idx_files_parent_size on files (parent_folder_id, size, id);
+create index idx_files_parent_created on files (parent_folder_id, created_at, id);
+create index idx_files_parent_type on files (parent_folder_id, file_type, id);
+create index idx_folders_parent_name on folders (parent_folder_id, folder_name, id);
@@ -0,0 +1,2 @@
+alter table files add column content_encoding varchar(16);
+alter table files add column stored_size bigint;
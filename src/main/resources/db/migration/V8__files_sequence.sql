@@ -0,0 +1,7 @@
+-- files moves from auto_increment to pooled ids. MySQL has no sequences, Hibernate emulates one with this
+-- single-row table. The pooled optimizer hands out (next_val - 50, next_val], so it starts a block past
+-- the existing ids (50 is FileEntity.ID_ALLOCATION_SIZE).
+create table files_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into files_seq (next_val) select coalesce(max(id), 0) + 50 from files;
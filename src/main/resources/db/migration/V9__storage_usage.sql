@@ -0,0 +1,11 @@
+-- Computed for existing data at startup when the global row is missing (StorageQuotaService.initializeUsage)
+alter table folders add column subtree_bytes bigint;
+alter table folders add column subtree_file_count bigint;
+alter table folders add column quota_bytes bigint;
+
+create table storage_usage (
+    scope varchar(32) not null,
+    bytes bigint,
+    file_count bigint,
+    primary key (scope)
+) engine=InnoDB;
@@ -0,0 +1,222 @@
+package com.AdityaCode.StudyVault.Controller;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Services.ContentCache;
+import com.AdityaCode.StudyVault.Services.FileServiceStorage;
+import com.AdityaCode.StudyVault.Services.StorageBackend;
+import com.AdityaCode.StudyVault.Services.StorageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Range handling against a local blob, the way a resuming download manager or a media player probes it
+class FileDownloadHandlerTest {
+
+	private static final Instant LAST_MODIFIED = Instant.parse("2024-03-01T10:15:30Z");
+	private static final String ETAG = "\"abc123\"";
+
+	@TempDir
+	Path storageDir;
+
+	private final FileServiceStorage fileServiceStorage = mock(FileServiceStorage.class);
+	private final ContentCache contentCache = mock(ContentCache.class);
+	private final FileDownloadHandler handler =
+			new FileDownloadHandler(fileServiceStorage, new StorageMetrics(new SimpleMeterRegistry()), contentCache);
+	private byte[] content;
+	private FileEntity file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		ReflectionTestUtils.setField(handler, "sendfileThreshold", DataSize.ofKilobytes(48));
+		ReflectionTestUtils.setField(handler, "bandwidthLimit", DataSize.ofBytes(0));
+
+		content = "0123456789abcdefghijklmnopqrstuvwxyz".repeat(20).getBytes(StandardCharsets.US_ASCII);
+		file = new FileEntity("notes.txt", "text/plain", (long) content.length, null, null);
+		file.setId(1L);
+		file.setContentHash("abc123");
+		file.setStoredSize((long) content.length);
+		store(content);
+		when(contentCache.get(any())).thenReturn(Optional.empty());
+	}
+
+	@Test
+	void servesTheWholeFileWithoutRange() throws IOException {
+		MockHttpServletResponse response = serve(request());
+		assertEquals(200, response.getStatus());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesASingleRange() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		MockHttpServletResponse response = serve(request);
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 10-19/" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(10, response.getContentLengthLong());
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesSuffixAndOpenEndedRanges() throws IOException {
+		MockHttpServletRequest suffix = request();
+		suffix.addHeader(HttpHeaders.RANGE, "bytes=-5");
+		assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length), serve(suffix).getContentAsByteArray());
+
+		MockHttpServletRequest openEnded = request();
+		openEnded.addHeader(HttpHeaders.RANGE, "bytes=700-");
+		MockHttpServletResponse response = serve(openEnded);
+		assertEquals("bytes 700-" + (content.length - 1) + "/" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 700, content.length), response.getContentAsByteArray());
+	}
+
+	@Test
+	void rejectsARangePastTheEnd() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=" + content.length + "-");
+		MockHttpServletResponse response = serve(request);
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void ignoresAMalformedRange() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=a-b");
+		MockHttpServletResponse response = serve(request);
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesSeveralRangesAsMultipartByteranges() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-3,100-104");
+		MockHttpServletResponse response = serve(request);
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+		String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+
+		String body = response.getContentAsString(StandardCharsets.US_ASCII);
+		assertEquals(body.length(), response.getContentLengthLong());
+		String expected = "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-3/" + content.length + "\r\n\r\n"
+				+ new String(content, 0, 4, StandardCharsets.US_ASCII)
+				+ "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 100-104/" + content.length + "\r\n\r\n"
+				+ new String(content, 100, 5, StandardCharsets.US_ASCII)
+				+ "\r\n--" + boundary + "--\r\n";
+		assertEquals(expected, body);
+	}
+
+	@Test
+	void rejectsOverlappingRangesLongerThanTheFile() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-,0-,0-");
+		assertEquals(416, serve(request).getStatus());
+	}
+
+	@Test
+	void ifRangeWithTheCurrentEtagKeepsTheRange() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+		assertEquals(206, serve(request).getStatus());
+	}
+
+	@Test
+	void ifRangeWithAStaleValidatorSendsTheWholeFile() throws IOException {
+		for (String ifRange : new String[]{"\"other\"", "W/" + ETAG, httpDate(LAST_MODIFIED.minusSeconds(60)), "not a date"}) {
+			MockHttpServletRequest request = request();
+			request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+			request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+			MockHttpServletResponse response = serve(request);
+			assertEquals(200, response.getStatus(), ifRange);
+			assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), ifRange);
+			assertArrayEquals(content, response.getContentAsByteArray(), ifRange);
+		}
+	}
+
+	@Test
+	void ifRangeWithTheLastModifiedDateKeepsTheRange() throws IOException {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+		assertEquals(206, serve(request).getStatus());
+	}
+
+	@Test
+	void rangesOfACompressedBlobAreCountedInInflatedBytes() throws IOException {
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+			out.write(content);
+		}
+		file.setContentEncoding("gzip");
+		file.setStoredSize((long) gzipped.size());
+		store(gzipped.toByteArray());
+		when(fileServiceStorage.openContent(file)).thenAnswer(invocation -> new ByteArrayInputStream(content));
+
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=500-509");
+		MockHttpServletResponse response = serve(request);
+		assertEquals(206, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("bytes 500-509/" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 500, 510), response.getContentAsByteArray());
+	}
+
+	@Test
+	void encodesQuotesAndNonAsciiInTheFileName() throws IOException {
+		file.setFileName("Übung \"2\".txt");
+		String header = serve(request()).getHeader(HttpHeaders.CONTENT_DISPOSITION);
+		ContentDisposition disposition = ContentDisposition.parse(header);
+		assertEquals("attachment", disposition.getType());
+		assertEquals("Übung \"2\".txt", disposition.getFilename());
+		assertTrue(header.contains("filename*=UTF-8''"), header);
+	}
+
+	private void store(byte[] bytes) throws IOException {
+		Path blob = Files.write(storageDir.resolve("blob"), bytes);
+		when(fileServiceStorage.statContent(file))
+				.thenReturn(Optional.of(new StorageBackend.ObjectInfo("blob", bytes.length, LAST_MODIFIED)));
+		when(fileServiceStorage.localContent(file)).thenReturn(Optional.of(blob));
+	}
+
+	private MockHttpServletRequest request() {
+		return new MockHttpServletRequest("GET", "/api/files/1/download");
+	}
+
+	private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.serve(file, request, response);
+		return response;
+	}
+
+	private static String httpDate(Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+	}
+}
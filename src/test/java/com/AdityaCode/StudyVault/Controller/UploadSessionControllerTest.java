@@ -0,0 +1,77 @@
+package com.AdityaCode.StudyVault.Controller;
+
+import com.AdityaCode.StudyVault.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.Services.ChunkedUploadService;
+import com.AdityaCode.StudyVault.Services.UploadSessionNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Status codes a resuming client relies on: 404 ends the session, 409 carries the offset to resume from
+class UploadSessionControllerTest {
+
+	private final ChunkedUploadService chunkedUploadService = mock(ChunkedUploadService.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new UploadSessionController(chunkedUploadService)).build();
+
+	@Test
+	void missingSessionIsNotFoundOnEveryVerb() throws Exception {
+		UploadSessionNotFoundException missing = new UploadSessionNotFoundException("gone");
+		when(chunkedUploadService.getSession("gone")).thenThrow(missing);
+		when(chunkedUploadService.appendChunk(eq("gone"), anyLong(), any())).thenThrow(missing);
+		when(chunkedUploadService.completeSession("gone")).thenThrow(missing);
+		doThrow(missing).when(chunkedUploadService).abortSession("gone");
+
+		mockMvc.perform(get("/api/files/uploads/gone")).andExpect(status().isNotFound());
+		mockMvc.perform(head("/api/files/uploads/gone")).andExpect(status().isNotFound());
+		mockMvc.perform(put("/api/files/uploads/gone").param("offset", "0").content(new byte[10])).andExpect(status().isNotFound());
+		mockMvc.perform(post("/api/files/uploads/gone/complete")).andExpect(status().isNotFound());
+		mockMvc.perform(delete("/api/files/uploads/gone")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void offsetMismatchIsAConflictWithTheCurrentOffset() throws Exception {
+		when(chunkedUploadService.appendChunk(eq("s1"), anyLong(), any())).thenThrow(new IllegalStateException("Offset mismatch"));
+		when(chunkedUploadService.getSession("s1")).thenReturn(session(4096));
+
+		mockMvc.perform(put("/api/files/uploads/s1").param("offset", "0").content(new byte[10]))
+				.andExpect(status().isConflict())
+				.andExpect(header().string("Upload-Offset", "4096"))
+				.andExpect(jsonPath("$.offset").value(4096));
+	}
+
+	@Test
+	void concurrentChunkIsAConflictWithTheCurrentOffset() throws Exception {
+		when(chunkedUploadService.appendChunk(eq("s1"), anyLong(), any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(UploadSessionEntity.class, "s1"));
+		when(chunkedUploadService.getSession("s1")).thenReturn(session(8192));
+
+		mockMvc.perform(put("/api/files/uploads/s1").param("offset", "4096").content(new byte[10]))
+				.andExpect(status().isConflict())
+				.andExpect(header().string("Upload-Offset", "8192"))
+				.andExpect(jsonPath("$.offset").value(8192));
+	}
+
+	@Test
+	void conflictOnASessionRemovedMeanwhileIsNotFound() throws Exception {
+		when(chunkedUploadService.appendChunk(eq("s1"), anyLong(), any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(UploadSessionEntity.class, "s1"));
+		when(chunkedUploadService.getSession("s1")).thenThrow(new UploadSessionNotFoundException("s1"));
+
+		mockMvc.perform(put("/api/files/uploads/s1").param("offset", "0").content(new byte[10]))
+				.andExpect(status().isNotFound());
+	}
+
+	private static UploadSessionEntity session(long receivedBytes) {
+		UploadSessionEntity session = new UploadSessionEntity("s1", "notes.txt", "text/plain", 100_000L, "/tmp/s1.part", null);
+		session.setReceivedBytes(receivedBytes);
+		return session;
+	}
+}
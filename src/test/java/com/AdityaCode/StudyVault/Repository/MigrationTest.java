@@ -0,0 +1,82 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Upgrades a database that the original release created through ddl-auto=update. The context only starts
+// when Flyway baselined it at V1, ran every later migration and Hibernate's validation accepts the result.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(MigrationTest.Config.class)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:migration-upgrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+class MigrationTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private FileRepo fileRepo;
+	@Autowired
+	private ShareLinkRepo shareLinkRepo;
+
+	@Test
+	void baselinesTheOriginalSchemaAndAppliesTheRest() {
+		List<String> types = jdbcTemplate.queryForList(
+				"select type from flyway_schema_history where version is not null and success = true order by installed_rank", String.class);
+		List<String> versions = jdbcTemplate.queryForList(
+				"select version from flyway_schema_history where version is not null and success = true order by installed_rank", String.class);
+		assertEquals("BASELINE", types.get(0));
+		assertEquals("1", versions.get(0));
+		assertEquals("12", versions.get(versions.size() - 1));
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"select count(*) from information_schema.columns where table_name = 'folders' and column_name = 'folder_path'", Integer.class));
+	}
+
+	@Test
+	void keepsExistingRows() {
+		assertEquals(2, fileRepo.count());
+		assertEquals("lecture.txt", fileRepo.findById(7L).orElseThrow().getFileName());
+		assertEquals(7L, shareLinkRepo.findById(1L).orElseThrow().getFileId());
+	}
+
+	@Test
+	void dropsShareLinksWhoseFileIdIsNotANumber() {
+		assertEquals(List.of(1L), shareLinkRepo.findAll().stream().map(link -> link.getId()).toList());
+	}
+
+	@Test
+	void newFileIdsStartPastExistingOnes() {
+		assertEquals(7 + FileEntity.ID_ALLOCATION_SIZE, jdbcTemplate.queryForObject("select next_val from files_seq", Long.class));
+		FileEntity file = fileRepo.saveAndFlush(new FileEntity("new.txt", "text/plain", 1L, null, null));
+		assertTrue(file.getId() > 7, "id " + file.getId() + " collides with existing rows");
+	}
+
+	static class Config {
+		@Bean
+		FlywayMigrationStrategy seedBaselineThenMigrate() {
+			return flyway -> {
+				new ResourceDatabasePopulator(new ClassPathResource("db/baseline-seed.sql"))
+						.execute(flyway.getConfiguration().getDataSource());
+				flyway.migrate();
+			};
+		}
+	}
+}
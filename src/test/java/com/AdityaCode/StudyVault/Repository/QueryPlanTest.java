@@ -0,0 +1,151 @@
+package com.AdityaCode.StudyVault.Repository;
+
+import com.AdityaCode.StudyVault.Entity.FolderJobEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the hot repository queries against the Flyway schema in H2 (MySQL mode) and fails when the plan of
+// any statement they issue falls back to a full table scan, e.g. after an index is dropped or a query is
+// rewritten so it can no longer use one. The SQL is captured from Hibernate, so it is what actually runs.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(QueryPlanTest.Config.class)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.AdityaCode.StudyVault.Repository.QueryPlanTest$RecordingInspector"
+})
+class QueryPlanTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private FileRepo fileRepo;
+	@Autowired
+	private FolderRepo folderRepo;
+	@Autowired
+	private ListingRepo listingRepo;
+	@Autowired
+	private ShareLinkRepo shareLinkRepo;
+	@Autowired
+	private UploadSessionRepo uploadSessionRepo;
+	@Autowired
+	private FolderJobRepo folderJobRepo;
+
+	@BeforeEach
+	void clearStatements() {
+		RecordingInspector.statements.clear();
+	}
+
+	@Test
+	void listingsUseTheParentIndexes() throws Exception {
+		for (String column : List.of("fileName", "size", "createdAt", "fileType")) {
+			Object after = column.equals("size") ? (Object) 10L : column.equals("createdAt") ? LocalDateTime.now() : "a";
+			listingRepo.findFiles(1L, column, false, null, null, 50);
+			listingRepo.findFiles(1L, column, true, after, 5L, 50);
+			listingRepo.findFiles(null, column, false, after, 5L, 50);
+			listingRepo.findFiles(1L, column, false, null, 5L, 50);
+			listingRepo.findFiles(1L, column, true, null, 5L, 50);
+		}
+		listingRepo.findFolders(1L, false, null, null, 50);
+		listingRepo.findFolders(null, true, "a", 5L, 50);
+		fileRepo.findByParentFolderId(1L);
+		folderRepo.findByParentFolderId(1L);
+		assertNoTableScans();
+	}
+
+	@Test
+	void lookupsUseIndexes() throws Exception {
+		shareLinkRepo.findByToken("token");
+		shareLinkRepo.deleteExpired(LocalDateTime.now());
+		fileRepo.existsByContentHash("hash");
+		uploadSessionRepo.findByUpdatedAtBefore(LocalDateTime.now());
+		folderJobRepo.findByStatusIn(Set.of(FolderJobEntity.QUEUED, FolderJobEntity.RUNNING));
+		assertNoTableScans();
+	}
+
+	@Test
+	void subtreeQueriesUseTheAncestryPathIndex() throws Exception {
+		// The derived StartingWith queries carry MySQL's escape '\\' clause, which H2 rejects; these share their predicate
+		fileRepo.findInSubtree("/1/");
+		folderRepo.findEmptyInSubtree("/1/", PageRequest.of(0, 100));
+		fileRepo.findIdsInSubtree("/1/", PageRequest.of(0, 100));
+		assertNoTableScans();
+	}
+
+	private void assertNoTableScans() throws Exception {
+		List<String> statements = List.copyOf(RecordingInspector.statements);
+		assertFalse(statements.isEmpty());
+		List<String> scans = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			for (String sql : statements) {
+				String plan = explain(connection, sql);
+				if (plan.contains(".tableScan")) {
+					scans.add(sql + "\n" + plan);
+				}
+			}
+		}
+		assertTrue(scans.isEmpty(), "Full table scans:\n" + String.join("\n\n", scans));
+	}
+
+	// The plan does not depend on the bound values, any value that converts to the column type will do
+	private static String explain(Connection connection, String sql) throws Exception {
+		try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+			int parameters = statement.getParameterMetaData().getParameterCount();
+			for (int i = 1; i <= parameters; i++) {
+				statement.setString(i, "1");
+			}
+			try (ResultSet plan = statement.executeQuery()) {
+				plan.next();
+				return plan.getString(1);
+			}
+		}
+	}
+
+	public static class RecordingInspector implements StatementInspector {
+		static final List<String> statements = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+
+	static class Config {
+		@Bean
+		SimpleMeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		// Plain @Repository classes are not part of the JPA test slice
+		@Bean
+		ListingRepo listingRepo(EntityManager entityManager, SimpleMeterRegistry meterRegistry) {
+			return new ListingRepo(entityManager, meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.UploadSessionEntity;
+import com.AdityaCode.StudyVault.Repository.UploadSessionRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Chunk appends against a real staging file, with the session row kept in a mocked repository that
+// behaves like JPA's merge: every save returns a new copy carrying the next version.
+class ChunkedUploadServiceTest {
+
+	private static final String SESSION_ID = "session-1";
+
+	@TempDir
+	Path stagingDir;
+
+	private final UploadSessionRepo uploadSessionRepo = mock(UploadSessionRepo.class);
+	private final List<UploadSessionEntity> saved = new ArrayList<>();
+	private ChunkedUploadService service;
+	private UploadSessionEntity current;
+	private byte[] content;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		service = new ChunkedUploadService(uploadSessionRepo, mock(FileServiceStorage.class), mock(StorageQuotaService.class),
+				new StorageMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofMegabytes(10));
+
+		content = "a line of plain text\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+		Path stagedFile = Files.createFile(stagingDir.resolve(SESSION_ID + ".part"));
+		current = new UploadSessionEntity(SESSION_ID, "notes.txt", null, (long) content.length, stagedFile.toString(), null);
+		current.setVersion(0L);
+		when(uploadSessionRepo.findById(any())).thenAnswer(invocation ->
+				SESSION_ID.equals(invocation.getArgument(0)) ? Optional.of(copy(current)) : Optional.empty());
+		when(uploadSessionRepo.save(any())).thenAnswer(invocation -> {
+			UploadSessionEntity session = invocation.getArgument(0);
+			if (!session.getVersion().equals(current.getVersion())) {
+				throw new org.springframework.orm.ObjectOptimisticLockingFailureException(UploadSessionEntity.class, session.getId());
+			}
+			saved.add(session);
+			current = copy(session);
+			current.setVersion(session.getVersion() + 1);
+			return copy(current);
+		});
+	}
+
+	@Test
+	void appendsChunksAtTheAcknowledgedOffset() throws IOException {
+		service.appendChunk(SESSION_ID, 0, new ByteArrayInputStream(content, 0, 1000));
+		assertEquals(1000, current.getReceivedBytes());
+		UploadSessionEntity session = service.appendChunk(SESSION_ID, 1000, new ByteArrayInputStream(content, 1000, content.length - 1000));
+		assertEquals(content.length, session.getReceivedBytes());
+		assertArrayEquals(content, Files.readAllBytes(Path.of(current.getStagingPath())));
+	}
+
+	@Test
+	void resumesFromWhatReachedTheDiskWhenTheClientDrops() throws IOException {
+		InputStream dropping = new InputStream() {
+			private final InputStream delegate = new ByteArrayInputStream(content, 0, 3000);
+
+			@Override
+			public int read() throws IOException {
+				int b = delegate.read();
+				if (b < 0) {
+					throw new IOException("Connection reset");
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] buffer, int off, int len) throws IOException {
+				int read = delegate.read(buffer, off, len);
+				if (read < 0) {
+					throw new IOException("Connection reset");
+				}
+				return read;
+			}
+		};
+		assertThrows(IOException.class, () -> service.appendChunk(SESSION_ID, 0, dropping));
+		assertEquals(3000, current.getReceivedBytes());
+
+		service.appendChunk(SESSION_ID, 3000, new ByteArrayInputStream(content, 3000, content.length - 3000));
+		assertEquals(content.length, current.getReceivedBytes());
+		assertArrayEquals(content, Files.readAllBytes(Path.of(current.getStagingPath())));
+	}
+
+	@Test
+	void crossingTheSniffedHeadInOneChunkSavesTheMergedCopy() throws IOException {
+		// Two saves in one request: the offset, then the detected type. The second must not use a stale version.
+		UploadSessionEntity session = service.appendChunk(SESSION_ID, 0, new ByteArrayInputStream(content));
+		assertEquals("text/plain", session.getFileType());
+		assertEquals(2, saved.size());
+		assertEquals(content.length, current.getReceivedBytes());
+	}
+
+	@Test
+	void rejectsAnOffsetThatIsNotTheAcknowledgedOne() throws IOException {
+		service.appendChunk(SESSION_ID, 0, new ByteArrayInputStream(content, 0, 1000));
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> service.appendChunk(SESSION_ID, 500, new ByteArrayInputStream(content, 500, 1000)));
+		assertTrue(e.getMessage().contains("1000"));
+		assertArrayEquals(Arrays.copyOf(content, 1000), Files.readAllBytes(Path.of(current.getStagingPath())));
+	}
+
+	@Test
+	void rejectsBytesBeyondTheDeclaredSize() {
+		byte[] tooLong = Arrays.copyOf(content, content.length + 1);
+		assertThrows(IllegalArgumentException.class, () -> service.appendChunk(SESSION_ID, 0, new ByteArrayInputStream(tooLong)));
+	}
+
+	@Test
+	void unknownSessionsAreNotFound() {
+		assertThrows(UploadSessionNotFoundException.class,
+				() -> service.appendChunk("missing", 0, new ByteArrayInputStream(content)));
+		assertThrows(UploadSessionNotFoundException.class, () -> service.completeSession("missing"));
+	}
+
+	@Test
+	void completingAnUnfinishedSessionFails() throws IOException {
+		service.appendChunk(SESSION_ID, 0, new ByteArrayInputStream(content, 0, 1000));
+		assertThrows(IllegalStateException.class, () -> service.completeSession(SESSION_ID));
+	}
+
+	private static UploadSessionEntity copy(UploadSessionEntity session) {
+		UploadSessionEntity copy = new UploadSessionEntity(session.getId(), session.getFileName(), session.getFileType(),
+				session.getTotalSize(), session.getStagingPath(), session.getParentFolderId());
+		copy.setReceivedBytes(session.getReceivedBytes());
+		copy.setVersion(session.getVersion());
+		return copy;
+	}
+}
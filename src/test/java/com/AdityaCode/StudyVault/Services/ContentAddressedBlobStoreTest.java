@@ -0,0 +1,238 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Repository.BlobRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Reference counting and reclamation against the Flyway schema and a filesystem backend. The interleavings
+// are the ones the blobs row lock has to serialize: a reap racing a reference of the same content.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContentAddressedBlobStoreTest.Config.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:blob-store;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"file.blob-dir=target/blob-store-test/blobs/",
+		"file.staging-dir=target/blob-store-test/staging/"
+})
+class ContentAddressedBlobStoreTest {
+
+	private static final byte[] CONTENT = "lecture notes, week 3\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+	@Autowired
+	private ContentAddressedBlobStore blobStore;
+	@Autowired
+	private BlobRepo blobRepo;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		blobRepo.deleteAll();
+		FileSystemUtils.deleteRecursively(Path.of("target/blob-store-test"));
+	}
+
+	@Test
+	void duplicateContentIsStoredOnceAndCounted() throws IOException {
+		BlobStore.StoredBlob first = write();
+		BlobStore.StoredBlob second = write();
+		assertEquals(first.hash(), second.hash());
+		assertEquals("gzip", second.contentEncoding());
+		assertEquals(first.location(), second.location());
+		inTransaction(() -> {
+			blobStore.reference(first);
+			blobStore.reference(second);
+		});
+		assertEquals(2, blobRepo.findRefCount(first.hash()));
+		assertTrue(stored(first));
+	}
+
+	@Test
+	void theLastReleaseReclaimsTheBlob() throws IOException {
+		BlobStore.StoredBlob blob = write();
+		inTransaction(() -> blobStore.reference(blob));
+		inTransaction(() -> blobStore.reference(write()));
+
+		inTransaction(() -> blobStore.release(blob.hash()));
+		assertFalse(blobStore.reapIfUnreferenced(blob.hash()));
+		assertTrue(stored(blob));
+
+		inTransaction(() -> blobStore.release(blob.hash()));
+		awaitTrue(() -> !stored(blob));
+		assertEquals(0, blobRepo.findRefCount(blob.hash()));
+		assertTrue(blobRepo.findById(blob.hash()).isEmpty());
+	}
+
+	@Test
+	void aReleaseThatRollsBackReclaimsNothing() throws IOException {
+		BlobStore.StoredBlob blob = write();
+		inTransaction(() -> blobStore.reference(blob));
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.executeWithoutResult(status -> {
+			try {
+				blobStore.release(blob.hash());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			status.setRollbackOnly();
+		});
+		assertEquals(1, blobRepo.findRefCount(blob.hash()));
+		assertTrue(stored(blob));
+	}
+
+	@Test
+	void aReferenceAfterTheReapFailsInsteadOfPointingAtNothing() throws IOException {
+		BlobStore.StoredBlob owned = write();
+		inTransaction(() -> blobStore.reference(owned));
+		// A second upload of the same content finds the object and reuses it, then the owner deletes its file
+		BlobStore.StoredBlob reused = write();
+		inTransaction(() -> blobStore.release(owned.hash()));
+		awaitTrue(() -> !stored(owned));
+
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> inTransaction(() -> blobStore.reference(reused)));
+		assertTrue(e.getMessage().contains("retry the upload"));
+		assertEquals(0, blobRepo.findRefCount(owned.hash()));
+
+		// The retry writes the bytes again
+		BlobStore.StoredBlob retried = write();
+		inTransaction(() -> blobStore.reference(retried));
+		assertTrue(stored(retried));
+		assertEquals(1, blobRepo.findRefCount(retried.hash()));
+	}
+
+	@Test
+	void aReapAfterTheReferenceKeepsTheBlob() throws IOException {
+		BlobStore.StoredBlob owned = write();
+		inTransaction(() -> blobStore.reference(owned));
+		BlobStore.StoredBlob reused = write();
+		inTransaction(() -> blobStore.reference(reused));
+		inTransaction(() -> blobStore.release(owned.hash()));
+
+		assertFalse(blobStore.reapIfUnreferenced(owned.hash()));
+		assertTrue(stored(reused));
+		assertEquals(1, blobRepo.findRefCount(reused.hash()));
+	}
+
+	@Test
+	void anObjectWithoutARowIsReclaimed() throws IOException {
+		// What the reconciler finds after an upload whose transaction never committed
+		BlobStore.StoredBlob orphan = write();
+		assertTrue(blobStore.reapIfUnreferenced(orphan.hash()));
+		assertFalse(stored(orphan));
+		assertTrue(blobRepo.findById(orphan.hash()).isEmpty());
+	}
+
+	@Test
+	void everyCommittedReferenceSurvivesConcurrentReleases() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < 6; t++) {
+				results.add(executor.submit(() -> {
+					int retries = 0;
+					for (int i = 0; i < 20; i++) {
+						BlobStore.StoredBlob blob = write();
+						try {
+							inTransaction(() -> blobStore.reference(blob));
+						} catch (IllegalStateException e) {
+							retries++;
+							i--;
+							continue;
+						}
+						// Holding a committed reference, the bytes must be there
+						assertTrue(stored(blob), "referenced blob was reclaimed");
+						inTransaction(() -> blobStore.release(blob.hash()));
+					}
+					return retries;
+				}));
+			}
+			for (Future<Integer> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		String hash = write().hash();
+		awaitTrue(() -> blobRepo.findRefCount(hash) == 0);
+	}
+
+	private BlobStore.StoredBlob write() throws IOException {
+		return blobStore.write(new ByteArrayInputStream(CONTENT), "text/plain");
+	}
+
+	private boolean stored(BlobStore.StoredBlob blob) {
+		try {
+			return blobStore.stat(blob.hash(), blob.contentEncoding()).isPresent();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void inTransaction(IoAction action) throws IOException {
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				try {
+					action.run();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "timed out waiting for the reaper");
+			Thread.onSpinWait();
+		}
+	}
+
+	private interface IoAction {
+		void run() throws IOException;
+	}
+
+	static class Config {
+		@Bean
+		FileSystemStorageBackend storageBackend() {
+			return new FileSystemStorageBackend();
+		}
+
+		@Bean
+		ContentAddressedBlobStore blobStore(BlobRepo blobRepo, FileSystemStorageBackend storageBackend,
+											PlatformTransactionManager transactionManager) {
+			return new ContentAddressedBlobStore(blobRepo, storageBackend, transactionManager);
+		}
+	}
+}
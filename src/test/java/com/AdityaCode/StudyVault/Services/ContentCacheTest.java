@@ -0,0 +1,165 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ContentCacheTest {
+
+	private static final String HASH = "ab".repeat(32);
+
+	@TempDir
+	Path blobDir;
+
+	private final BlobStore blobStore = mock(BlobStore.class);
+	private final byte[] content = "cached lecture notes\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+	private ContentCache contentCache;
+	private FileEntity file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		contentCache = cache(DataSize.ofKilobytes(64), Duration.ofMinutes(10));
+		file = file(HASH, null, content.length);
+		stored(HASH, null, content);
+	}
+
+	@Test
+	void admitsABlobOnItsSecondRequest() throws IOException {
+		assertTrue(contentCache.get(file).isEmpty());
+		verify(blobStore, never()).stat(any(), any());
+
+		ContentCache.CachedContent loaded = contentCache.get(file).orElseThrow();
+		assertArrayEquals(content, bytes(loaded.bytes()));
+		assertSame(loaded, contentCache.get(file).orElseThrow());
+		verify(blobStore, times(1)).stat(HASH, null);
+		assertEquals(1L, contentCache.stats().get("size"));
+	}
+
+	@Test
+	void forgetsRequestsOutsideTheAdmissionWindow() throws Exception {
+		contentCache = cache(DataSize.ofKilobytes(64), Duration.ofMillis(50));
+		assertTrue(contentCache.get(file).isEmpty());
+		TimeUnit.MILLISECONDS.sleep(150);
+		assertTrue(contentCache.get(file).isEmpty());
+		verify(blobStore, never()).stat(any(), any());
+	}
+
+	@Test
+	void neverCachesLargeOrLegacyFiles() throws IOException {
+		FileEntity large = file("cd".repeat(32), null, 2048);
+		large.setStoredSize(DataSize.ofKilobytes(2).toBytes() + 1);
+		FileEntity legacy = file(null, null, content.length);
+		contentCache = new ContentCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(2), Duration.ofMinutes(10),
+				blobStore, new SimpleMeterRegistry());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(contentCache.get(large).isEmpty());
+			assertTrue(contentCache.get(legacy).isEmpty());
+		}
+		verify(blobStore, never()).stat(any(), any());
+	}
+
+	@Test
+	void aDeletedFileLeavesTheCache() throws IOException {
+		contentCache.get(file);
+		contentCache.get(file);
+		contentCache.onFileDeleted(new FileDeletedEvent(file));
+		assertEquals(0L, contentCache.stats().get("size"));
+		// Uploaded again later, the blob has to earn its place anew
+		assertTrue(contentCache.get(file).isEmpty());
+		verify(blobStore, times(1)).stat(HASH, null);
+	}
+
+	@Test
+	void encodingsAreCachedSeparately() throws IOException {
+		FileEntity gzipped = file(HASH, "gzip", 40);
+		byte[] stored = Arrays.copyOf(content, 40);
+		stored(HASH, "gzip", stored);
+		contentCache.get(file);
+		contentCache.get(gzipped);
+		assertArrayEquals(content, bytes(contentCache.get(file).orElseThrow().bytes()));
+		assertArrayEquals(stored, bytes(contentCache.get(gzipped).orElseThrow().bytes()));
+
+		contentCache.onFileDeleted(new FileDeletedEvent(gzipped));
+		assertEquals(1L, contentCache.stats().get("size"));
+	}
+
+	@Test
+	void aReclaimedBlobIsNotCached() throws IOException {
+		when(blobStore.stat(HASH, null)).thenReturn(Optional.empty());
+		contentCache.get(file);
+		assertTrue(contentCache.get(file).isEmpty());
+		assertEquals(0L, contentCache.stats().get("size"));
+	}
+
+	@Test
+	void remoteBlobsAreReadThroughTheStore() throws IOException {
+		when(blobStore.localPath(HASH, null)).thenReturn(Optional.empty());
+		when(blobStore.open(HASH, null)).thenAnswer(invocation -> new ByteArrayInputStream(content));
+		contentCache.get(file);
+		assertArrayEquals(content, bytes(contentCache.get(file).orElseThrow().bytes()));
+	}
+
+	@Test
+	void readersGetIndependentViews() throws IOException {
+		contentCache.get(file);
+		ContentCache.CachedContent cached = contentCache.get(file).orElseThrow();
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 30), bytes(cached.region(10, 20)));
+		assertArrayEquals(content, cached.open().readAllBytes());
+		assertArrayEquals(content, cached.open().readAllBytes());
+		assertEquals(content.length, cached.bytes().remaining());
+	}
+
+	@Test
+	void aZeroSizeDisablesTheCache() throws IOException {
+		contentCache = cache(DataSize.ofBytes(0), Duration.ofMinutes(10));
+		for (int i = 0; i < 3; i++) {
+			assertTrue(contentCache.get(file).isEmpty());
+		}
+		assertEquals(false, contentCache.stats().get("enabled"));
+		contentCache.onFileDeleted(new FileDeletedEvent(file));
+	}
+
+	private ContentCache cache(DataSize maxSize, Duration admissionWindow) {
+		return new ContentCache(maxSize, DataSize.ofKilobytes(4), admissionWindow, blobStore, new SimpleMeterRegistry());
+	}
+
+	private void stored(String hash, String encoding, byte[] bytes) throws IOException {
+		Path blob = Files.write(blobDir.resolve(hash + (encoding != null ? ".gz" : "")), bytes);
+		when(blobStore.stat(hash, encoding))
+				.thenReturn(Optional.of(new StorageBackend.ObjectInfo(hash, bytes.length, Instant.now())));
+		when(blobStore.localPath(hash, encoding)).thenReturn(Optional.of(blob));
+	}
+
+	private static FileEntity file(String hash, String encoding, long storedSize) {
+		FileEntity file = new FileEntity("notes.txt", "text/plain", storedSize, null, null);
+		file.setContentHash(hash);
+		file.setContentEncoding(encoding);
+		file.setStoredSize(storedSize);
+		return file;
+	}
+
+	private static byte[] bytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,158 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// STORED entries need their CRC before the data. For gzip blobs it comes from the 8-byte trailer, locally or
+// as a ranged read, without inflating the blob; ZipInputStream rejects the entry if it does not match.
+class FolderArchiveServiceTest {
+
+	@TempDir
+	Path blobDir;
+
+	private final FileServiceStorage fileServiceStorage = mock(FileServiceStorage.class);
+	private final FolderArchiveService archiveService =
+			new FolderArchiveService(mock(FileRepo.class), mock(FolderRepo.class), fileServiceStorage);
+	private final byte[] pdf = "%PDF-1.7 lecture slides\n".repeat(400).getBytes(StandardCharsets.US_ASCII);
+
+	@Test
+	void localGzipBlobsTakeTheCrcFromTheTrailer() throws IOException {
+		FileEntity file = file(1L, "slides.pdf", "application/pdf", pdf.length);
+		byte[] gzipped = gzip(pdf);
+		file.setContentEncoding("gzip");
+		file.setStoredSize((long) gzipped.length);
+		when(fileServiceStorage.localContent(file)).thenReturn(Optional.of(Files.write(blobDir.resolve("blob.gz"), gzipped)));
+		when(fileServiceStorage.openContent(file)).thenAnswer(invocation -> new ByteArrayInputStream(pdf));
+
+		List<ZipEntry> entries = readBack(write(file), List.of(pdf));
+		assertEquals(ZipEntry.STORED, entries.get(0).getMethod());
+		assertEquals(crc(pdf), entries.get(0).getCrc());
+		// Only the archived body is read in full
+		verify(fileServiceStorage, times(1)).openContent(file);
+	}
+
+	@Test
+	void remoteGzipBlobsFetchOnlyTheTrailer() throws IOException {
+		FileEntity file = file(1L, "slides.pdf", "application/pdf", pdf.length);
+		byte[] gzipped = gzip(pdf);
+		file.setContentEncoding("gzip");
+		file.setStoredSize((long) gzipped.length);
+		when(fileServiceStorage.localContent(file)).thenReturn(Optional.empty());
+		when(fileServiceStorage.openStored(file, gzipped.length - 8, 8))
+				.thenReturn(new ByteArrayInputStream(Arrays.copyOfRange(gzipped, gzipped.length - 8, gzipped.length)));
+		when(fileServiceStorage.openContent(file)).thenAnswer(invocation -> new ByteArrayInputStream(pdf));
+
+		List<ZipEntry> entries = readBack(write(file), List.of(pdf));
+		assertEquals(crc(pdf), entries.get(0).getCrc());
+		verify(fileServiceStorage, times(1)).openContent(file);
+	}
+
+	@Test
+	void plainBlobsAreReadOnceForTheCrc() throws IOException {
+		byte[] png = new byte[5000];
+		Arrays.fill(png, (byte) 7);
+		FileEntity local = file(1L, "photo.png", "image/png", png.length);
+		when(fileServiceStorage.localContent(local)).thenReturn(Optional.of(Files.write(blobDir.resolve("blob"), png)));
+		when(fileServiceStorage.openContent(local)).thenAnswer(invocation -> new ByteArrayInputStream(png));
+		FileEntity remote = file(2L, "scan.pdf", "application/pdf", pdf.length);
+		when(fileServiceStorage.localContent(remote)).thenReturn(Optional.empty());
+		when(fileServiceStorage.openContent(remote)).thenAnswer(invocation -> new ByteArrayInputStream(pdf));
+
+		List<ZipEntry> entries = readBack(write(local, remote), List.of(png, pdf));
+		assertEquals(crc(png), entries.get(0).getCrc());
+		assertEquals(crc(pdf), entries.get(1).getCrc());
+		verify(fileServiceStorage, never()).openStored(eq(remote), anyLong(), anyLong());
+	}
+
+	@Test
+	void otherTypesAreDeflated() throws IOException {
+		byte[] text = "notes\n".repeat(1000).getBytes(StandardCharsets.US_ASCII);
+		FileEntity file = file(1L, "notes.txt", "text/plain", text.length);
+		when(fileServiceStorage.openContent(file)).thenAnswer(invocation -> new ByteArrayInputStream(text));
+
+		List<ZipEntry> entries = readBack(write(file), List.of(text));
+		assertEquals(ZipEntry.DEFLATED, entries.get(0).getMethod());
+		verify(fileServiceStorage, never()).localContent(file);
+	}
+
+	@Test
+	void missingBlobsAreLeftOut() throws IOException {
+		FileEntity missing = file(1L, "gone.pdf", "application/pdf", pdf.length);
+		when(fileServiceStorage.localContent(missing)).thenReturn(Optional.of(blobDir.resolve("does-not-exist")));
+		FileEntity present = file(2L, "notes.txt", "text/plain", pdf.length);
+		when(fileServiceStorage.openContent(present)).thenAnswer(invocation -> new ByteArrayInputStream(pdf));
+		FileEntity missingText = file(3L, "gone.txt", "text/plain", 10);
+		when(fileServiceStorage.openContent(missingText)).thenThrow(new NoSuchFileException("blob"));
+
+		List<ZipEntry> entries = readBack(write(missing, present, missingText), List.of(pdf));
+		assertEquals(List.of("notes.txt"), entries.stream().map(ZipEntry::getName).toList());
+	}
+
+	private byte[] write(FileEntity... files) throws IOException {
+		List<FolderArchiveService.ArchiveEntry> entries = new ArrayList<>();
+		for (FileEntity file : files) {
+			entries.add(new FolderArchiveService.ArchiveEntry(file.getFileName(), file));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		archiveService.write(new FolderArchiveService.FolderArchive("folder.zip", entries), out);
+		return out.toByteArray();
+	}
+
+	// ZipInputStream checks each entry's CRC against its data when the entry is read to the end
+	private static List<ZipEntry> readBack(byte[] archive, List<byte[]> expectedBodies) throws IOException {
+		List<ZipEntry> entries = new ArrayList<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				assertArrayEquals(expectedBodies.get(entries.size()), zip.readAllBytes(), entry.getName());
+				entries.add(entry);
+			}
+		}
+		assertEquals(expectedBodies.size(), entries.size());
+		return entries;
+	}
+
+	private static FileEntity file(Long id, String name, String type, long size) {
+		FileEntity file = new FileEntity(name, type, size, null, 1L);
+		file.setId(id);
+		return file;
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	private static long crc(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,304 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Entity.FolderJobEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderJobRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Job bookkeeping against an in-memory folder_jobs table. The tree is course(1) > topic(2) > week(3),
+// with other(4) > otherChild(5) and archive(6) beside it.
+class FolderJobServiceTest {
+
+	private final Map<String, FolderJobEntity> jobs = new ConcurrentHashMap<>();
+	private final Map<Long, FolderEntity> folders = new ConcurrentHashMap<>();
+	private final FolderJobRepo folderJobRepo = mock(FolderJobRepo.class);
+	private final FolderRepo folderRepo = mock(FolderRepo.class);
+	private final FileServiceStorage fileServiceStorage = mock(FileServiceStorage.class);
+	private FolderJobService folderJobService;
+
+	@BeforeEach
+	void setUp() {
+		folder(1L, null, "/1/");
+		folder(2L, 1L, "/1/2/");
+		folder(3L, 2L, "/1/2/3/");
+		folder(4L, null, "/4/");
+		folder(5L, 4L, "/4/5/");
+		folder(6L, null, "/6/");
+		when(folderRepo.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(folders.get(invocation.<Long>getArgument(0))));
+		when(folderRepo.findAllById(any())).thenAnswer(invocation -> {
+			List<FolderEntity> found = new ArrayList<>();
+			invocation.<Iterable<Long>>getArgument(0).forEach(id -> Optional.ofNullable(folders.get(id)).ifPresent(found::add));
+			return found;
+		});
+
+		when(folderJobRepo.save(any())).thenAnswer(invocation -> {
+			FolderJobEntity job = invocation.getArgument(0);
+			jobs.put(job.getId(), job);
+			return job;
+		});
+		when(folderJobRepo.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+		when(folderJobRepo.findByStatusIn(any())).thenAnswer(invocation -> {
+			Collection<String> statuses = invocation.getArgument(0);
+			return jobs.values().stream().filter(job -> statuses.contains(job.getStatus())).toList();
+		});
+		when(folderJobRepo.isCancelRequested(anyString())).thenAnswer(invocation -> jobs.get(invocation.<String>getArgument(0)).getCancelRequested());
+		when(folderJobRepo.updateStatus(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+			FolderJobEntity job = jobs.get(invocation.<String>getArgument(0));
+			job.setError(invocation.getArgument(2));
+			job.setStatus(invocation.getArgument(1));
+			return 1;
+		});
+		when(folderJobRepo.updateProgress(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+			jobs.get(invocation.<String>getArgument(0)).setProcessedItems(invocation.getArgument(1));
+			return 1;
+		});
+		when(folderJobRepo.requestCancel(anyString(), any(), any())).thenAnswer(invocation -> {
+			FolderJobEntity job = jobs.get(invocation.<String>getArgument(0));
+			if (!invocation.<Collection<String>>getArgument(1).contains(job.getStatus())) {
+				return 0;
+			}
+			job.setCancelRequested(true);
+			return 1;
+		});
+
+		folderJobService = service(fileServiceStorage, 10);
+	}
+
+	@AfterEach
+	void tearDown() {
+		folderJobService.shutdown();
+	}
+
+	@Test
+	void jobsOnAnAncestorOrDescendantAreRejected() {
+		FolderJobEntity topic = queuedJob(FolderJobEntity.DELETE, 2L, null);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> folderJobService.submitDelete(1L));
+		assertTrue(e.getMessage().contains("overlaps folder 2"), e.getMessage());
+		assertThrows(IllegalStateException.class, () -> folderJobService.submitDelete(3L));
+		assertThrows(IllegalStateException.class, () -> folderJobService.submitMove(3L, null, true, null));
+		assertThrows(IllegalStateException.class, () -> folderJobService.submitDelete(2L));
+		assertEquals(List.of(topic.getId()), List.copyOf(jobs.keySet()));
+	}
+
+	@Test
+	void aMoveIntoAnotherJobsSubtreeIsRejected() {
+		queuedJob(FolderJobEntity.DELETE, 2L, null);
+		// The moved folder is unrelated, its target would be deleted along with the topic
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> folderJobService.submitMove(5L, 3L, false, null));
+		assertTrue(e.getMessage().contains("overlaps folder 2"), e.getMessage());
+	}
+
+	@Test
+	void aJobOnTheTargetOfAQueuedMoveIsRejected() {
+		queuedJob(FolderJobEntity.MOVE, 6L, 5L);
+		assertThrows(IllegalStateException.class, () -> folderJobService.submitDelete(4L));
+		assertThrows(IllegalStateException.class, () -> folderJobService.submitDelete(5L));
+		// Beside the target is fine
+		folderJobService.submitDelete(1L);
+	}
+
+	@Test
+	void disjointSubtreesAndFinishedJobsDoNotConflict() {
+		queuedJob(FolderJobEntity.DELETE, 2L, null);
+		FolderJobEntity done = queuedJob(FolderJobEntity.DELETE, 6L, null);
+		done.setStatus(FolderJobEntity.COMPLETED);
+
+		folderJobService.submitMove(5L, null, true, null);
+		folderJobService.submitDelete(6L);
+		assertEquals(4, jobs.size());
+	}
+
+	@Test
+	void aCancelledDeleteStopsBetweenBatches() throws Exception {
+		CountDownLatch firstBatch = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(fileServiceStorage.findFileIdsInSubtree(eq("/1/2/"), anyInt())).thenReturn(List.of(10L, 11L), List.of(12L, 13L), List.of());
+		doAnswer(invocation -> {
+			firstBatch.countDown();
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+			return null;
+		}).when(fileServiceStorage).deleteFiles(List.of(10L, 11L));
+
+		FolderJobEntity job = folderJobService.submitDelete(2L);
+		assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+		assertEquals(FolderJobEntity.RUNNING, folderJobService.getJob(job.getId()).getStatus());
+		assertTrue(folderJobService.cancel(job.getId()).getCancelRequested());
+		release.countDown();
+
+		awaitStatus(job.getId(), FolderJobEntity.CANCELLED);
+		// The batch in flight finished as a whole, nothing after it was touched
+		verify(fileServiceStorage).deleteFiles(List.of(10L, 11L));
+		verify(fileServiceStorage, never()).deleteFiles(List.of(12L, 13L));
+		verify(fileServiceStorage, never()).deleteEmptyFolders(anyString(), anyInt());
+		assertEquals(2, jobs.get(job.getId()).getProcessedItems());
+	}
+
+	@Test
+	void aDeleteRemovesFilesThenTheEmptyFoldersInBatches() throws Exception {
+		ReflectionTestUtils.setField(folderJobService, "batchSize", 2);
+		when(fileServiceStorage.findFileIdsInSubtree("/1/2/", 2)).thenReturn(List.of(10L, 11L), List.of(12L), List.of());
+		when(fileServiceStorage.deleteEmptyFolders("/1/2/", 2)).thenAnswer(invocation -> {
+			folders.remove(3L);
+			return 1;
+		}).thenAnswer(invocation -> {
+			folders.remove(2L);
+			return 1;
+		});
+
+		FolderJobEntity job = folderJobService.submitDelete(2L);
+		awaitStatus(job.getId(), FolderJobEntity.COMPLETED);
+		assertEquals(5, jobs.get(job.getId()).getProcessedItems());
+		verify(fileServiceStorage, times(2)).deleteEmptyFolders("/1/2/", 2);
+	}
+
+	@Test
+	void aQueuedJobCancelledBeforeItStartsNeverRuns() throws Exception {
+		CountDownLatch release = blockTheWorker();
+		FolderJobEntity queued = folderJobService.submitDelete(2L);
+		assertEquals(FolderJobEntity.QUEUED, queued.getStatus());
+
+		folderJobService.cancel(queued.getId());
+		release.countDown();
+		awaitStatus(queued.getId(), FolderJobEntity.CANCELLED);
+		verify(fileServiceStorage, never()).findFileIdsInSubtree(eq("/1/2/"), anyInt());
+	}
+
+	@Test
+	void aRunningMoveCannotBeCancelledHalfway() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(fileServiceStorage.moveFolder(3L, true, 4L, null)).thenAnswer(invocation -> {
+			started.countDown();
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+			return folders.get(3L);
+		});
+		FolderJobEntity job = folderJobService.submitMove(3L, 4L, false, null);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		folderJobService.cancel(job.getId());
+		release.countDown();
+
+		// The move is one transaction, the cancel request only stops jobs that have not started
+		awaitStatus(job.getId(), FolderJobEntity.COMPLETED);
+	}
+
+	@Test
+	void aFinishedJobCannotBeCancelled() throws Exception {
+		FolderJobEntity job = folderJobService.submitMove(3L, null, false, "renamed");
+		awaitStatus(job.getId(), FolderJobEntity.COMPLETED);
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> folderJobService.cancel(job.getId()));
+		assertTrue(e.getMessage().endsWith("already completed"), e.getMessage());
+	}
+
+	@Test
+	void aMoveThatCommittedBeforeARestartIsRunAgainHarmlessly() throws Exception {
+		// The move committed, the process died before the job was marked completed
+		folders.get(3L).setParentFolderId(4L);
+		folders.get(3L).setAncestryPath("/4/3/");
+		FolderJobEntity job = queuedJob(FolderJobEntity.MOVE, 3L, 4L);
+		job.setStatus(FolderJobEntity.RUNNING);
+
+		StorageQuotaService storageQuotaService = mock(StorageQuotaService.class);
+		FileServiceStorage storage = new FileServiceStorage(mock(FileRepo.class), folderRepo, mock(BlobStore.class),
+				mock(MetadataCache.class), mock(ApplicationEventPublisher.class), storageQuotaService,
+				new StorageMetrics(new SimpleMeterRegistry()), mock(ContentCache.class), mock(PlatformTransactionManager.class));
+		folderJobService.shutdown();
+		folderJobService = service(storage, 10);
+		folderJobService.resumeJobs();
+
+		awaitStatus(job.getId(), FolderJobEntity.COMPLETED);
+		verify(storageQuotaService, never()).recordSubtreeMoved(any(), any());
+		verify(folderRepo, never()).moveSubtree(anyString(), anyString());
+		assertEquals("/4/3/", folders.get(3L).getAncestryPath());
+	}
+
+	@Test
+	void aJobRejectedByAFullQueueIsMarkedFailed() throws Exception {
+		CountDownLatch release = blockTheWorker();
+		FolderJobEntity queued = folderJobService.submitDelete(2L);
+		FolderJobEntity rejected = folderJobService.submitDelete(6L);
+		try {
+			assertEquals(FolderJobEntity.QUEUED, queued.getStatus());
+			assertEquals(FolderJobEntity.FAILED, rejected.getStatus());
+			assertEquals("Job queue is full", rejected.getError());
+			assertEquals(FolderJobEntity.FAILED, jobs.get(rejected.getId()).getStatus());
+		} finally {
+			release.countDown();
+		}
+		// No longer active, so it does not block a retry
+		folderJobService.submitDelete(6L);
+	}
+
+	// Occupies the single worker with a delete of other(4) until the latch is released, the queue holds one more
+	private CountDownLatch blockTheWorker() throws InterruptedException {
+		ReflectionTestUtils.setField(folderJobService, "queueCapacity", 1);
+		folderJobService.shutdown();
+		folderJobService.init();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(fileServiceStorage.findFileIdsInSubtree(eq("/4/"), anyInt())).thenAnswer(invocation -> {
+			started.countDown();
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+			return List.of();
+		});
+		when(fileServiceStorage.deleteEmptyFolders(eq("/4/"), anyInt())).thenReturn(0);
+		folderJobService.submitDelete(4L);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return release;
+	}
+
+	private FolderJobService service(FileServiceStorage storage, int queueCapacity) {
+		FolderJobService service = new FolderJobService(folderJobRepo, folderRepo, storage);
+		ReflectionTestUtils.setField(service, "workers", 1);
+		ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+		ReflectionTestUtils.setField(service, "batchSize", 500);
+		ReflectionTestUtils.setField(service, "retention", Duration.ofDays(7));
+		service.init();
+		return service;
+	}
+
+	// Recorded as queued without being handed to the worker
+	private FolderJobEntity queuedJob(String type, Long folderId, Long targetParentId) {
+		FolderJobEntity job = new FolderJobEntity(type + "-" + folderId, type, folderId, 1L);
+		job.setTargetParentId(targetParentId);
+		jobs.put(job.getId(), job);
+		return job;
+	}
+
+	private void folder(Long id, Long parentId, String ancestryPath) {
+		FolderEntity folder = new FolderEntity("folder" + id, parentId);
+		folder.setId(id);
+		folder.setAncestryPath(ancestryPath);
+		folders.put(id, folder);
+	}
+
+	private void awaitStatus(String jobId, String status) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!status.equals(jobs.get(jobId).getStatus())) {
+			assertTrue(System.nanoTime() < deadline, "job " + jobId + " is " + jobs.get(jobId).getStatus() + ", expected " + status);
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+	}
+}
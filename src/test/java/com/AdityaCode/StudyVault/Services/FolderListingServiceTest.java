@@ -0,0 +1,152 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Dto.ListingItem;
+import com.AdityaCode.StudyVault.Dto.ListingPage;
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import com.AdityaCode.StudyVault.Repository.ListingRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Walks a folder page by page in every sort and direction and expects each row exactly once, in the
+// order MySQL would return the whole listing, including rows whose sort value is null.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FolderListingServiceTest.Config.class)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:listing-pages;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+class FolderListingServiceTest {
+
+	@Autowired
+	private FolderListingService folderListingService;
+	@Autowired
+	private FileRepo fileRepo;
+	@Autowired
+	private FolderRepo folderRepo;
+
+	private final List<FileEntity> files = new ArrayList<>();
+
+	@BeforeEach
+	void createListing() {
+		folderRepo.save(new FolderEntity("b", null));
+		folderRepo.save(new FolderEntity("a", null));
+		LocalDateTime day = LocalDateTime.of(2024, 1, 1, 12, 0);
+		files.add(file("notes.txt", "text/plain", 10L, day));
+		files.add(file("slides.pdf", "application/pdf", 10L, null));
+		files.add(file("photo.png", null, 30L, day.plusDays(1)));
+		files.add(file("notes.txt", "text/plain", null, null));
+		files.add(file("scan.jpg", "image/jpeg", 20L, day));
+		files.add(file("old.bin", null, 5L, day.minusDays(3)));
+		files.add(file("Colon:name", "text/plain", 5L, day));
+		fileRepo.saveAllAndFlush(files);
+	}
+
+	@Test
+	void pagesThroughEverySortWithoutGapsOrRepeats() {
+		for (String sort : List.of("name", "size", "createdAt", "type")) {
+			for (String direction : List.of("asc", "desc")) {
+				for (int limit : List.of(1, 2, 3, 10)) {
+					assertEquals(expected(sort, direction), walk(sort, direction, limit), sort + " " + direction + " limit " + limit);
+				}
+			}
+		}
+	}
+
+	@Test
+	void pageEndingAtTheLastFolderContinuesWithFiles() {
+		ListingPage first = folderListingService.listPage(null, "name", "asc", null, 2);
+		assertEquals(List.of("a", "b"), first.items().stream().map(ListingItem::name).toList());
+		assertNotNull(first.nextCursor());
+		ListingPage second = folderListingService.listPage(null, "name", "asc", first.nextCursor(), 2);
+		assertEquals(ListingItem.FILE, second.items().get(0).kind());
+	}
+
+	@Test
+	void rejectsTamperedCursors() {
+		for (String raw : List.of("file:1:v:not-a-date", "file:x:v:a", "dir:1:v:a", "file:1:null", "file:1")) {
+			String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+			assertThrows(IllegalArgumentException.class,
+					() -> folderListingService.listPage(null, "createdAt", "asc", cursor, 5), raw);
+		}
+		assertThrows(IllegalArgumentException.class, () -> folderListingService.listPage(null, "name", "asc", "%%%", 5));
+	}
+
+	@Test
+	void rejectsCursorsFromAnotherSort() {
+		ListingPage page = folderListingService.listPage(null, "name", "asc", null, 3);
+		assertThrows(IllegalArgumentException.class,
+				() -> folderListingService.listPage(null, "size", "asc", page.nextCursor(), 5));
+	}
+
+	private List<Long> walk(String sort, String direction, int limit) {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			ListingPage page = folderListingService.listPage(null, sort, direction, cursor, limit);
+			page.items().stream().filter(item -> item.kind().equals(ListingItem.FILE)).forEach(item -> ids.add(item.id()));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	// MySQL orders nulls below every value
+	private List<Long> expected(String sort, String direction) {
+		Comparator<FileEntity> order = switch (sort) {
+			case "size" -> by(FileEntity::getSize);
+			case "createdAt" -> by(FileEntity::getCreatedAt);
+			case "type" -> by(FileEntity::getFileType);
+			default -> by(FileEntity::getFileName);
+		};
+		order = order.thenComparing(FileEntity::getId);
+		if (direction.equals("desc")) {
+			order = order.reversed();
+		}
+		return files.stream().sorted(order).map(FileEntity::getId).toList();
+	}
+
+	private static <T extends Comparable<T>> Comparator<FileEntity> by(Function<FileEntity, T> key) {
+		return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+	}
+
+	private static FileEntity file(String name, String type, Long size, LocalDateTime createdAt) {
+		FileEntity file = new FileEntity(name, type, size, null, null);
+		file.setCreatedAt(createdAt);
+		return file;
+	}
+
+	static class Config {
+		@Bean
+		ListingRepo listingRepo(EntityManager entityManager) {
+			return new ListingRepo(entityManager, new SimpleMeterRegistry());
+		}
+
+		@Bean
+		FolderListingService folderListingService(ListingRepo listingRepo) {
+			return new FolderListingService(listingRepo);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.AdityaCode.StudyVault.Services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against a local S3-compatible store (MinIO, S3Mock, ...) with an existing bucket, e.g.
+// ./mvnw test -Dtest=S3StorageBackendTest -Ds3.endpoint=http://localhost:9000 -Ds3.bucket=studyvault
+@EnabledIfSystemProperty(named = "s3.endpoint", matches = ".+")
+class S3StorageBackendTest {
+
+	@TempDir
+	Path tempDir;
+
+	private S3StorageBackend backend;
+	private String prefix;
+
+	@BeforeEach
+	void setUp() {
+		backend = new S3StorageBackend(System.getProperty("s3.endpoint"), "us-east-1",
+				System.getProperty("s3.bucket", "studyvault"),
+				System.getProperty("s3.access-key", "test"), System.getProperty("s3.secret-key", "test"),
+				true, DataSize.ofMegabytes(5));
+		prefix = "test-" + UUID.randomUUID() + "/";
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		List<String> keys = new ArrayList<>();
+		backend.list(prefix, object -> keys.add(object.key()));
+		for (String key : keys) {
+			backend.delete(key);
+		}
+		backend.close();
+	}
+
+	@Test
+	void putGetAndDeleteSmallObject() throws Exception {
+		byte[] content = randomBytes(1000);
+		backend.put(prefix + "small", stage(content));
+
+		StorageBackend.ObjectInfo info = backend.stat(prefix + "small").orElseThrow();
+		assertEquals(content.length, info.size());
+		try (InputStream in = backend.get(prefix + "small")) {
+			assertArrayEquals(content, in.readAllBytes());
+		}
+
+		assertTrue(backend.delete(prefix + "small"));
+		assertFalse(backend.delete(prefix + "small"));
+		assertTrue(backend.stat(prefix + "small").isEmpty());
+		assertThrows(NoSuchFileException.class, () -> backend.get(prefix + "small"));
+	}
+
+	@Test
+	void largeObjectsUseMultipartAndServeRanges() throws Exception {
+		// Three parts, the last one short
+		byte[] content = randomBytes(12 * 1024 * 1024 + 123);
+		Path source = stage(content);
+		backend.put(prefix + "large", source);
+		assertFalse(Files.exists(source));
+
+		assertEquals(content.length, backend.stat(prefix + "large").orElseThrow().size());
+		long offset = 5 * 1024 * 1024 - 10;
+		try (InputStream in = backend.get(prefix + "large", offset, 100)) {
+			byte[] range = in.readAllBytes();
+			assertEquals(100, range.length);
+			for (int i = 0; i < range.length; i++) {
+				assertEquals(content[(int) offset + i], range[i]);
+			}
+		}
+	}
+
+	@Test
+	void listsByPrefix() throws Exception {
+		backend.put(prefix + "ab/one", stage(randomBytes(10)));
+		backend.put(prefix + "ab/two", stage(randomBytes(20)));
+		backend.put(prefix + "cd/three", stage(randomBytes(30)));
+
+		List<String> keys = new ArrayList<>();
+		backend.list(prefix + "ab/", object -> keys.add(object.key()));
+		assertEquals(List.of(prefix + "ab/one", prefix + "ab/two"), keys.stream().sorted().toList());
+	}
+
+	private Path stage(byte[] content) throws Exception {
+		return Files.write(Files.createTempFile(tempDir, "staged", ".part"), content);
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
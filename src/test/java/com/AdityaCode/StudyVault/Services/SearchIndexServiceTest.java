@@ -0,0 +1,103 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Dto.SearchHit;
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// A full indexer queue must not push text extraction onto the thread that publishes the event
+class SearchIndexServiceTest {
+
+	private static final String INDEX_DIR = "target/search-index-test/";
+
+	private final FileRepo fileRepo = mock(FileRepo.class);
+	private final FileServiceStorage fileServiceStorage = mock(FileServiceStorage.class);
+	private final SearchIndexService searchIndexService = new SearchIndexService(fileRepo, mock(FolderRepo.class), fileServiceStorage);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(INDEX_DIR));
+		ReflectionTestUtils.setField(searchIndexService, "indexDir", INDEX_DIR);
+		ReflectionTestUtils.setField(searchIndexService, "queueCapacity", 1);
+		ReflectionTestUtils.setField(searchIndexService, "maxContentChars", 10_000);
+		ReflectionTestUtils.setField(searchIndexService, "maxPdfPages", 10);
+		searchIndexService.open();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		release.countDown();
+		searchIndexService.close();
+		FileSystemUtils.deleteRecursively(Path.of(INDEX_DIR));
+	}
+
+	@Test
+	void overflowingUpdatesAreDroppedAndCaughtUpLater() throws Exception {
+		FileEntity first = file(1L, "first.txt");
+		FileEntity second = file(2L, "second.txt");
+		FileEntity third = file(3L, "third.txt");
+		CountDownLatch indexing = new CountDownLatch(1);
+		when(fileServiceStorage.openContent(any())).thenAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals("search-indexer")) {
+				indexing.countDown();
+				release.await();
+			}
+			FileEntity file = invocation.getArgument(0);
+			return new ByteArrayInputStream(("notes about " + file.getFileName().replace(".txt", "")).getBytes(StandardCharsets.UTF_8));
+		});
+
+		searchIndexService.onFileStored(new FileStoredEvent(first));
+		assertTrue(indexing.await(5, TimeUnit.SECONDS));
+		searchIndexService.onFileStored(new FileStoredEvent(second)); // fills the queue
+		searchIndexService.onFileStored(new FileStoredEvent(third)); // dropped, not run here
+		verify(fileServiceStorage, never()).openContent(third);
+
+		when(fileRepo.findAll()).thenReturn(List.of(first, second, third));
+		release.countDown();
+		awaitHit("second");
+		assertTrue(search("third").isEmpty());
+		searchIndexService.catchUp();
+		awaitHit("third");
+		assertEquals(List.of(1L), search("first"));
+
+		// Nothing was dropped since, so the next run leaves the index alone
+		searchIndexService.catchUp();
+		verify(fileRepo, times(1)).findAll();
+	}
+
+	private void awaitHit(String word) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (search(word).isEmpty()) {
+			assertTrue(System.nanoTime() < deadline, "catch-up never indexed " + word);
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+	}
+
+	private List<Long> search(String word) throws IOException {
+		return searchIndexService.search(word, null, 10).stream().map(SearchHit::id).toList();
+	}
+
+	private static FileEntity file(Long id, String name) {
+		FileEntity file = new FileEntity(name, "text/plain", 20L, null, null);
+		file.setId(id);
+		return file;
+	}
+}
@@ -0,0 +1,41 @@
+package com.AdityaCode.StudyVault.Services;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final StorageMetrics storageMetrics = new StorageMetrics(registry);
+
+	@Test
+	void repeatedTagCombinationsShareOneMeter() {
+		for (int i = 0; i < 3; i++) {
+			storageMetrics.recordDownload(storageMetrics.start(), "text/plain", 1024, "identity", 200, 1024);
+		}
+		storageMetrics.recordDownload(storageMetrics.start(), "text/plain", 1024, "identity", 206, 10);
+		Timer ok = registry.get("studyvault.download").tag("status", "200").timer();
+		assertEquals(3, ok.count());
+		assertEquals(1, registry.get("studyvault.download").tag("status", "206").timer().count());
+		assertEquals(3 * 1024 + 10, registry.get("studyvault.storage.bytes.read").counter().count());
+		assertEquals(1, registry.find("studyvault.storage.bytes.read").counters().size());
+	}
+
+	@Test
+	void uploadsAreTaggedByOutcomeAndCause() {
+		storageMetrics.recordUpload(storageMetrics.start(), StorageMetrics.MODE_MULTIPART, "application/x-unknown", 10, null);
+		storageMetrics.recordUpload(storageMetrics.start(), StorageMetrics.MODE_MULTIPART, "image/png", 10,
+				new RuntimeException(new IOException("disk full")));
+		storageMetrics.recordUpload(storageMetrics.start(), StorageMetrics.MODE_MULTIPART, "image/png", 10,
+				new IllegalArgumentException("bad type"));
+		assertEquals(1, registry.get("studyvault.upload").tags("type", "other", "outcome", "success").timer().count());
+		assertEquals(2, registry.get("studyvault.upload").tags("type", "image/png", "outcome", "failure").timer().count());
+		assertEquals(1, registry.get("studyvault.upload.failures").tag("cause", "io").counter().count());
+		assertEquals(1, registry.get("studyvault.upload.failures").tag("cause", "validation").counter().count());
+	}
+}
@@ -0,0 +1,215 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Entity.FolderEntity;
+import com.AdityaCode.StudyVault.Entity.StorageUsageEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import com.AdityaCode.StudyVault.Repository.StorageUsageRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Quota checks against the subtree counters: a course folder with a limit, a topic folder without one
+// below it and a week folder with its own, smaller limit at the bottom.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StorageQuotaServiceTest.Config.class)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:storage-quota;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"storage.quota.total=5000B"
+})
+class StorageQuotaServiceTest {
+
+	@Autowired
+	private StorageQuotaService storageQuotaService;
+	@Autowired
+	private FolderRepo folderRepo;
+	@Autowired
+	private FileRepo fileRepo;
+	@Autowired
+	private StorageUsageRepo storageUsageRepo;
+	@Autowired
+	private TestEntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private FolderEntity course;
+	private FolderEntity topic;
+	private FolderEntity week;
+	private FolderEntity otherCourse;
+
+	@BeforeEach
+	void createFolders() {
+		course = folder("course", null, 1000L);
+		topic = folder("topic", course, null);
+		week = folder("week", topic, 300L);
+		otherCourse = folder("other", null, 2000L);
+	}
+
+	@Test
+	void uploadsUpToTheLimitPass() {
+		storageQuotaService.checkQuota(week.getId(), 300);
+		storageQuotaService.checkQuota(topic.getId(), 1000);
+		storageQuotaService.checkQuota(null, 5000);
+	}
+
+	@Test
+	void theSmallestLimitOnThePathApplies() {
+		QuotaExceededException e = assertThrows(QuotaExceededException.class, () -> storageQuotaService.checkQuota(week.getId(), 301));
+		assertTrue(e.getMessage().contains("week"), e.getMessage());
+		e = assertThrows(QuotaExceededException.class, () -> storageQuotaService.checkQuota(topic.getId(), 1001));
+		assertTrue(e.getMessage().contains("course"), e.getMessage());
+	}
+
+	@Test
+	void recordedUsageCountsAgainstEveryAncestor() {
+		storageQuotaService.recordUsage(week.getId(), 250, 1);
+		refresh();
+		assertUsage(course, 250, 1);
+		assertUsage(topic, 250, 1);
+		assertUsage(week, 250, 1);
+		assertUsage(otherCourse, 0, 0);
+		assertEquals(250, storageUsageRepo.findById(StorageUsageEntity.GLOBAL).orElseThrow().getBytes());
+
+		storageQuotaService.checkQuota(week.getId(), 50);
+		assertThrows(QuotaExceededException.class, () -> storageQuotaService.checkQuota(week.getId(), 51));
+		// The course still has room for files outside the week folder
+		storageQuotaService.checkQuota(topic.getId(), 750);
+	}
+
+	@Test
+	void removalsFreeTheSpaceAgain() {
+		storageQuotaService.recordUsage(week.getId(), 300, 2);
+		refresh();
+		assertThrows(QuotaExceededException.class, () -> storageQuotaService.checkQuota(week.getId(), 1));
+
+		storageQuotaService.recordUsage(week.getId(), -300, -2);
+		refresh();
+		storageQuotaService.checkQuota(week.getId(), 300);
+		assertUsage(course, 0, 0);
+	}
+
+	@Test
+	void theVaultQuotaCoversEveryFolder() {
+		storageQuotaService.recordUsage(otherCourse.getId(), 1800, 1);
+		storageQuotaService.recordUsage(null, 3000, 1);
+		refresh();
+		storageQuotaService.checkQuota(null, 200);
+		QuotaExceededException e = assertThrows(QuotaExceededException.class, () -> storageQuotaService.checkQuota(week.getId(), 201));
+		assertTrue(e.getMessage().startsWith("Storage quota"), e.getMessage());
+	}
+
+	@Test
+	void aMovedSubtreeTakesItsUsageAlong() {
+		storageQuotaService.recordUsage(week.getId(), 200, 2);
+		refresh();
+		storageQuotaService.recordSubtreeMoved(reload(week), otherCourse.getId());
+		refresh();
+		assertUsage(course, 0, 0);
+		assertUsage(topic, 0, 0);
+		assertUsage(otherCourse, 200, 2);
+		assertEquals(200, storageUsageRepo.findById(StorageUsageEntity.GLOBAL).orElseThrow().getBytes());
+	}
+
+	@Test
+	void aMoveIntoAFolderWithoutRoomIsRejectedUnchanged() {
+		storageQuotaService.recordUsage(week.getId(), 200, 2);
+		storageQuotaService.recordUsage(otherCourse.getId(), 1900, 1);
+		refresh();
+		assertThrows(QuotaExceededException.class, () -> storageQuotaService.recordSubtreeMoved(reload(week), otherCourse.getId()));
+		refresh();
+		assertUsage(course, 200, 2);
+		assertUsage(otherCourse, 1900, 1);
+	}
+
+	@Test
+	void aChunkedUploadCompletingOverQuotaIsRejected(@TempDir Path stagingDir) throws IOException {
+		// The session was opened with room to spare, another upload filled the folder before it completed
+		storageQuotaService.checkQuota(week.getId(), 200);
+		storageQuotaService.recordUsage(week.getId(), 200, 1);
+		refresh();
+
+		BlobStore blobStore = mock(BlobStore.class);
+		FileServiceStorage fileServiceStorage = new FileServiceStorage(fileRepo, folderRepo, blobStore, mock(MetadataCache.class),
+				mock(ApplicationEventPublisher.class), storageQuotaService, new StorageMetrics(new SimpleMeterRegistry()),
+				mock(ContentCache.class), transactionManager);
+		Path staged = Files.writeString(stagingDir.resolve("session.part"), "x".repeat(200));
+		assertThrows(QuotaExceededException.class,
+				() -> fileServiceStorage.storeStagedFile(staged, "notes.txt", "text/plain", week.getId()));
+		verify(blobStore, never()).write(any(Path.class), any());
+		assertTrue(Files.exists(staged));
+		refresh();
+		assertUsage(week, 200, 1);
+	}
+
+	@Test
+	void countersAreComputedOnceForExistingFiles() {
+		storageUsageRepo.deleteAll();
+		fileRepo.saveAll(List.of(
+				new FileEntity("a.txt", "text/plain", 100L, null, week.getId()),
+				new FileEntity("b.txt", "text/plain", 40L, null, topic.getId()),
+				new FileEntity("c.txt", "text/plain", 7L, null, null)));
+		refresh();
+		storageQuotaService.initializeUsage();
+		refresh();
+		assertUsage(course, 140, 2);
+		assertUsage(topic, 140, 2);
+		assertUsage(week, 100, 1);
+		StorageUsageEntity total = storageUsageRepo.findById(StorageUsageEntity.GLOBAL).orElseThrow();
+		assertEquals(147, total.getBytes());
+		assertEquals(3, total.getFileCount());
+	}
+
+	private FolderEntity folder(String name, FolderEntity parent, Long quotaBytes) {
+		FolderEntity folder = folderRepo.save(new FolderEntity(name, parent != null ? parent.getId() : null));
+		folder.setAncestryPath((parent != null ? parent.getAncestryPath() : "/") + folder.getId() + "/");
+		folder.setQuotaBytes(quotaBytes);
+		return folderRepo.saveAndFlush(folder);
+	}
+
+	// The counters are moved by bulk updates, which bypass the persistence context
+	private void refresh() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private FolderEntity reload(FolderEntity folder) {
+		return folderRepo.findById(folder.getId()).orElseThrow();
+	}
+
+	private void assertUsage(FolderEntity folder, long bytes, long files) {
+		FolderEntity current = reload(folder);
+		assertEquals(bytes, current.getSubtreeBytes(), folder.getFolderName());
+		assertEquals(files, current.getSubtreeFileCount(), folder.getFolderName());
+	}
+
+	static class Config {
+		@Bean
+		StorageQuotaService storageQuotaService(FolderRepo folderRepo, FileRepo fileRepo, StorageUsageRepo storageUsageRepo) {
+			return new StorageQuotaService(folderRepo, fileRepo, storageUsageRepo);
+		}
+	}
+}
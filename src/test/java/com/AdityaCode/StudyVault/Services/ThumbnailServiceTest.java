@@ -0,0 +1,114 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ThumbnailServiceTest {
+
+	private static final String THUMBNAIL_DIR = "target/thumbnail-test/";
+
+	@TempDir
+	Path blobDir;
+
+	private final FileServiceStorage fileServiceStorage = mock(FileServiceStorage.class);
+	private final ThumbnailService thumbnailService = new ThumbnailService(mock(FileRepo.class), fileServiceStorage);
+
+	@BeforeEach
+	void setUp() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(THUMBNAIL_DIR));
+		ReflectionTestUtils.setField(thumbnailService, "thumbnailDir", THUMBNAIL_DIR);
+		ReflectionTestUtils.setField(thumbnailService, "thumbnailSize", 64);
+		ReflectionTestUtils.setField(thumbnailService, "workers", 1);
+		ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 10);
+		ReflectionTestUtils.setField(thumbnailService, "failureTtl", Duration.ofMinutes(10));
+		thumbnailService.init();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		thumbnailService.shutdown();
+		FileSystemUtils.deleteRecursively(Path.of(THUMBNAIL_DIR));
+	}
+
+	@Test
+	void rendersAnImageOnceRequested() throws Exception {
+		BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+		Path png = blobDir.resolve("photo.png");
+		ImageIO.write(image, "png", png.toFile());
+		FileEntity file = file(1L, "a1", "image/png", png);
+
+		Path thumbnail = await(file);
+		BufferedImage rendered = ImageIO.read(thumbnail.toFile());
+		assertEquals(64, rendered.getWidth());
+		assertEquals(43, rendered.getHeight());
+	}
+
+	@Test
+	void aFailedRenderIsNotRetriedOnEveryPoll() throws Exception {
+		// Passes the upload sniffing, but PDFBox cannot parse it
+		Path corrupt = Files.write(blobDir.resolve("broken.pdf"), "%PDF-1.7\nnot really a pdf".getBytes(StandardCharsets.US_ASCII));
+		FileEntity file = file(2L, "b2", "application/pdf", corrupt);
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> await(file));
+		assertTrue(e.getMessage().startsWith("No preview available"));
+		for (int i = 0; i < 5; i++) {
+			assertThrows(IllegalArgumentException.class, () -> thumbnailService.getThumbnail(file));
+		}
+		thumbnailService.onFileStored(new FileStoredEvent(file));
+		TimeUnit.MILLISECONDS.sleep(100);
+		verify(fileServiceStorage, times(1)).localContent(file);
+	}
+
+	@Test
+	void failuresAreForgottenAfterTheTtl() throws Exception {
+		ReflectionTestUtils.setField(thumbnailService, "failureTtl", Duration.ofMillis(50));
+		thumbnailService.init();
+		Path corrupt = Files.write(blobDir.resolve("broken.pdf"), "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII));
+		FileEntity file = file(3L, "c3", "application/pdf", corrupt);
+		assertThrows(IllegalArgumentException.class, () -> await(file));
+
+		TimeUnit.MILLISECONDS.sleep(100);
+		assertTrue(thumbnailService.getThumbnail(file).isEmpty());
+	}
+
+	// Polls like a client following the 202s, until the preview exists or is refused
+	private Path await(FileEntity file) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (true) {
+			Optional<Path> thumbnail = thumbnailService.getThumbnail(file);
+			if (thumbnail.isPresent()) {
+				return thumbnail.get();
+			}
+			assertTrue(System.nanoTime() < deadline, "thumbnail never settled");
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+	}
+
+	private FileEntity file(Long id, String hashPrefix, String type, Path content) throws IOException {
+		FileEntity file = new FileEntity(content.getFileName().toString(), type, Files.size(content), null, null);
+		file.setId(id);
+		file.setContentHash(hashPrefix + "0".repeat(62));
+		when(fileServiceStorage.localContent(file)).thenReturn(Optional.of(content));
+		when(fileServiceStorage.openContent(file)).thenAnswer(invocation -> Files.newInputStream(content));
+		return file;
+	}
+}
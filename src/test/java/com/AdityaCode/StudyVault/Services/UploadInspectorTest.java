@@ -0,0 +1,191 @@
+package com.AdityaCode.StudyVault.Services;
+
+import com.AdityaCode.StudyVault.Entity.FileEntity;
+import com.AdityaCode.StudyVault.Repository.FileRepo;
+import com.AdityaCode.StudyVault.Repository.FolderRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UploadInspectorTest {
+
+	private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F'};
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D, 'I', 'H', 'D', 'R'};
+
+	@Test
+	void detectsTheAllowedTypesByTheirMagicBytes() {
+		assertEquals("image/jpeg", detect(JPEG));
+		assertEquals("image/png", detect(PNG));
+		assertEquals("application/pdf", detect(ascii("%PDF-1.7\n%âã\n1 0 obj")));
+		assertEquals("text/plain", detect(ascii("Week 3: sorting\r\n\tquicksort, mergesort\f\n")));
+	}
+
+	@Test
+	void imagesMustStartWithTheirSignature() {
+		// A JPEG or PNG signature further in is just bytes, and those bytes are binary
+		assertNull(detect(concat(new byte[]{0}, JPEG)));
+		assertNull(detect(concat(ascii("header "), PNG)));
+	}
+
+	@Test
+	void findsAPdfHeaderAnywhereInTheFirstKilobyte() {
+		byte[] pdf = ascii("%PDF-1.4");
+		assertEquals("application/pdf", detect(concat(new byte[1019], pdf)));
+		// Past the window the junk in front decides, a NUL is not text
+		assertNull(detect(concat(new byte[1020], pdf)));
+		byte[] textPrefix = ascii("x".repeat(1100));
+		assertEquals("text/plain", detect(concat(textPrefix, pdf)));
+	}
+
+	@Test
+	void acceptsUtf16OnlyWithAByteOrderMark() {
+		byte[] bigEndian = concat(new byte[]{(byte) 0xFE, (byte) 0xFF}, "notes".getBytes(StandardCharsets.UTF_16BE));
+		byte[] littleEndian = concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, "notes".getBytes(StandardCharsets.UTF_16LE));
+		assertEquals("text/plain", detect(bigEndian));
+		assertEquals("text/plain", detect(littleEndian));
+		assertNull(detect("notes".getBytes(StandardCharsets.UTF_16LE)));
+	}
+
+	@Test
+	void rejectsControlBytesAsText() {
+		assertNull(detect(ascii("plain text\0with a NUL")));
+		assertNull(detect(ascii("bell\u0007")));
+		// Legacy 8-bit encodings and escape sequences are still text
+		assertEquals("text/plain", detect(new byte[]{'c', 'a', 'f', (byte) 0xE9, 0x1B, '[', 'm'}));
+	}
+
+	@Test
+	void rejectsAnEmptyStream() {
+		assertNull(detect(new byte[0]));
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> UploadInspector.inspect(new ByteArrayInputStream(new byte[0]), 100));
+		assertTrue(e.getMessage().startsWith("Unsupported file type"));
+	}
+
+	@Test
+	void onlyTheSniffedHeadIsLookedAt() {
+		byte[] content = concat(ascii("a".repeat(UploadInspector.SNIFF_LENGTH)), new byte[]{0});
+		assertEquals("text/plain", UploadInspector.detect(content, UploadInspector.SNIFF_LENGTH));
+		assertNull(UploadInspector.detect(content, content.length));
+	}
+
+	@Test
+	void theInspectedStreamReplaysTheHeadThenTheRest() throws IOException {
+		byte[] content = concat(PNG, new byte[UploadInspector.SNIFF_LENGTH * 3]);
+		Arrays.fill(content, PNG.length, content.length, (byte) 7);
+		UploadInspector.InspectedStream stream = UploadInspector.inspect(new ByteArrayInputStream(content), content.length);
+		assertEquals("image/png", stream.contentType());
+		assertEquals(0, stream.count());
+
+		assertEquals(0x89, stream.read());
+		byte[] rest = stream.readAllBytes();
+		assertArrayEquals(Arrays.copyOfRange(content, 1, content.length), rest);
+		assertEquals(content.length, stream.count());
+		assertEquals(-1, stream.read());
+	}
+
+	@Test
+	void theInspectedStreamFailsOncePastTheLimit() throws IOException {
+		byte[] content = ascii("x".repeat(10_000));
+		UploadInspector.InspectedStream stream = UploadInspector.inspect(new ByteArrayInputStream(content), 9_999);
+		byte[] buffer = new byte[1000];
+		long read = 0;
+		IOException e = null;
+		try {
+			int n;
+			while ((n = stream.read(buffer)) > 0) {
+				read += n;
+			}
+		} catch (IOException thrown) {
+			e = thrown;
+		}
+		assertNotNull(e, "the limit was not enforced");
+		assertTrue(read <= 9_999 && read > 9_999 - buffer.length, String.valueOf(read));
+
+		// Exactly at the limit is fine
+		UploadInspector.InspectedStream exact = UploadInspector.inspect(new ByteArrayInputStream(content), 10_000);
+		assertEquals(10_000, exact.readAllBytes().length);
+	}
+
+	@Test
+	void skippedBytesCountTowardsTheLimit() throws IOException {
+		UploadInspector.InspectedStream stream =
+				UploadInspector.inspect(new ByteArrayInputStream(ascii("y".repeat(20_000))), 10_000);
+		assertThrows(IOException.class, () -> {
+			while (stream.skip(8192) > 0) {
+				// drain
+			}
+		});
+	}
+
+	@Test
+	void aRejectedHeadClosesTheSource() {
+		boolean[] closed = {false};
+		InputStream source = new ByteArrayInputStream(new byte[]{0, 1, 2}) {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		assertThrows(IllegalArgumentException.class, () -> UploadInspector.inspect(source, 100));
+		assertTrue(closed[0]);
+	}
+
+	@Test
+	void anUploadWithALyingContentTypeIsStoredUnderTheSniffedType() throws IOException {
+		BlobStore blobStore = mock(BlobStore.class);
+		FileRepo fileRepo = mock(FileRepo.class);
+		when(blobStore.write(any(InputStream.class), anyString())).thenAnswer(invocation -> {
+			byte[] bytes = invocation.getArgument(0, InputStream.class).readAllBytes();
+			return new BlobStore.StoredBlob("d".repeat(64), bytes.length, "blobs/dd/" + "d".repeat(64), null, bytes.length);
+		});
+		FileServiceStorage fileServiceStorage = new FileServiceStorage(fileRepo, mock(FolderRepo.class), blobStore, mock(MetadataCache.class),
+				mock(ApplicationEventPublisher.class), mock(StorageQuotaService.class), new StorageMetrics(new SimpleMeterRegistry()),
+				mock(ContentCache.class), mock(PlatformTransactionManager.class));
+
+		// A PNG sent as a PDF
+		byte[] png = concat(PNG, new byte[200]);
+		fileServiceStorage.saveFile(new MockMultipartFile("file", "slides.pdf", "application/pdf", png), null);
+
+		verify(blobStore).write(any(InputStream.class), eq("image/png"));
+		ArgumentCaptor<FileEntity> saved = ArgumentCaptor.forClass(FileEntity.class);
+		verify(fileRepo).save(saved.capture());
+		assertEquals("image/png", saved.getValue().getFileType());
+		assertEquals(png.length, saved.getValue().getSize());
+
+		// An executable sent as a PDF never reaches the blob store
+		byte[] executable = concat(new byte[]{0x7F, 'E', 'L', 'F', 2, 1, 1, 0}, new byte[200]);
+		RuntimeException e = assertThrows(RuntimeException.class, () -> fileServiceStorage.saveFile(
+				new MockMultipartFile("file", "slides.pdf", "application/pdf", executable), null));
+		assertTrue(e.getMessage().contains("Unsupported file type"), e.getMessage());
+		verify(blobStore, times(1)).write(any(InputStream.class), anyString());
+	}
+
+	private static String detect(byte[] head) {
+		return UploadInspector.detect(head, head.length);
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] result = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+}
@@ -0,0 +1,102 @@
+package com.AdityaCode.StudyVault.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AdmissionControlFilter filter = new AdmissionControlFilter(environment(), registry);
+
+	@Test
+	void rejectsAClientPastItsBurstWithRetryAfter() throws Exception {
+		assertEquals(200, download("10.0.0.1").getStatus());
+		assertEquals(200, download("10.0.0.1").getStatus());
+		MockHttpServletResponse rejected = download("10.0.0.1");
+		assertEquals(429, rejected.getStatus());
+		assertTrue(Long.parseLong(rejected.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+		assertEquals(1, registry.get("studyvault.admission.rejected").tags("endpoint", "download", "reason", "rate").counter().count());
+
+		// Other clients are unaffected
+		assertEquals(200, download("10.0.0.2").getStatus());
+	}
+
+	@Test
+	void sharedLinksAreLimitedAcrossClients() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(200, request("GET", "/api/files/share/abc", "10.0.1." + i).getStatus());
+		}
+		assertEquals(429, request("GET", "/api/files/share/abc", "10.0.1.9").getStatus());
+		assertEquals(200, request("GET", "/api/files/share/other", "10.0.1.9").getStatus());
+	}
+
+	@Test
+	void leavesOtherRequestsAlone() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(200, request("GET", "/api/files/folders/1", "10.0.0.1").getStatus());
+			assertEquals(200, request("DELETE", "/api/files/upload", "10.0.0.1").getStatus());
+		}
+	}
+
+	@Test
+	void releasesThePermitAfterEachRequest() throws Exception {
+		// One permit and no queue: a leaked permit would turn the second upload away
+		assertEquals(200, request("POST", "/api/files/upload", "10.0.2.1").getStatus());
+		assertEquals(200, request("POST", "/api/files/upload", "10.0.2.2").getStatus());
+		assertEquals(0, registry.get("studyvault.admission.active").tag("endpoint", "upload").gauge().value());
+	}
+
+	@Test
+	void turnsAwayRequestsWhileThePermitsAreHeld() throws Exception {
+		MockHttpServletResponse[] concurrent = new MockHttpServletResponse[1];
+		MockHttpServletRequest holding = new MockHttpServletRequest("POST", "/api/files/upload");
+		holding.setRemoteAddr("10.0.3.1");
+		filter.doFilter(holding, new MockHttpServletResponse(),
+				(request, response) -> concurrent[0] = request("POST", "/api/files/upload", "10.0.3.2"));
+		assertEquals(429, concurrent[0].getStatus());
+		assertTrue(concurrent[0].getContentAsString().contains("Server busy"));
+		assertEquals(1, registry.get("studyvault.admission.rejected").tags("endpoint", "upload", "reason", "concurrency").counter().count());
+	}
+
+	private MockHttpServletResponse download(String client) throws ServletException, IOException {
+		return request("GET", "/api/files/download/7", client);
+	}
+
+	private MockHttpServletResponse request(String method, String uri, String client) throws ServletException, IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setRemoteAddr(client);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private static MockEnvironment environment() {
+		MockEnvironment environment = new MockEnvironment();
+		environment.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+		environment
+				.withProperty("admission.enabled", "true")
+				.withProperty("admission.queue-timeout", "50ms")
+				.withProperty("admission.share.link-rate", "0.01")
+				.withProperty("admission.share.link-burst", "3");
+		for (String endpoint : new String[]{"upload", "download", "share"}) {
+			environment.withProperty("admission." + endpoint + ".rate", "0.01")
+					.withProperty("admission." + endpoint + ".burst", "2")
+					.withProperty("admission." + endpoint + ".max-concurrent", "1")
+					.withProperty("admission." + endpoint + ".max-queued", "0");
+		}
+		environment.withProperty("admission.share.burst", "5");
+		return environment;
+	}
+}
@@ -0,0 +1,69 @@
+package com.AdityaCode.StudyVault.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+	private final Bulkhead bulkhead = new Bulkhead(2, 1);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void admitsUpToTheLimitAtOnce() throws InterruptedException {
+		assertTrue(bulkhead.tryAcquire(Duration.ZERO));
+		assertTrue(bulkhead.tryAcquire(Duration.ZERO));
+		assertEquals(2, bulkhead.active());
+		assertFalse(bulkhead.tryAcquire(Duration.ofMillis(20)));
+		assertEquals(0, bulkhead.queued());
+	}
+
+	@Test
+	void aQueuedRequestGetsTheNextReleasedPermit() throws Exception {
+		bulkhead.tryAcquire(Duration.ZERO);
+		bulkhead.tryAcquire(Duration.ZERO);
+		Future<Boolean> waiting = executor.submit(() -> bulkhead.tryAcquire(Duration.ofSeconds(10)));
+		awaitQueued(1);
+
+		bulkhead.release();
+		assertTrue(waiting.get(5, TimeUnit.SECONDS));
+		assertEquals(2, bulkhead.active());
+		assertEquals(0, bulkhead.queued());
+	}
+
+	@Test
+	void requestsBeyondTheQueueAreTurnedAwayAtOnce() throws Exception {
+		bulkhead.tryAcquire(Duration.ZERO);
+		bulkhead.tryAcquire(Duration.ZERO);
+		Future<Boolean> waiting = executor.submit(() -> bulkhead.tryAcquire(Duration.ofSeconds(10)));
+		awaitQueued(1);
+
+		long start = System.nanoTime();
+		assertFalse(bulkhead.tryAcquire(Duration.ofSeconds(10)));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "rejection waited for the timeout");
+		assertEquals(1, bulkhead.queued());
+
+		bulkhead.release();
+		assertTrue(waiting.get(5, TimeUnit.SECONDS));
+	}
+
+	private void awaitQueued(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (bulkhead.queued() != expected) {
+			assertTrue(System.nanoTime() < deadline, "request never queued");
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+	}
+}
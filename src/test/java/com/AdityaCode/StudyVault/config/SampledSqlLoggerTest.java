@@ -0,0 +1,40 @@
+package com.AdityaCode.StudyVault.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampledSqlLoggerTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final SampledSqlLogger sqlLogger = new SampledSqlLogger(0, registry);
+
+	@Test
+	void countsStatementsByTheirFirstKeyword() {
+		sqlLogger.inspect("select f1_0.id from files f1_0");
+		sqlLogger.inspect("  \n INSERT into files (id) values (?)");
+		sqlLogger.inspect("call next value for files_seq");
+		assertEquals(1, count("select"));
+		assertEquals(1, count("insert"));
+		assertEquals(1, count("other"));
+	}
+
+	@Test
+	void skipsLeadingComments() {
+		// hibernate.use_sql_comments puts the entity or query name in a block comment
+		sqlLogger.inspect("/* insert for com.AdityaCode.StudyVault.Entity.FileEntity */insert into files (id) values (?)");
+		sqlLogger.inspect("/* delete from FileEntity f where f.id = :id */ delete from files where id=?");
+		sqlLogger.inspect("-- update of a share link\n/* second */ update share_links set token=?");
+		sqlLogger.inspect("/* unterminated select");
+		assertEquals(1, count("insert"));
+		assertEquals(1, count("delete"));
+		assertEquals(1, count("update"));
+		assertEquals(0, count("select"));
+		assertEquals(1, count("other"));
+	}
+
+	private double count(String kind) {
+		return registry.get("studyvault.sql.statements").tag("kind", kind).counter().count();
+	}
+}
@@ -0,0 +1,97 @@
+package com.AdityaCode.StudyVault.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rates are chosen so refills either cannot happen during the test or are waited for explicitly
+class TokenBucketLimiterTest {
+
+	@Test
+	void allowsTheBurstThenReportsTheWait() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(1, 3);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("client"));
+		}
+		long wait = limiter.tryAcquire("client");
+		assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+		// A rejection does not consume anything, the next token is still due at the same time
+		assertTrue(limiter.tryAcquire("client") <= wait);
+	}
+
+	@Test
+	void keysHaveTheirOwnBuckets() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(0.01, 1);
+		assertEquals(0, limiter.tryAcquire("a"));
+		assertTrue(limiter.tryAcquire("a") > 0);
+		assertEquals(0, limiter.tryAcquire("b"));
+		assertEquals(2, limiter.size());
+	}
+
+	@Test
+	void tokensComeBackAtTheRate() throws InterruptedException {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(20, 1);
+		assertEquals(0, limiter.tryAcquire("client"));
+		long wait = limiter.tryAcquire("client");
+		assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(50), "wait " + wait);
+		TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+		assertEquals(0, limiter.tryAcquire("client"));
+	}
+
+	@Test
+	void concurrentRequestsNeverExceedTheBurst() throws Exception {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(0.01, 10);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					int granted = 0;
+					for (int i = 0; i < 100; i++) {
+						if (limiter.tryAcquire("client") == 0) {
+							granted++;
+						}
+					}
+					return granted;
+				}));
+			}
+			start.countDown();
+			int granted = 0;
+			for (Future<Integer> result : results) {
+				granted += result.get();
+			}
+			assertEquals(10, granted);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void sweepDropsOnlyRefilledBuckets() throws InterruptedException {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(20, 1);
+		TokenBucketLimiter slow = new TokenBucketLimiter(0.01, 1);
+		limiter.tryAcquire("client");
+		slow.tryAcquire("client");
+		TimeUnit.MILLISECONDS.sleep(60);
+		assertEquals(1, limiter.sweep());
+		assertEquals(0, limiter.size());
+		assertEquals(0, slow.sweep());
+		assertEquals(1, slow.size());
+	}
+
+	@Test
+	void rejectsNonPositiveSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0));
+	}
+}
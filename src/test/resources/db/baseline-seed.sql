@@ -0,0 +1,20 @@
+-- A database as the original release left it under ddl-auto=update, before any Flyway history
+create table files (id bigint not null auto_increment, created_at datetime(6), file_name varchar(255), file_path varchar(255),
+    file_type varchar(255), parent_folder_id bigint, size bigint, primary key (id)) engine=InnoDB;
+create table folders (id bigint not null auto_increment, created_at datetime(6), folder_name varchar(255),
+    folder_path varchar(255), parent_folder_id bigint, primary key (id)) engine=InnoDB;
+create table share_links (id bigint not null auto_increment, expiry_date datetime(6), file_id varchar(255),
+    password varchar(255), share_link varchar(255), primary key (id)) engine=InnoDB;
+
+insert into folders (id, created_at, folder_name, folder_path, parent_folder_id) values
+    (1, '2024-01-01 10:00:00', 'Notes', 'upload/Notes', null),
+    (2, '2024-01-01 10:05:00', 'Week 1', 'upload/Notes/Week 1', 1);
+insert into files (id, created_at, file_name, file_path, file_type, parent_folder_id, size) values
+    (1, '2024-01-02 09:00:00', 'syllabus.pdf', 'upload/syllabus.pdf', 'application/pdf', null, 1200),
+    (7, '2024-01-02 09:30:00', 'lecture.txt', 'upload/Notes/Week 1/lecture.txt', 'text/plain', 2, 300);
+insert into share_links (id, expiry_date, file_id, password, share_link) values
+    (1, '2099-01-01 00:00:00', '7', null, 'http://localhost:8080/api/files/share/5f0c3e4e-8a43-4a5b-9c52-0d2a4c7e1b11'),
+    (2, '2099-01-01 00:00:00', 'lecture.txt', null, 'http://localhost:8080/api/files/share/1b6f2a8e-33c4-4b0e-a1d7-6e9f0c2d4a55'),
+    (3, '2099-01-01 00:00:00', ' 7', null, 'http://localhost:8080/api/files/share/9d3e7c1a-5b2f-4e8d-b6a0-2c4f8e1d7b99'),
+    (4, '2099-01-01 00:00:00', '99999999999999999999', null, 'http://localhost:8080/api/files/share/0a1b2c3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d'),
+    (5, '2099-01-01 00:00:00', null, null, 'http://localhost:8080/api/files/share/7e6d5c4b-3a29-4180-9f7e-6d5c4b3a2918');